@@ -0,0 +1,22 @@
+package com.example.carwashapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Кэши приложения. Размер и время жизни задаются свойством {@code spring.cache.caffeine.spec};
+ * метрики попаданий, промахов и вытеснений публикуются как {@code cache.gets} и {@code cache.evictions}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    /**
+     * Услуги по идентификатору.
+     */
+    public static final String SERVICES = "services";
+
+    /**
+     * Полный список услуг.
+     */
+    public static final String SERVICE_CATALOG = "serviceCatalog";
+}
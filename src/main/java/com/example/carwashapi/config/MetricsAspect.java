@@ -0,0 +1,119 @@
+package com.example.carwashapi.config;
+
+import com.example.carwashapi.exception.BookingConflictException;
+import com.example.carwashapi.exception.CustomerNotFoundException;
+import com.example.carwashapi.exception.NotFoundException;
+import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.example.carwashapi.exception.TimeslotNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Метрики сервисного слоя и запросов к репозиториям.
+ * <p>
+ * {@code carwash.service} — время выполнения каждого публичного метода сервисов ({@code @Service}),
+ * {@code carwash.repository} — время каждого вызова репозитория Spring Data. Вложенные вызовы (запрос
+ * из default-метода репозитория) отдельно не замеряются: время учитывается один раз, под именем метода,
+ * который вызвал сервис. Теги: класс, метод
+ * и имя исключения ({@code none}, если вызов завершился успешно). Перцентили и гистограммы задаются
+ * свойствами {@code management.metrics.distribution.*}.
+ * <p>
+ * {@code carwash.errors} — число конфликтов бронирования и ошибок «не найдено». Исключение учитывается
+ * один раз — во внешнем вызове сервиса, даже если оно прошло через несколько сервисов.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+    private static final Set<Class<? extends Exception>> COUNTED_EXCEPTIONS = Set.of(
+            BookingConflictException.class,
+            NotFoundException.class,
+            CustomerNotFoundException.class,
+            ServiceNotFoundException.class,
+            TimeslotNotFoundException.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+    private final ThreadLocal<int[]> serviceDepth = ThreadLocal.withInitial(() -> new int[1]);
+    private final ThreadLocal<int[]> repositoryDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public MetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * com.example.carwashapi.service..*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        int[] depth = serviceDepth.get();
+        depth[0]++;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            if (depth[0] == 1 && COUNTED_EXCEPTIONS.contains(e.getClass())) {
+                Counter.builder("carwash.errors")
+                        .description("Конфликты бронирования и ошибки «не найдено» в сервисном слое")
+                        .tags("exception", exception, "class", className, "method", method)
+                        .register(meterRegistry)
+                        .increment();
+            }
+            throw e;
+        } finally {
+            depth[0]--;
+            sample.stop(Timer.builder("carwash.service")
+                    .description("Время выполнения метода сервиса")
+                    .tags("class", className, "method", method, "exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        int[] depth = repositoryDepth.get();
+        if (depth[0] > 0) {
+            return joinPoint.proceed();
+        }
+        depth[0]++;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            depth[0]--;
+            sample.stop(Timer.builder("carwash.repository")
+                    .description("Время выполнения запроса к репозиторию")
+                    .tags("repository", repositoryName(joinPoint.getThis()), "method", joinPoint.getSignature().getName(),
+                            "exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Имя интерфейса репозитория приложения, реализуемого прокси Spring Data.
+     */
+    private String repositoryName(Object proxy) {
+        return repositoryNames.computeIfAbsent(proxy.getClass(), type -> {
+            for (Class<?> candidate : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+                if (candidate.getPackageName().startsWith("com.example.carwashapi")) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return type.getSimpleName();
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.carwashapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Основной пул и пул реплики для чтения. Включается свойством {@value #REPLICA_URL_PROPERTY};
+ * без него приложение работает с единственным источником данных Spring Boot.
+ * <p>
+ * Основной пул настраивается как обычно ({@code spring.datasource.*}, {@code spring.datasource.hikari.*}),
+ * пул реплики — свойствами HikariCP с префиксом {@code spring.datasource.replica}
+ * ({@code jdbc-url}, {@code username}, {@code password}, {@code maximum-pool-size} и т.д.).
+ * Миграции Flyway выполняются только на основном пуле; схема реплики приходит репликацией.
+ * <p>
+ * На реплику направляются только сервисные методы {@code @Transactional(readOnly = true)}. Данные для кэшей
+ * (каталог услуг, клиенты по телефону, календарь свободного времени) загружаются с основного пула,
+ * чтобы кэш не закрепил отставание реплики.
+ * Метрики пулов публикуются как {@code hikaricp.connections.*} с тегом {@code pool=primary|replica}.
+ */
+@Configuration
+@ConditionalOnProperty(ReplicaDataSourceConfig.REPLICA_URL_PROPERTY)
+public class ReplicaDataSourceConfig {
+    public static final String REPLICA_URL_PROPERTY = "spring.datasource.replica.jdbc-url";
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+}
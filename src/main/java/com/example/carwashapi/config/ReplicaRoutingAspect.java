@@ -0,0 +1,32 @@
+package com.example.carwashapi.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Разрешает чтение с реплики на время выполнения сервисных методов {@code @Transactional(readOnly = true)}.
+ * Соединение берётся с реплики, только если транзакция, в которой выполняется запрос, тоже только для чтения:
+ * метод, вызванный из транзакции записи, продолжает читать с основного пула.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(ReplicaDataSourceConfig.REPLICA_URL_PROPERTY)
+public class ReplicaRoutingAspect {
+
+    @Around("@within(org.springframework.stereotype.Service) && @annotation(transactional)")
+    public Object routeReadOnly(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+        if (!transactional.readOnly()) {
+            return joinPoint.proceed();
+        }
+        Boolean previous = ReplicaRoutingDataSource.allowReplicaReads();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.restore(previous);
+        }
+    }
+}
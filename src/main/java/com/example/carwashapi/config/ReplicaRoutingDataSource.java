@@ -0,0 +1,62 @@
+package com.example.carwashapi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Источник данных, выбирающий пул для каждого нового соединения: реплику — для транзакций только для чтения,
+ * начатых сервисными методами {@code @Transactional(readOnly = true)}, основной пул — для всего остального.
+ * <p>
+ * Одного признака readOnly недостаточно: Spring Data выполняет собственные методы чтения репозиториев
+ * ({@code findById}, {@code findAll}) в транзакциях только для чтения, и запись, читающая данные вне
+ * сервисной транзакции, попала бы на отстающую реплику. Поэтому чтение с реплики включается явно
+ * ({@link ReplicaRoutingAspect}) и действует только внутри сервисного метода.
+ * <p>
+ * Пул выбирается при получении физического соединения, поэтому источник должен быть обёрнут
+ * в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: менеджер транзакций
+ * запрашивает соединение до того, как транзакция помечена как только для чтения.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final ThreadLocal<Boolean> REPLICA_READS = new ThreadLocal<>();
+
+    enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Разрешает чтение с реплики в текущем потоке.
+     *
+     * @return Предыдущее значение, которое нужно передать в {@link #restore(Boolean)}.
+     */
+    static Boolean allowReplicaReads() {
+        Boolean previous = REPLICA_READS.get();
+        REPLICA_READS.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void restore(Boolean previous) {
+        if (previous == null) {
+            REPLICA_READS.remove();
+        } else {
+            REPLICA_READS.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean replica = Boolean.TRUE.equals(REPLICA_READS.get())
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return replica ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.carwashapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Фоновые задачи по расписанию ({@code @Scheduled}), например очистка устаревших ключей идемпотентности.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,65 @@
+package com.example.carwashapi.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Кэш второго уровня Hibernate (JCache поверх Caffeine) для услуг и временных слотов
+ * и кэш запросов поиска свободных слотов.
+ * <p>
+ * Области создаются здесь: не более {@code hibernate-cache.max-size} записей, время жизни — {@code hibernate-cache.ttl}.
+ * Изменения через JPA обновляют кэш сразу. TTL ограничивает устаревание при записи в обход Hibernate
+ * и на других экземплярах приложения: кэш локален для процесса. Область отметок времени изменения
+ * таблиц не ограничивается, иначе кэш запросов мог бы вернуть результат, устаревший после записи.
+ * <p>
+ * Попадания и промахи по областям публикуются как {@code hibernate.second.level.cache.requests} с тегами
+ * {@code region} и {@code result}, кэш запросов — как {@code hibernate.cache.query.requests}
+ * (нужно {@code hibernate.generate_statistics=true}).
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+    public static final String SERVICE_REGION = "service";
+    public static final String SERVICE_TIMESLOTS_REGION = "service.timeslots";
+    public static final String TIMESLOT_REGION = "timeslot";
+    public static final String AVAILABLE_TIMESLOTS_QUERY_REGION = "availableTimeslotsQuery";
+
+    private static final String DEFAULT_QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${hibernate-cache.max-size:10000}") long maxSize,
+                                                @Value("${hibernate-cache.ttl:10m}") Duration ttl) {
+        // Отдельный менеджер на каждый контекст приложения: менеджер провайдера по умолчанию общий для JVM.
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-second-level-cache-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : new String[]{SERVICE_REGION, SERVICE_TIMESLOTS_REGION, TIMESLOT_REGION,
+                AVAILABLE_TIMESLOTS_QUERY_REGION, DEFAULT_QUERY_RESULTS_REGION}) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            cacheManager.createCache(region, configuration);
+        }
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+}
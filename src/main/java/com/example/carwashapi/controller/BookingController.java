@@ -1,12 +1,20 @@
 package com.example.carwashapi.controller;
 
+import com.example.carwashapi.dto.BookingBatchRequest;
+import com.example.carwashapi.dto.BookingBatchResult;
 import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.BookingSummary;
+import com.example.carwashapi.dto.CursorPage;
+import com.example.carwashapi.dto.FreeWindow;
+import com.example.carwashapi.dto.ServiceSummary;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.exception.BookingConflictException;
+import com.example.carwashapi.exception.IdempotencyKeyInProgressException;
+import com.example.carwashapi.exception.InvalidIdempotencyKeyException;
 import com.example.carwashapi.exception.NotFoundException;
 import com.example.carwashapi.exception.ServiceNotFoundException;
-import com.example.carwashapi.model.Booking;
 import com.example.carwashapi.model.Service;
-import com.example.carwashapi.model.Timeslot;
+import com.example.carwashapi.service.AvailabilityFeed;
 import com.example.carwashapi.service.BookingService;
 import com.example.carwashapi.service.BookingServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,11 +23,16 @@ import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -30,11 +43,13 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final AvailabilityFeed availabilityFeed;
     private final Logger logger = LoggerFactory.getLogger(BookingController.class);
 
     @Autowired
-    public BookingController(BookingServiceImpl bookingService) {
+    public BookingController(BookingServiceImpl bookingService, AvailabilityFeed availabilityFeed) {
         this.bookingService = bookingService;
+        this.availabilityFeed = availabilityFeed;
     }
 
     /**
@@ -44,53 +59,136 @@ public class BookingController {
      */
     @Operation(summary = "Получает список всех услуг")
     @GetMapping("/services")
-    public List<Service> getAllServices() {
+    public List<ServiceSummary> getAllServices() {
         logger.info("Запрос списка всех услуг");
         return bookingService.getAllServices();
     }
 
     /**
-     * Получает доступное время для указанной услуги.
+     * Получает доступное время для указанной услуги в заданном интервале.
      *
      * @param serviceId Идентификатор услуги.
+     * @param from      Начало интервала (по умолчанию — текущее время).
+     * @param to        Конец интервала (по умолчанию — две недели после начала).
      * @return Список доступных временных слотов для указанной услуги.
      * @throws NotFoundException       если услуга не найдена.
      * @throws ServiceNotFoundException если услуга не найдена.
      */
     @Operation(summary = "Получает доступное время для услуги")
     @GetMapping("/availability/{serviceId}")
-    public List<Timeslot> getAvailabilityForService(
+    public List<TimeslotSummary> getAvailabilityForService(
             @Parameter(in = ParameterIn.PATH, name = "serviceId", description = "ID услуги")
-            @PathVariable Long serviceId) throws NotFoundException, ServiceNotFoundException {
+            @PathVariable Long serviceId,
+            @Parameter(in = ParameterIn.QUERY, name = "from", description = "Начало интервала")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(in = ParameterIn.QUERY, name = "to", description = "Конец интервала")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to)
+            throws NotFoundException, ServiceNotFoundException {
         logger.info("Запрос доступного времени для услуги с ID: {}", serviceId);
         Service service = bookingService.getServiceById(serviceId);
         if (service == null) {
             logger.error("Услуга с ID {} не найдена", serviceId);
             throw new NotFoundException("Service not found");
         }
-        return bookingService.getAvailableTimeSlotsForService(service);
+        return bookingService.getAvailableTimeSlotsForService(service, from, to);
+    }
+
+    /**
+     * Находит самые ранние свободные слоты среди всех услуг.
+     *
+     * @param limit       Количество слотов (по умолчанию 10, не более 100).
+     * @param maxDuration Наибольшая длительность слота в минутах.
+     * @param maxPrice    Наибольшая цена услуги.
+     * @param from        Начало интервала (по умолчанию — текущее время).
+     * @param to          Конец интервала (по умолчанию и не более чем — {@code booking.search.max-window} после начала).
+     * @return Свободные слоты в порядке времени начала.
+     */
+    @Operation(summary = "Находит ближайшие свободные слоты среди всех услуг")
+    @GetMapping("/availability/search")
+    public List<FreeWindow> searchAvailability(
+            @Parameter(in = ParameterIn.QUERY, name = "limit", description = "Количество слотов")
+            @RequestParam(defaultValue = "10") int limit,
+            @Parameter(in = ParameterIn.QUERY, name = "maxDuration", description = "Наибольшая длительность слота в минутах")
+            @RequestParam(required = false) Integer maxDuration,
+            @Parameter(in = ParameterIn.QUERY, name = "maxPrice", description = "Наибольшая цена услуги")
+            @RequestParam(required = false) Double maxPrice,
+            @Parameter(in = ParameterIn.QUERY, name = "from", description = "Начало интервала")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(in = ParameterIn.QUERY, name = "to", description = "Конец интервала (не дальше двух недель после начала)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        logger.info("Поиск ближайших свободных слотов");
+        return bookingService.findEarliestFreeWindows(limit, maxDuration, maxPrice, from, to);
+    }
+
+    /**
+     * Подписывает клиента на изменения доступного времени услуги (Server-Sent Events).
+     * <p>
+     * Событие {@code availability} содержит актуальный список свободных слотов услуги на один день и заменяет
+     * ранее полученный список за этот день. Событие {@code reset} означает, что часть изменений пропущена,
+     * и доступное время нужно запросить заново. Чтобы не пропустить изменения, клиент сначала подписывается,
+     * а затем запрашивает {@code /availability/{serviceId}}.
+     *
+     * @param serviceId Идентификатор услуги.
+     * @return Поток событий об изменении доступного времени.
+     * @throws ServiceNotFoundException если услуга не найдена.
+     */
+    @Operation(summary = "Подписывает на изменения доступного времени услуги")
+    @GetMapping(value = "/availability/{serviceId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailabilityForService(
+            @Parameter(in = ParameterIn.PATH, name = "serviceId", description = "ID услуги")
+            @PathVariable Long serviceId) throws ServiceNotFoundException {
+        logger.info("Подписка на изменения доступного времени услуги с ID: {}", serviceId);
+        return availabilityFeed.subscribe(serviceId);
     }
 
     /**
      * Создает новое бронирование.
+     * <p>
+     * Повторный запрос с тем же заголовком {@code Idempotency-Key} возвращает бронирование,
+     * созданное первым запросом, и не создает новое.
      *
+     * @param idempotencyKey Ключ идемпотентности запроса.
      * @param bookingRequest Данные для создания бронирования.
      * @return Созданное бронирование.
-     * @throws BookingConflictException если есть конфликт в расписании.
-     * @throws NotFoundException        если клиент или услуга не найдены.
-     * @throws ServiceNotFoundException  если услуга не найдена.
+     * @throws BookingConflictException       если есть конфликт в расписании.
+     * @throws NotFoundException              если клиент или услуга не найдены.
+     * @throws ServiceNotFoundException       если услуга не найдена.
+     * @throws InvalidIdempotencyKeyException если ключ уже использован с другим запросом.
+     * @throws IdempotencyKeyInProgressException если запрос с этим ключом всё ещё выполняется.
      */
     @Operation(summary = "Создает бронирование")
     @PostMapping("/create")
-    public ResponseEntity<Booking> createBooking(
+    public ResponseEntity<BookingSummary> createBooking(
+            @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key", description = "Ключ идемпотентности запроса")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Parameter(in = ParameterIn.DEFAULT, description = "Данные для создания бронирования")
-            @Valid @RequestBody BookingRequest bookingRequest) throws BookingConflictException, NotFoundException, ServiceNotFoundException {
+            @Valid @RequestBody BookingRequest bookingRequest)
+            throws BookingConflictException, NotFoundException, ServiceNotFoundException, InvalidIdempotencyKeyException,
+            IdempotencyKeyInProgressException {
         logger.info("Создание нового бронирования");
-        Booking createdBooking = bookingService.createBooking(bookingRequest);
+        BookingSummary createdBooking = bookingService.createBooking(bookingRequest, idempotencyKey);
         logger.info("Бронирование создано с ID: {}", createdBooking.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBooking);
     }
 
+    /**
+     * Создает пакет бронирований. Каждое бронирование проверяется на пересечение с существующими
+     * и с предыдущими бронированиями пакета; результат возвращается по каждой позиции отдельно.
+     *
+     * @param batchRequest Бронирования пакета (не более {@value BookingBatchRequest#MAX_SIZE}).
+     * @return Результаты в порядке запроса.
+     */
+    @Operation(summary = "Создает пакет бронирований")
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchResult>> createBookings(
+            @Parameter(in = ParameterIn.DEFAULT, description = "Данные для создания бронирований")
+            @Valid @RequestBody BookingBatchRequest batchRequest) {
+        logger.info("Пакетное создание {} бронирований", batchRequest.getBookings().size());
+        List<BookingBatchResult> results = bookingService.createBookings(batchRequest.getBookings());
+        logger.info("Пакет бронирований обработан");
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Получает бронирование по его идентификатору.
      *
@@ -100,11 +198,11 @@ public class BookingController {
      */
     @Operation(summary = "Получает бронирование по ID")
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Booking> getBookingById(
+    public ResponseEntity<BookingSummary> getBookingById(
             @Parameter(in = ParameterIn.PATH, name = "bookingId", description = "ID бронирования")
             @PathVariable Long bookingId) throws NotFoundException {
         logger.info("Запрос бронирования по ID: {}", bookingId);
-        Booking booking = bookingService.getBookingById(bookingId);
+        BookingSummary booking = bookingService.getBookingById(bookingId);
         if (booking == null) {
             logger.error("Бронирование с ID {} не найдено", bookingId);
             throw new NotFoundException("Booking not found");
@@ -123,13 +221,13 @@ public class BookingController {
      */
     @Operation(summary = "Обновляет бронирование по ID")
     @PutMapping("/{bookingId}")
-    public ResponseEntity<Booking> updateBooking(
+    public ResponseEntity<BookingSummary> updateBooking(
             @Parameter(in = ParameterIn.PATH, name = "bookingId", description = "ID бронирования")
             @PathVariable Long bookingId,
             @Parameter(in = ParameterIn.DEFAULT, description = "Данные для обновления бронирования")
-            @RequestBody BookingRequest bookingRequest) throws BookingConflictException, NotFoundException {
+            @Valid @RequestBody BookingRequest bookingRequest) throws BookingConflictException, NotFoundException {
         logger.info("Обновление бронирования по ID: {}", bookingId);
-        Booking updatedBooking = bookingService.updateBooking(bookingId, bookingRequest);
+        BookingSummary updatedBooking = bookingService.updateBooking(bookingId, bookingRequest);
         logger.info("Бронирование с ID {} обновлено", bookingId);
         return ResponseEntity.ok(updatedBooking);
     }
@@ -151,14 +249,46 @@ public class BookingController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Получает страницу бронирований в порядке возрастания ID.
+     *
+     * @param after ID последнего бронирования предыдущей страницы (nextCursor).
+     * @param limit Размер страницы.
+     * @return Страница бронирований и курсор следующей страницы.
+     */
+    @Operation(summary = "Получает страницу бронирований (keyset-пагинация по ID)")
+    @GetMapping("/page")
+    public CursorPage<BookingSummary> getBookingsPage(
+            @Parameter(in = ParameterIn.QUERY, name = "after", description = "ID последнего бронирования предыдущей страницы")
+            @RequestParam(required = false) Long after,
+            @Parameter(in = ParameterIn.QUERY, name = "limit", description = "Размер страницы")
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        logger.info("Запрос страницы бронирований после ID: {}", after);
+        return bookingService.getBookingsPage(after, limit);
+    }
+
+    /**
+     * Выгружает все бронирования потоком в формате NDJSON.
+     *
+     * @return Поток бронирований, по одному JSON-объекту на строку.
+     */
+    @Operation(summary = "Выгружает все бронирования в формате NDJSON")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBookings() {
+        logger.info("Выгрузка всех бронирований");
+        StreamingResponseBody body = bookingService::exportBookings;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Получает список всех бронирований.
+     * Для больших объемов используйте {@code /page} или {@code /export}.
      *
      * @return Список всех бронирований.
      */
-    @Operation(summary = "Получает список всех бронирований")
+    @Operation(summary = "Получает список всех бронирований", deprecated = true)
     @GetMapping("/all")
-    public List<Booking> getAllBookings() {
+    public List<BookingSummary> getAllBookings() {
         logger.info("Запрос списка всех бронирований");
         return bookingService.getAllBookings();
     }
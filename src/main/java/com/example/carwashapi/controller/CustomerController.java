@@ -1,8 +1,11 @@
 package com.example.carwashapi.controller;
 
+import com.example.carwashapi.dto.CursorPage;
 import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.CustomerSummary;
 import com.example.carwashapi.exception.CustomerNotFoundException;
 import com.example.carwashapi.exception.NotFoundException;
+import com.example.carwashapi.exception.PhoneNumberConflictException;
 import com.example.carwashapi.model.Customer;
 import com.example.carwashapi.service.CustomerService;
 import com.example.carwashapi.service.CustomerServiceImpl;
@@ -12,14 +15,15 @@ import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/customers")
@@ -47,16 +51,11 @@ public class CustomerController {
             @PathVariable String phoneNumber) throws CustomerNotFoundException {
         log.info("Запрос оставшегося времени до бронирования для клиента с номером: {}", phoneNumber);
 
-        Optional<Customer> optionalCustomer = Optional.ofNullable(customerService.getCustomerByPhoneNumber(phoneNumber));
+        long remainingMinutes = customerService.getRemainingTimeUntilNextBooking(phoneNumber);
 
-        if (optionalCustomer.isPresent()) {
-            Customer customer = optionalCustomer.get();
-            long remainingMinutes = customerService.getRemainingTimeUntilNextBooking(customer);
-
-            if (remainingMinutes != -1) {
-                log.info("Оставшееся время до бронирования для клиента с номером {} составляет {} минут", phoneNumber, remainingMinutes);
-                return ResponseEntity.ok(remainingMinutes);
-            }
+        if (remainingMinutes != -1) {
+            log.info("Оставшееся время до бронирования для клиента с номером {} составляет {} минут", phoneNumber, remainingMinutes);
+            return ResponseEntity.ok(remainingMinutes);
         }
 
         log.info("Оставшееся время до бронирования для клиента с номером {} не найдено", phoneNumber);
@@ -68,12 +67,13 @@ public class CustomerController {
      *
      * @param customerRequest Данные для создания клиента.
      * @return Созданный клиент.
+     * @throws PhoneNumberConflictException если номер телефона уже принадлежит другому клиенту.
      */
     @Operation(summary = "Создает нового Customer")
     @PostMapping("/create")
     public ResponseEntity<Customer> createCustomer(
             @Parameter(in = ParameterIn.DEFAULT, description = "Данные для создания Customer")
-            @Valid @RequestBody CustomerRequest customerRequest) {
+            @Valid @RequestBody CustomerRequest customerRequest) throws PhoneNumberConflictException {
         log.info("Создание нового клиента: {}", customerRequest.getName());
 
         Customer createdCustomer = customerService.createCustomer(customerRequest);
@@ -82,14 +82,44 @@ public class CustomerController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdCustomer);
     }
 
+    /**
+     * Получает страницу клиентов в порядке возрастания ID.
+     *
+     * @param after ID последнего клиента предыдущей страницы (nextCursor).
+     * @param limit Размер страницы.
+     * @return Страница клиентов и курсор следующей страницы.
+     */
+    @Operation(summary = "Получает страницу Customers (keyset-пагинация по ID)")
+    @GetMapping("/page")
+    public CursorPage<CustomerSummary> getCustomersPage(
+            @Parameter(in = ParameterIn.QUERY, name = "after", description = "ID последнего Customer предыдущей страницы")
+            @RequestParam(required = false) Long after,
+            @Parameter(in = ParameterIn.QUERY, name = "limit", description = "Размер страницы")
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        return customerService.getCustomersPage(after, limit);
+    }
+
+    /**
+     * Выгружает всех клиентов потоком в формате NDJSON.
+     *
+     * @return Поток клиентов, по одному JSON-объекту на строку.
+     */
+    @Operation(summary = "Выгружает всех Customers в формате NDJSON")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCustomers() {
+        StreamingResponseBody body = customerService::exportCustomers;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Получает список всех клиентов.
+     * Для больших объемов используйте {@code /page} или {@code /export}.
      *
      * @return Список всех клиентов.
      */
-    @Operation(summary = "Получает список всех Customers")
+    @Operation(summary = "Получает список всех Customers", deprecated = true)
     @GetMapping("/all")
-    public List<Customer> getAllCustomers() {
+    public List<CustomerSummary> getAllCustomers() {
         return customerService.getAllCustomers();
     }
 
@@ -102,11 +132,11 @@ public class CustomerController {
      */
     @Operation(summary = "Получает Customer по ID")
     @GetMapping("/{customerId}")
-    public ResponseEntity<Customer> getCustomerById(
+    public ResponseEntity<CustomerSummary> getCustomerById(
             @Parameter(in = ParameterIn.PATH, name = "customerId", description = "ID Customer")
             @Positive(message = "customerId должен быть положительным числом")
             @PathVariable Long customerId) throws NotFoundException {
-        Customer customer = customerService.getCustomerById(customerId);
+        CustomerSummary customer = customerService.getCustomerSummaryById(customerId);
         return ResponseEntity.ok(customer);
     }
 
@@ -117,6 +147,7 @@ public class CustomerController {
      * @param customerRequest Данные для обновления клиента.
      * @return Обновленный клиент.
      * @throws CustomerNotFoundException если клиент не найден.
+     * @throws PhoneNumberConflictException если номер телефона уже принадлежит другому клиенту.
      */
     @Operation(summary = "Обновляет Customer по ID")
     @PutMapping("/{customerId}")
@@ -125,7 +156,7 @@ public class CustomerController {
             @Positive(message = "customerId должен быть положительным числом")
             @PathVariable Long customerId,
             @Parameter(in = ParameterIn.DEFAULT, description = "Данные для обновления Customer")
-            @Valid @RequestBody CustomerRequest customerRequest) throws CustomerNotFoundException {
+            @Valid @RequestBody CustomerRequest customerRequest) throws CustomerNotFoundException, PhoneNumberConflictException {
         Customer customer = customerService.updateCustomer(customerId, customerRequest);
         return ResponseEntity.ok(customer);
     }
@@ -1,8 +1,13 @@
 package com.example.carwashapi.controller;
 
+import com.example.carwashapi.dto.CursorPage;
 import com.example.carwashapi.dto.TimeslotRequest;
+import com.example.carwashapi.dto.TimeslotScheduleRequest;
+import com.example.carwashapi.dto.TimeslotScheduleResult;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.exception.NotFoundException;
 import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.example.carwashapi.exception.TimeslotConflictException;
 import com.example.carwashapi.exception.TimeslotNotFoundException;
 import com.example.carwashapi.model.Timeslot;
 import com.example.carwashapi.service.TimeslotService;
@@ -12,9 +17,11 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
@@ -37,16 +44,33 @@ public class TimeslotAdminController {
      * @param timeslotRequest Данные для добавления Timeslot.
      * @return Созданный Timeslot.
      * @throws ServiceNotFoundException если связанная с Timeslot услуга не найдена.
+     * @throws TimeslotConflictException если у услуги уже есть Timeslot с тем же временем начала.
      */
     @Operation(summary = "Добавляет новый Timeslot")
     @PostMapping("/add")
     public ResponseEntity<Timeslot> addTimeslot(
             @Parameter(in = ParameterIn.DEFAULT, description = "Данные для добавления Timeslot")
-            @Valid @RequestBody TimeslotRequest timeslotRequest) throws ServiceNotFoundException {
+            @Valid @RequestBody TimeslotRequest timeslotRequest) throws ServiceNotFoundException, TimeslotConflictException {
         Timeslot createdTimeslot = timeslotService.addTimeslot(timeslotRequest);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdTimeslot);
     }
 
+    /**
+     * Создает Timeslot по шаблону расписания. Уже существующие слоты услуги с тем же временем начала пропускаются.
+     *
+     * @param scheduleRequest Шаблон расписания: услуга, интервал дат, дни недели, часы работы и длина слота.
+     * @return Количество созданных и пропущенных Timeslot.
+     * @throws ServiceNotFoundException если услуга не найдена.
+     */
+    @Operation(summary = "Создает Timeslot по шаблону расписания")
+    @PostMapping("/schedule")
+    public ResponseEntity<TimeslotScheduleResult> generateTimeslots(
+            @Parameter(in = ParameterIn.DEFAULT, description = "Шаблон расписания")
+            @Valid @RequestBody TimeslotScheduleRequest scheduleRequest) throws ServiceNotFoundException {
+        TimeslotScheduleResult result = timeslotService.generateTimeslots(scheduleRequest);
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
     /**
      * Удаляет Timeslot по его идентификатору.
      *
@@ -73,6 +97,7 @@ public class TimeslotAdminController {
      * @throws NotFoundException если Timeslot или связанная с ним услуга не найдены.
      * @throws TimeslotNotFoundException если Timeslot не найден.
      * @throws ServiceNotFoundException если связанная с Timeslot услуга не найдена.
+     * @throws TimeslotConflictException если у услуги уже есть другой Timeslot с тем же временем начала.
      */
     @Operation(summary = "Обновляет Timeslot по ID")
     @PutMapping("/update/{timeslotId}")
@@ -81,11 +106,40 @@ public class TimeslotAdminController {
             @Positive(message = "timeslotId должен быть положительным числом")
             @PathVariable Long timeslotId,
             @Parameter(in = ParameterIn.DEFAULT, description = "Данные для обновления Timeslot")
-            @Valid @RequestBody TimeslotRequest timeslotRequest) throws NotFoundException, TimeslotNotFoundException, ServiceNotFoundException {
+            @Valid @RequestBody TimeslotRequest timeslotRequest) throws NotFoundException, TimeslotNotFoundException, ServiceNotFoundException, TimeslotConflictException {
         Timeslot updatedTimeslot = timeslotService.updateTimeslot(timeslotId, timeslotRequest);
         return ResponseEntity.ok(updatedTimeslot);
     }
 
+    /**
+     * Получает страницу Timeslot в порядке возрастания ID.
+     *
+     * @param after ID последнего Timeslot предыдущей страницы (nextCursor).
+     * @param limit Размер страницы.
+     * @return Страница Timeslot и курсор следующей страницы.
+     */
+    @Operation(summary = "Получает страницу Timeslot (keyset-пагинация по ID)")
+    @GetMapping("/page")
+    public CursorPage<TimeslotSummary> getTimeslotsPage(
+            @Parameter(in = ParameterIn.QUERY, name = "after", description = "ID последнего Timeslot предыдущей страницы")
+            @RequestParam(required = false) Long after,
+            @Parameter(in = ParameterIn.QUERY, name = "limit", description = "Размер страницы")
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        return timeslotService.getTimeslotsPage(after, limit);
+    }
+
+    /**
+     * Выгружает все Timeslot потоком в формате NDJSON.
+     *
+     * @return Поток Timeslot, по одному JSON-объекту на строку.
+     */
+    @Operation(summary = "Выгружает все Timeslot в формате NDJSON")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTimeslots() {
+        StreamingResponseBody body = timeslotService::exportTimeslots;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Получает Timeslot по его идентификатору.
      *
@@ -95,11 +149,11 @@ public class TimeslotAdminController {
      */
     @Operation(summary = "Получает Timeslot по ID")
     @GetMapping("/{timeslotId}")
-    public ResponseEntity<Timeslot> getTimeslotById(
+    public ResponseEntity<TimeslotSummary> getTimeslotById(
             @Parameter(in = ParameterIn.PATH, name = "timeslotId", description = "ID Timeslot")
             @Positive(message = "timeslotId должен быть положительным числом")
             @PathVariable Long timeslotId) throws TimeslotNotFoundException {
-        Timeslot timeslot = timeslotService.getTimeslotById(timeslotId);
+        TimeslotSummary timeslot = timeslotService.getTimeslotById(timeslotId);
         return ResponseEntity.ok(timeslot);
     }
 }
@@ -0,0 +1,17 @@
+package com.example.carwashapi.dto;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Событие ленты свободного времени: актуальный список свободных слотов услуги на день.
+ * Заменяет ранее полученный список за этот день целиком.
+ */
+@Value
+public class AvailabilityUpdate {
+    Long serviceId;
+    LocalDate date;
+    List<TimeslotSummary> timeslots;
+}
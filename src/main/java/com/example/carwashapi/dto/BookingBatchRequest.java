@@ -0,0 +1,21 @@
+package com.example.carwashapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingBatchRequest {
+    public static final int MAX_SIZE = 500;
+
+    @NotEmpty(message = "bookings не может быть пустым")
+    @Size(max = MAX_SIZE, message = "bookings содержит не более " + MAX_SIZE + " бронирований")
+    private List<@Valid BookingRequest> bookings; // Бронирования пакета в порядке обработки
+}
@@ -0,0 +1,34 @@
+package com.example.carwashapi.dto;
+
+import com.example.carwashapi.model.Booking;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат обработки одного бронирования из пакета.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingBatchResult {
+    public enum Status {
+        CREATED,   // Бронирование создано
+        CONFLICT,  // Все боксы услуги заняты (в базе или предыдущими бронированиями пакета)
+        NOT_FOUND, // Клиент или услуга не найдены
+        INVALID    // Некорректный интервал времени
+    }
+
+    private int index;        // Позиция бронирования в запросе
+    private Status status;
+    private BookingSummary booking;  // Созданное бронирование, если status = CREATED
+    private String message;   // Причина отказа
+
+    public static BookingBatchResult created(int index, Booking booking) {
+        return new BookingBatchResult(index, Status.CREATED, BookingSummary.of(booking), null);
+    }
+
+    public static BookingBatchResult failed(int index, Status status, String message) {
+        return new BookingBatchResult(index, status, null, message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.carwashapi.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие жизненного цикла бронирования, опубликованное из таблицы booking_outbox.
+ * Идентификатор события растёт в порядке записи и позволяет получателю отбросить повтор.
+ */
+@Value
+public class BookingEvent {
+    public enum Type {
+        CREATED, UPDATED, CANCELLED
+    }
+
+    long id;
+    Type type;
+    BookingSummary booking;
+    LocalDateTime occurredAt;
+}
@@ -0,0 +1,31 @@
+package com.example.carwashapi.dto;
+
+import com.example.carwashapi.model.Booking;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Облегчённое представление бронирования: только идентификатор, услуга, бокс и интервал времени.
+ * Используется индексом конфликтов вместо полной JPA-сущности.
+ */
+@Value
+public class BookingInterval {
+    Long id;
+    Long serviceId;
+    int bay;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+
+    public static BookingInterval of(Booking booking) {
+        Long serviceId = booking.getService() != null ? booking.getService().getId() : null;
+        return new BookingInterval(booking.getId(), serviceId, booking.getBay(), booking.getStartTime(), booking.getEndTime());
+    }
+
+    /**
+     * Проверяет, пересекается ли интервал с полуоткрытым интервалом [startTime, endTime).
+     */
+    public boolean overlaps(LocalDateTime startTime, LocalDateTime endTime) {
+        return this.endTime.isAfter(startTime) && this.startTime.isBefore(endTime);
+    }
+}
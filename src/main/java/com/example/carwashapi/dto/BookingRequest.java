@@ -1,6 +1,8 @@
 package com.example.carwashapi.dto;
 
+import com.example.carwashapi.model.Booking;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
@@ -9,6 +11,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import java.time.LocalDateTime;
@@ -36,5 +39,17 @@ public class BookingRequest {
     @JsonSerialize(using = LocalDateTimeSerializer.class)
     @JsonDeserialize(using = LocalDateTimeDeserializer.class)
     private LocalDateTime endTime;
+
+    @JsonIgnore
+    @AssertTrue(message = "endTime должен быть позже startTime")
+    public boolean isEndAfterStart() {
+        return startTime == null || endTime == null || endTime.isAfter(startTime);
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "бронирование не может быть длиннее 24 часов")
+    public boolean isDurationAllowed() {
+        return startTime == null || endTime == null || !endTime.isAfter(startTime.plus(Booking.MAX_DURATION));
+    }
 }
 
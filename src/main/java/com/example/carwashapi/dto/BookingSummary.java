@@ -0,0 +1,27 @@
+package com.example.carwashapi.dto;
+
+import com.example.carwashapi.model.Booking;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемое представление бронирования для ответов API: вместо связанных услуги и клиента
+ * содержит только их идентификаторы. Загружается запросом с конструктором и не попадает в контекст персистентности.
+ */
+@Value
+public class BookingSummary {
+    Long id;
+    Long serviceId;
+    Long customerId;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+    int bay;
+
+    public static BookingSummary of(Booking booking) {
+        Long serviceId = booking.getService() != null ? booking.getService().getId() : null;
+        Long customerId = booking.getCustomer() != null ? booking.getCustomer().getId() : null;
+        return new BookingSummary(booking.getId(), serviceId, customerId,
+                booking.getStartTime(), booking.getEndTime(), booking.getBay());
+    }
+}
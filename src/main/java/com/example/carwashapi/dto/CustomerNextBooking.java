@@ -0,0 +1,17 @@
+package com.example.carwashapi.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Клиент и время начала его ближайшего будущего бронирования.
+ */
+@Value
+public class CustomerNextBooking {
+    Long customerId;
+    /**
+     * Время начала ближайшего бронирования или null, если будущих бронирований нет.
+     */
+    LocalDateTime nextStartTime;
+}
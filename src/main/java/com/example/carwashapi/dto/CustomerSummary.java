@@ -0,0 +1,18 @@
+package com.example.carwashapi.dto;
+
+import com.example.carwashapi.model.Customer;
+import lombok.Value;
+
+/**
+ * Неизменяемое представление клиента без бронирований.
+ */
+@Value
+public class CustomerSummary {
+    Long id;
+    String name;
+    String phoneNumber;
+
+    public static CustomerSummary of(Customer customer) {
+        return new CustomerSummary(customer.getId(), customer.getName(), customer.getPhoneNumber());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.carwashapi.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Свободный временной слот в результатах поиска по всем услугам: слот вместе с названием и ценой его услуги.
+ */
+@Value
+public class FreeWindow {
+    Long timeslotId;
+    Long serviceId;
+    String serviceName;
+    double price;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+}
@@ -17,4 +17,7 @@ public class ServiceRequest {
     @NotNull(message = "price не может быть null")
     @Positive(message = "price должен быть положительным числом")
     private Double price; // Цена услуги
+
+    @Positive(message = "bays должен быть положительным числом")
+    private Integer bays; // Количество боксов, по умолчанию 1
 }
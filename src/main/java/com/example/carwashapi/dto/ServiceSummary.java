@@ -0,0 +1,19 @@
+package com.example.carwashapi.dto;
+
+import com.example.carwashapi.model.Service;
+import lombok.Value;
+
+/**
+ * Неизменяемое представление услуги без временных слотов.
+ */
+@Value
+public class ServiceSummary {
+    Long id;
+    String name;
+    double price;
+    int bays;
+
+    public static ServiceSummary of(Service service) {
+        return new ServiceSummary(service.getId(), service.getName(), service.getPrice(), service.getBays());
+    }
+}
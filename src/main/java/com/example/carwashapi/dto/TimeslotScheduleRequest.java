@@ -0,0 +1,70 @@
+package com.example.carwashapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+
+/**
+ * Шаблон расписания: слоты длиной slotMinutes с openingTime до closingTime в выбранные дни недели
+ * каждого дня интервала [startDate, endDate].
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeslotScheduleRequest {
+    public static final int MAX_DAYS = 731;
+
+    @NotNull(message = "serviceId не может быть null")
+    @Positive(message = "serviceId должен быть положительным числом")
+    private Long serviceId;
+
+    @NotNull
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate startDate; // Первый день расписания (включительно)
+
+    @NotNull
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate endDate;   // Последний день расписания (включительно)
+
+    @NotNull
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime openingTime;
+
+    @NotNull
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime closingTime;
+
+    @NotNull
+    @Positive(message = "slotMinutes должен быть положительным числом")
+    private Integer slotMinutes;
+
+    @NotEmpty(message = "daysOfWeek не может быть пустым")
+    private Set<DayOfWeek> daysOfWeek;
+
+    @JsonIgnore
+    @AssertTrue(message = "endDate не может быть раньше startDate, интервал не длиннее " + MAX_DAYS + " дней")
+    public boolean isDateRangeValid() {
+        return startDate == null || endDate == null
+                || (!endDate.isBefore(startDate) && ChronoUnit.DAYS.between(startDate, endDate) < MAX_DAYS);
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Между openingTime и closingTime должен помещаться хотя бы один слот")
+    public boolean isOpeningHoursValid() {
+        return openingTime == null || closingTime == null || slotMinutes == null || slotMinutes <= 0
+                || Duration.between(openingTime, closingTime).toMinutes() >= slotMinutes;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.carwashapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeslotScheduleResult {
+    private int created; // Созданные слоты
+    private int skipped; // Слоты, которые уже существовали
+}
@@ -0,0 +1,25 @@
+package com.example.carwashapi.dto;
+
+import com.example.carwashapi.model.Timeslot;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемое представление временного слота для ответов API и календаря свободного времени.
+ * Загружается запросом с конструктором и не попадает в контекст персистентности.
+ */
+@Value
+public class TimeslotSummary {
+    Long id;
+    Long serviceId;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+    boolean available;
+
+    public static TimeslotSummary of(Timeslot timeslot) {
+        Long serviceId = timeslot.getService() != null ? timeslot.getService().getId() : null;
+        return new TimeslotSummary(timeslot.getId(), serviceId, timeslot.getStartTime(), timeslot.getEndTime(),
+                timeslot.isAvailable());
+    }
+}
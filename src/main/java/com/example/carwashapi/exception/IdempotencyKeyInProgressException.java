@@ -0,0 +1,7 @@
+package com.example.carwashapi.exception;
+
+public class IdempotencyKeyInProgressException extends Exception {
+    public IdempotencyKeyInProgressException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.carwashapi.exception;
+
+public class InvalidIdempotencyKeyException extends Exception {
+    public InvalidIdempotencyKeyException(String s) {
+        super(s);
+    }
+}
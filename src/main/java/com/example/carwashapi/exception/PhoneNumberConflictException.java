@@ -0,0 +1,7 @@
+package com.example.carwashapi.exception;
+
+public class PhoneNumberConflictException extends Exception {
+    public PhoneNumberConflictException(String s) {
+        super(s);
+    }
+}
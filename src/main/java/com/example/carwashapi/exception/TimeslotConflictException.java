@@ -0,0 +1,7 @@
+package com.example.carwashapi.exception;
+
+public class TimeslotConflictException extends Exception {
+    public TimeslotConflictException(String s) {
+        super(s);
+    }
+}
@@ -5,6 +5,7 @@ import lombok.*;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Data
@@ -12,8 +13,15 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Entity
 public class Booking {
+    /**
+     * Наибольшая длительность бронирования. На ней основан поиск пересечений: пересекающееся
+     * бронирование начинается не раньше, чем за MAX_DURATION до начала проверяемого интервала.
+     */
+    public static final Duration MAX_DURATION = Duration.ofDays(1);
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+    @SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -34,5 +42,8 @@ public class Booking {
     @NotNull(message = "End time cannot be null")
     private LocalDateTime endTime;
 
+    @Column(nullable = false)
+    private int bay;
+
 
 }
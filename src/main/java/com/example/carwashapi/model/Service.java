@@ -1,7 +1,10 @@
 package com.example.carwashapi.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.example.carwashapi.config.SecondLevelCacheConfig;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -12,9 +15,12 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.SERVICE_REGION)
 public class Service {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "service_seq")
+    @SequenceGenerator(name = "service_seq", sequenceName = "service_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -25,7 +31,12 @@ public class Service {
     @Positive(message = "Price must be a positive value")
     private double price;
 
+    @Column(nullable = false)
+    @Positive(message = "Bays must be a positive value")
+    private int bays = 1;
+
     @OneToMany(mappedBy = "service", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.SERVICE_TIMESLOTS_REGION)
     @JsonIgnore
     private List<Timeslot> timeslots;
 }
@@ -1,7 +1,10 @@
 package com.example.carwashapi.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.example.carwashapi.config.SecondLevelCacheConfig;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
@@ -11,9 +14,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.TIMESLOT_REGION)
 public class Timeslot {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "timeslot_seq")
+    @SequenceGenerator(name = "timeslot_seq", sequenceName = "timeslot_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -1,25 +1,99 @@
 package com.example.carwashapi.repository;
 
+import com.example.carwashapi.dto.BookingInterval;
+import com.example.carwashapi.dto.BookingSummary;
 import com.example.carwashapi.model.Booking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    @Query("SELECT COUNT(b) FROM Booking b WHERE b.endTime > :startTime AND b.startTime < :endTime")
-    long countOverlappingBookings(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
-
-    @Query("SELECT COUNT(b) FROM Booking b " +
-            "WHERE b.id <> :bookingId " +
-            "AND ((:startTime BETWEEN b.startTime AND b.endTime) OR " +
-            "(:endTime BETWEEN b.startTime AND b.endTime) OR " +
-            "(b.startTime BETWEEN :startTime AND :endTime))")
-    long countOverlappingBookingsWithId(@Param("startTime") LocalDateTime startTime,
-                                        @Param("endTime") LocalDateTime endTime,
-                                        @Param("bookingId") Long bookingId);
+    /**
+     * Боксы услуги, занятые бронированиями, пересекающимися с интервалом.
+     * Бронирование длится не дольше {@link Booking#MAX_DURATION}, поэтому пересекающиеся бронирования
+     * начинаются не раньше {@code startTime - MAX_DURATION}: эта граница ограничивает запрос одной-двумя
+     * месячными секциями booking.
+     */
+    default List<Integer> findOccupiedBays(Long serviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        return findOccupiedBays(serviceId, startTime.minus(Booking.MAX_DURATION), startTime, endTime);
+    }
+
+    @Query("SELECT DISTINCT b.bay FROM Booking b " +
+            "WHERE b.service.id = :serviceId " +
+            "AND b.endTime > :startTime AND b.startTime > :earliestStart AND b.startTime < :endTime")
+    List<Integer> findOccupiedBays(@Param("serviceId") Long serviceId,
+                                   @Param("earliestStart") LocalDateTime earliestStart,
+                                   @Param("startTime") LocalDateTime startTime,
+                                   @Param("endTime") LocalDateTime endTime);
+
+    default List<Integer> findOccupiedBaysWithId(Long serviceId, LocalDateTime startTime, LocalDateTime endTime, Long bookingId) {
+        return findOccupiedBaysWithId(serviceId, startTime.minus(Booking.MAX_DURATION), startTime, endTime, bookingId);
+    }
+
+    @Query("SELECT DISTINCT b.bay FROM Booking b " +
+            "WHERE b.service.id = :serviceId " +
+            "AND b.id <> :bookingId " +
+            "AND b.endTime > :startTime AND b.startTime > :earliestStart AND b.startTime < :endTime")
+    List<Integer> findOccupiedBaysWithId(@Param("serviceId") Long serviceId,
+                                         @Param("earliestStart") LocalDateTime earliestStart,
+                                         @Param("startTime") LocalDateTime startTime,
+                                         @Param("endTime") LocalDateTime endTime,
+                                         @Param("bookingId") Long bookingId);
+
+    /**
+     * Бронирования клиента вместе с услугой и клиентом (для событий об отмене при удалении клиента).
+     */
+    @Query("SELECT b FROM Booking b JOIN FETCH b.service JOIN FETCH b.customer WHERE b.customer.id = :customerId")
+    List<Booking> findByCustomerId(@Param("customerId") Long customerId);
+
+    @Query("SELECT new com.example.carwashapi.dto.BookingSummary(b.id, b.service.id, b.customer.id, b.startTime, b.endTime, b.bay) " +
+            "FROM Booking b")
+    List<BookingSummary> findAllSummaries();
+
+    @Query("SELECT new com.example.carwashapi.dto.BookingSummary(b.id, b.service.id, b.customer.id, b.startTime, b.endTime, b.bay) " +
+            "FROM Booking b WHERE b.id = :id")
+    Optional<BookingSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("SELECT new com.example.carwashapi.dto.BookingSummary(b.id, b.service.id, b.customer.id, b.startTime, b.endTime, b.bay) " +
+            "FROM Booking b WHERE b.id > :afterId ORDER BY b.id")
+    List<BookingSummary> findSummaryPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.carwashapi.dto.BookingInterval(b.id, s.id, b.bay, b.startTime, b.endTime) " +
+            "FROM Booking b LEFT JOIN b.service s")
+    List<BookingInterval> findAllIntervals();
+
+    default List<BookingInterval> findIntervals(Long serviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        return findIntervals(serviceId, startTime.minus(Booking.MAX_DURATION), startTime, endTime);
+    }
+
+    @Query("SELECT new com.example.carwashapi.dto.BookingInterval(b.id, b.service.id, b.bay, b.startTime, b.endTime) " +
+            "FROM Booking b " +
+            "WHERE b.service.id = :serviceId " +
+            "AND b.endTime > :startTime AND b.startTime > :earliestStart AND b.startTime < :endTime")
+    List<BookingInterval> findIntervals(@Param("serviceId") Long serviceId,
+                                        @Param("earliestStart") LocalDateTime earliestStart,
+                                        @Param("startTime") LocalDateTime startTime,
+                                        @Param("endTime") LocalDateTime endTime);
+
+    default List<BookingInterval> findIntervalsForServices(Collection<Long> serviceIds, LocalDateTime startTime, LocalDateTime endTime) {
+        return findIntervalsForServices(serviceIds, startTime.minus(Booking.MAX_DURATION), startTime, endTime);
+    }
+
+    @Query("SELECT new com.example.carwashapi.dto.BookingInterval(b.id, b.service.id, b.bay, b.startTime, b.endTime) " +
+            "FROM Booking b " +
+            "WHERE b.service.id IN :serviceIds " +
+            "AND b.endTime > :startTime AND b.startTime > :earliestStart AND b.startTime < :endTime")
+    List<BookingInterval> findIntervalsForServices(@Param("serviceIds") Collection<Long> serviceIds,
+                                                   @Param("earliestStart") LocalDateTime earliestStart,
+                                                   @Param("startTime") LocalDateTime startTime,
+                                                   @Param("endTime") LocalDateTime endTime);
 }
@@ -1,12 +1,42 @@
 package com.example.carwashapi.repository;
 
+import com.example.carwashapi.dto.CustomerNextBooking;
+import com.example.carwashapi.dto.CustomerSummary;
 import com.example.carwashapi.model.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
-    Optional<Customer> findByPhoneNumber(String phoneNumber);
+    @Query("SELECT new com.example.carwashapi.dto.CustomerSummary(c.id, c.name, c.phoneNumber) FROM Customer c")
+    List<CustomerSummary> findAllSummaries();
+
+    @Query("SELECT new com.example.carwashapi.dto.CustomerSummary(c.id, c.name, c.phoneNumber) " +
+            "FROM Customer c WHERE c.id = :id")
+    Optional<CustomerSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("SELECT new com.example.carwashapi.dto.CustomerSummary(c.id, c.name, c.phoneNumber) " +
+            "FROM Customer c WHERE c.phoneNumber = :phoneNumber")
+    Optional<CustomerSummary> findSummaryByPhoneNumber(@Param("phoneNumber") String phoneNumber);
+
+    @Query("SELECT new com.example.carwashapi.dto.CustomerSummary(c.id, c.name, c.phoneNumber) " +
+            "FROM Customer c WHERE c.id > :afterId ORDER BY c.id")
+    List<CustomerSummary> findSummaryPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Находит клиента по номеру телефона и время начала его ближайшего бронирования после now одним запросом:
+     * клиент ищется по индексу номера телефона, MIN(start_time) — по индексу (customer_id, start_time).
+     */
+    @Query("SELECT new com.example.carwashapi.dto.CustomerNextBooking(c.id, " +
+            "(SELECT MIN(b.startTime) FROM Booking b WHERE b.customer = c AND b.startTime > :now)) " +
+            "FROM Customer c WHERE c.phoneNumber = :phoneNumber")
+    Optional<CustomerNextBooking> findNextBookingByPhoneNumber(@Param("phoneNumber") String phoneNumber,
+                                                               @Param("now") LocalDateTime now);
 }
@@ -1,7 +1,53 @@
 package com.example.carwashapi.repository;
 
+import com.example.carwashapi.config.SecondLevelCacheConfig;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.model.Timeslot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 public interface TimeslotRepository extends JpaRepository<Timeslot, Long> {
+
+    /**
+     * Результат кэшируется в кэше запросов и сбрасывается при любом изменении таблицы timeslot через Hibernate.
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION,
+                    value = SecondLevelCacheConfig.AVAILABLE_TIMESLOTS_QUERY_REGION)
+    })
+    @Query("SELECT new com.example.carwashapi.dto.TimeslotSummary(t.id, t.service.id, t.startTime, t.endTime, t.available) " +
+            "FROM Timeslot t " +
+            "WHERE t.service.id = :serviceId AND t.available = true " +
+            "AND t.startTime >= :from AND t.startTime < :to " +
+            "ORDER BY t.startTime")
+    List<TimeslotSummary> findAvailableByServiceId(@Param("serviceId") Long serviceId,
+                                                   @Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to);
+
+    @Query("SELECT new com.example.carwashapi.dto.TimeslotSummary(t.id, t.service.id, t.startTime, t.endTime, t.available) " +
+            "FROM Timeslot t")
+    List<TimeslotSummary> findAllSummaries();
+
+    @Query("SELECT new com.example.carwashapi.dto.TimeslotSummary(t.id, t.service.id, t.startTime, t.endTime, t.available) " +
+            "FROM Timeslot t WHERE t.id = :id")
+    Optional<TimeslotSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("SELECT new com.example.carwashapi.dto.TimeslotSummary(t.id, t.service.id, t.startTime, t.endTime, t.available) " +
+            "FROM Timeslot t WHERE t.id > :afterId ORDER BY t.id")
+    List<TimeslotSummary> findSummaryPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT t.startTime FROM Timeslot t " +
+            "WHERE t.service.id = :serviceId AND t.startTime >= :from AND t.startTime < :to")
+    List<LocalDateTime> findStartTimes(@Param("serviceId") Long serviceId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
 }
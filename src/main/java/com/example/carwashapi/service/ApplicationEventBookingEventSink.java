@@ -0,0 +1,27 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Публикует события бронирований внутри приложения: подписчики объявляют
+ * {@code @EventListener} с параметром {@link BookingEvent}.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.events.sink", havingValue = "listener", matchIfMissing = true)
+public class ApplicationEventBookingEventSink implements BookingEventSink {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ApplicationEventBookingEventSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void publish(List<BookingEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
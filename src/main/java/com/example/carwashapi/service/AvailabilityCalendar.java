@@ -0,0 +1,297 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingInterval;
+import com.example.carwashapi.dto.TimeslotSummary;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.model.Timeslot;
+import com.example.carwashapi.repository.BookingRepository;
+import com.example.carwashapi.repository.TimeslotRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.UnaryOperator;
+
+/**
+ * Календарь свободного времени услуг в памяти.
+ * <p>
+ * Для каждой пары (услуга, день) хранятся свободные слоты дня и битовые карты занятости боксов
+ * с шагом {@value #BUCKET_MINUTES} минут. День строится из базы данных при первом обращении,
+ * а затем обновляется при каждой записи бронирования или слота через этот сервис.
+ * Слоты хранятся как неизменяемые {@link TimeslotSummary}, загруженные запросом с конструктором.
+ * Бронирования, не выровненные по {@value #BUCKET_MINUTES} минутам, занимают интервал целиком
+ * с округлением наружу.
+ * <p>
+ * Загрузка дня и его обновление выполняются атомарно для ключа кэша, поэтому запись, совпавшая
+ * по времени с загрузкой, не теряется.
+ * <p>
+ * После каждого изменения календарь уведомляет подписчиков {@link ChangeListener} о затронутых днях,
+ * в том числе о днях, которые ещё не загружены.
+ */
+@Slf4j
+@Component
+public class AvailabilityCalendar {
+    static final int BUCKET_MINUTES = 5;
+    private static final int BUCKET_SECONDS = BUCKET_MINUTES * 60;
+    private static final int BUCKETS_PER_DAY = 24 * 60 / BUCKET_MINUTES;
+
+    private final BookingRepository bookingRepository;
+    private final TimeslotRepository timeslotRepository;
+    private final Cache<DayKey, Day> days;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Получатель уведомлений об изменении свободного времени дня услуги. Вызывается в потоке записи,
+     * поэтому должен только запоминать изменение.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        void availabilityChanged(Long serviceId, LocalDate date);
+    }
+
+    public AvailabilityCalendar(BookingRepository bookingRepository, TimeslotRepository timeslotRepository,
+                                @Value("${booking.availability.max-days:10000}") long maxDays,
+                                @Value("${booking.availability.ttl:1h}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.timeslotRepository = timeslotRepository;
+        this.days = Caffeine.newBuilder()
+                .maximumSize(maxDays)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, days, "availabilityCalendar");
+    }
+
+    /**
+     * Подписывает получателя на уведомления об изменениях календаря.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Получает свободные слоты услуги, начинающиеся в интервале [from, to). Слот считается свободным,
+     * если он отмечен как доступный и хотя бы один бокс услуги не занят бронированиями на всё время слота.
+     *
+     * @param service Услуга.
+     * @param from    Начало интервала (включительно).
+     * @param to      Конец интервала (не включительно).
+     * @return Список свободных слотов в порядке времени начала.
+     */
+    public List<TimeslotSummary> getAvailableTimeslots(Service service, LocalDateTime from, LocalDateTime to) {
+        List<TimeslotSummary> result = new ArrayList<>();
+        for (LocalDate date = from.toLocalDate(); date.atStartOfDay().isBefore(to); date = date.plusDays(1)) {
+            for (TimeslotSummary timeslot : day(service.getId(), date).timeslots) {
+                if (!timeslot.getStartTime().isBefore(from) && timeslot.getStartTime().isBefore(to)
+                        && hasFreeBay(service, timeslot.getStartTime(), timeslot.getEndTime())) {
+                    result.add(timeslot);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Учитывает изменение бронирования.
+     *
+     * @param before Бронирование до изменения или null, если оно создано.
+     * @param after  Бронирование после изменения или null, если оно удалено.
+     */
+    public void bookingChanged(BookingInterval before, BookingInterval after) {
+        if (before != null) {
+            for (LocalDate date : datesOf(before.getStartTime(), before.getEndTime())) {
+                update(before.getServiceId(), date, day -> day.withoutBooking(before.getId()));
+                notifyChanged(before.getServiceId(), date);
+            }
+        }
+        if (after != null) {
+            for (LocalDate date : datesOf(after.getStartTime(), after.getEndTime())) {
+                update(after.getServiceId(), date, day -> day.withBooking(after));
+                notifyChanged(after.getServiceId(), date);
+            }
+        }
+    }
+
+    /**
+     * Учитывает изменение временного слота.
+     *
+     * @param before Слот до изменения или null, если он создан.
+     * @param after  Слот после изменения или null, если он удалён.
+     */
+    public void timeslotChanged(Timeslot before, Timeslot after) {
+        if (before != null) {
+            update(before.getService().getId(), before.getStartTime().toLocalDate(), day -> day.withoutTimeslot(before.getId()));
+            notifyChanged(before.getService().getId(), before.getStartTime().toLocalDate());
+        }
+        if (after != null && after.isAvailable()) {
+            TimeslotSummary summary = TimeslotSummary.of(after);
+            update(summary.getServiceId(), summary.getStartTime().toLocalDate(), day -> day.withTimeslot(summary));
+            notifyChanged(summary.getServiceId(), summary.getStartTime().toLocalDate());
+        }
+    }
+
+    private void notifyChanged(Long serviceId, LocalDate date) {
+        for (ChangeListener listener : listeners) {
+            listener.availabilityChanged(serviceId, date);
+        }
+    }
+
+    private boolean hasFreeBay(Service service, LocalDateTime startTime, LocalDateTime endTime) {
+        List<LocalDate> dates = datesOf(startTime, endTime);
+        for (int bay = 1; bay <= service.getBays(); bay++) {
+            boolean free = true;
+            for (int i = 0; i < dates.size() && free; i++) {
+                LocalDate date = dates.get(i);
+                BitSet occupied = day(service.getId(), date).occupiedByBay.get(bay);
+                if (occupied != null) {
+                    int from = firstBucket(date, startTime);
+                    int next = occupied.nextSetBit(from);
+                    free = next < 0 || next >= endBucket(date, endTime);
+                }
+            }
+            if (free) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Day day(Long serviceId, LocalDate date) {
+        return days.get(new DayKey(serviceId, date), this::load);
+    }
+
+    private Day load(DayKey key) {
+        LocalDateTime start = key.date.atStartOfDay();
+        LocalDateTime end = start.plusDays(1);
+        List<TimeslotSummary> timeslots = timeslotRepository.findAvailableByServiceId(key.serviceId, start, end);
+        List<BookingInterval> bookings = bookingRepository.findIntervals(key.serviceId, start, end);
+        log.debug("Загрузка календаря услуги {} на {}: {} слотов, {} бронирований",
+                key.serviceId, key.date, timeslots.size(), bookings.size());
+        Map<Long, BookingInterval> bookingsById = new HashMap<>();
+        bookings.forEach(booking -> bookingsById.put(booking.getId(), booking));
+        return new Day(key.date, timeslots, bookingsById);
+    }
+
+    /**
+     * Применяет изменение к дню, если он загружен. Если день в этот момент загружается,
+     * изменение применяется после окончания загрузки.
+     */
+    private void update(Long serviceId, LocalDate date, UnaryOperator<Day> change) {
+        days.asMap().computeIfPresent(new DayKey(serviceId, date), (key, day) -> change.apply(day));
+    }
+
+    /**
+     * Дни, которые затрагивает полуоткрытый интервал [startTime, endTime).
+     */
+    private static List<LocalDate> datesOf(LocalDateTime startTime, LocalDateTime endTime) {
+        List<LocalDate> dates = new ArrayList<>(1);
+        LocalDate date = startTime.toLocalDate();
+        do {
+            dates.add(date);
+            date = date.plusDays(1);
+        } while (date.atStartOfDay().isBefore(endTime));
+        return dates;
+    }
+
+    private static int firstBucket(LocalDate date, LocalDateTime startTime) {
+        if (startTime.toLocalDate().isBefore(date)) {
+            return 0;
+        }
+        return startTime.toLocalTime().toSecondOfDay() / BUCKET_SECONDS;
+    }
+
+    private static int endBucket(LocalDate date, LocalDateTime endTime) {
+        if (endTime.toLocalDate().isAfter(date)) {
+            return BUCKETS_PER_DAY;
+        }
+        return (endTime.toLocalTime().toSecondOfDay() + BUCKET_SECONDS - 1) / BUCKET_SECONDS;
+    }
+
+    private static final class DayKey {
+        final Long serviceId;
+        final LocalDate date;
+
+        DayKey(Long serviceId, LocalDate date) {
+            this.serviceId = serviceId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DayKey)) {
+                return false;
+            }
+            DayKey other = (DayKey) o;
+            return serviceId.equals(other.serviceId) && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serviceId, date);
+        }
+    }
+
+    /**
+     * Неизменяемый снимок дня: каждое изменение создаёт новый снимок, поэтому чтение не требует блокировок.
+     */
+    private static final class Day {
+        final LocalDate date;
+        final List<TimeslotSummary> timeslots;
+        final Map<Long, BookingInterval> bookings;
+        final Map<Integer, BitSet> occupiedByBay;
+
+        Day(LocalDate date, Collection<TimeslotSummary> timeslots, Map<Long, BookingInterval> bookings) {
+            this.date = date;
+            List<TimeslotSummary> sorted = new ArrayList<>(timeslots);
+            sorted.sort(Comparator.comparing(TimeslotSummary::getStartTime).thenComparing(TimeslotSummary::getId));
+            this.timeslots = Collections.unmodifiableList(sorted);
+            this.bookings = bookings;
+            this.occupiedByBay = new HashMap<>();
+            for (BookingInterval booking : bookings.values()) {
+                occupiedByBay.computeIfAbsent(booking.getBay(), bay -> new BitSet(BUCKETS_PER_DAY))
+                        .set(firstBucket(date, booking.getStartTime()), endBucket(date, booking.getEndTime()));
+            }
+        }
+
+        Day withBooking(BookingInterval booking) {
+            Map<Long, BookingInterval> updated = new HashMap<>(bookings);
+            updated.put(booking.getId(), booking);
+            return new Day(date, timeslots, updated);
+        }
+
+        Day withoutBooking(Long bookingId) {
+            if (!bookings.containsKey(bookingId)) {
+                return this;
+            }
+            Map<Long, BookingInterval> updated = new HashMap<>(bookings);
+            updated.remove(bookingId);
+            return new Day(date, timeslots, updated);
+        }
+
+        Day withTimeslot(TimeslotSummary timeslot) {
+            List<TimeslotSummary> updated = new ArrayList<>(timeslots);
+            updated.removeIf(existing -> existing.getId().equals(timeslot.getId()));
+            updated.add(timeslot);
+            return new Day(date, updated, bookings);
+        }
+
+        Day withoutTimeslot(Long timeslotId) {
+            if (timeslots.stream().noneMatch(timeslot -> timeslot.getId().equals(timeslotId))) {
+                return this;
+            }
+            List<TimeslotSummary> updated = new ArrayList<>(timeslots);
+            updated.removeIf(timeslot -> timeslot.getId().equals(timeslotId));
+            return new Day(date, updated, bookings);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.AvailabilityUpdate;
+import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.example.carwashapi.model.Service;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Лента изменений свободного времени услуг (Server-Sent Events).
+ * <p>
+ * Источник изменений один — {@link AvailabilityCalendar}, через который проходят все записи бронирований
+ * и слотов. Календарь лишь отмечает изменённый день; раз в {@code booking.availability.feed.coalesce-interval}
+ * для каждого отмеченного дня один раз строится {@link AvailabilityUpdate}, который раздаётся всем
+ * подписчикам услуги. Несколько изменений одного дня за интервал дают одно событие.
+ * <p>
+ * У каждого подписчика свой буфер не более чем на {@code booking.availability.feed.buffer-size} дней;
+ * новое обновление дня заменяет неотправленное. Если буфер переполнен (клиент не успевает читать),
+ * его содержимое отбрасывается и клиенту отправляется одно событие {@code reset}: клиент заново
+ * запрашивает {@code /api/bookings/availability/{serviceId}}. Отправка выполняется небольшим пулом потоков
+ * только для подписчиков с непустым буфером, поэтому простаивающий подписчик не занимает потоков.
+ * <p>
+ * Запись в соединение блокирующая: клиент, который перестал читать при заполненном TCP-буфере, занимает
+ * поток пула до тайм-аута записи сервлет-контейнера или до {@code booking.availability.feed.timeout}.
+ * Пока таких клиентов не меньше {@code booking.availability.feed.sender-threads}, остальные подписчики
+ * не получают событий (их буферы переполняются и после освобождения потока получают {@code reset}),
+ * поэтому размер пула выбирается с запасом на число одновременно зависших клиентов.
+ */
+@Slf4j
+@Component
+public class AvailabilityFeed implements AvailabilityCalendar.ChangeListener {
+    static final String UPDATE_EVENT = "availability";
+    static final String RESET_EVENT = "reset";
+
+    private final AvailabilityCalendar calendar;
+    private final ServiceServiceImpl serviceService;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService sender;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<LocalDate>> changedDays = new ConcurrentHashMap<>();
+    private final Counter overflowCounter;
+
+    public AvailabilityFeed(AvailabilityCalendar calendar, ServiceServiceImpl serviceService,
+                            @Value("${booking.availability.feed.buffer-size:32}") int bufferSize,
+                            @Value("${booking.availability.feed.timeout:30m}") Duration timeout,
+                            @Value("${booking.availability.feed.sender-threads:4}") int senderThreads,
+                            MeterRegistry meterRegistry) {
+        this.calendar = calendar;
+        this.serviceService = serviceService;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("availability-feed-");
+        threadFactory.setDaemon(true);
+        this.sender = Executors.newFixedThreadPool(senderThreads, threadFactory);
+        Gauge.builder("booking.availability.feed.subscribers", subscribers,
+                        s -> s.values().stream().mapToInt(Set::size).sum())
+                .description("Подписчики ленты свободного времени")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("booking.availability.feed.overflows")
+                .description("Переполнения буфера подписчика ленты свободного времени")
+                .register(meterRegistry);
+        calendar.addChangeListener(this);
+    }
+
+    /**
+     * Подписывает клиента на изменения свободного времени услуги.
+     *
+     * @param serviceId Идентификатор услуги.
+     * @return Поток событий {@value #UPDATE_EVENT} и {@value #RESET_EVENT}.
+     * @throws ServiceNotFoundException если услуга не найдена.
+     */
+    public SseEmitter subscribe(Long serviceId) throws ServiceNotFoundException {
+        serviceService.getServiceById(serviceId);
+        Subscriber subscriber = new Subscriber(serviceId, new SseEmitter(timeoutMillis));
+        subscribers.computeIfAbsent(serviceId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+        // Заголовки ответа уходят клиенту с первой записью: сразу отправляем комментарий,
+        // чтобы клиент знал, что подписка действует, и мог запросить текущее доступное время.
+        subscriber.heartbeatDue = true;
+        scheduleFlush(subscriber);
+        log.debug("Новый подписчик ленты свободного времени услуги {}", serviceId);
+        return subscriber.emitter;
+    }
+
+    @Override
+    public void availabilityChanged(Long serviceId, LocalDate date) {
+        if (subscribers.containsKey(serviceId)) {
+            // День добавляется внутри compute, а dispatch забирает набор внутри computeIfPresent:
+            // набор не может быть забран между его получением и добавлением дня.
+            changedDays.compute(serviceId, (id, dates) -> {
+                Set<LocalDate> changed = dates != null ? dates : new HashSet<>();
+                changed.add(date);
+                return changed;
+            });
+        }
+    }
+
+    /**
+     * Раздаёт подписчикам обновления дней, изменившихся с прошлого вызова.
+     */
+    @Scheduled(fixedDelayString = "${booking.availability.feed.coalesce-interval:PT0.2S}")
+    public void dispatch() {
+        for (Long serviceId : new ArrayList<>(changedDays.keySet())) {
+            Set<LocalDate> dates = new TreeSet<>();
+            changedDays.computeIfPresent(serviceId, (id, changed) -> {
+                dates.addAll(changed);
+                return null;
+            });
+            Set<Subscriber> serviceSubscribers = subscribers.get(serviceId);
+            if (dates.isEmpty() || serviceSubscribers == null || serviceSubscribers.isEmpty()) {
+                continue;
+            }
+            Service service;
+            try {
+                service = serviceService.getServiceById(serviceId);
+            } catch (ServiceNotFoundException e) {
+                log.debug("Услуга {} удалена, обновления ленты не отправляются", serviceId);
+                continue;
+            }
+            for (LocalDate date : dates) {
+                AvailabilityUpdate update = new AvailabilityUpdate(serviceId, date,
+                        calendar.getAvailableTimeslots(service, date.atStartOfDay(), date.plusDays(1).atStartOfDay()));
+                serviceSubscribers.forEach(subscriber -> subscriber.offer(update));
+            }
+            serviceSubscribers.forEach(this::scheduleFlush);
+        }
+    }
+
+    /**
+     * Отправляет комментарий всем подписчикам, чтобы прокси не закрывали простаивающие соединения,
+     * а отключившиеся клиенты обнаруживались и удалялись.
+     */
+    @Scheduled(fixedDelayString = "${booking.availability.feed.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        subscribers.values().forEach(serviceSubscribers -> serviceSubscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            scheduleFlush(subscriber);
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private void scheduleFlush(Subscriber subscriber) {
+        if (subscriber.flushScheduled.compareAndSet(false, true)) {
+            sender.execute(() -> flush(subscriber));
+        }
+    }
+
+    private void flush(Subscriber subscriber) {
+        try {
+            subscriber.send();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Подписчик ленты свободного времени услуги {} отключился: {}", subscriber.serviceId, e.getMessage());
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.flushScheduled.set(false);
+        }
+        if (subscriber.hasPending()) {
+            scheduleFlush(subscriber);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.serviceId, (id, serviceSubscribers) -> {
+            serviceSubscribers.remove(subscriber);
+            return serviceSubscribers.isEmpty() ? null : serviceSubscribers;
+        });
+    }
+
+    /**
+     * Подписчик ленты: соединение и буфер неотправленных обновлений по дням.
+     */
+    private final class Subscriber {
+        final Long serviceId;
+        final SseEmitter emitter;
+        final AtomicBoolean flushScheduled = new AtomicBoolean();
+        final Map<LocalDate, AvailabilityUpdate> pending = new LinkedHashMap<>();
+        boolean overflowed;
+        volatile boolean heartbeatDue;
+
+        Subscriber(Long serviceId, SseEmitter emitter) {
+            this.serviceId = serviceId;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(AvailabilityUpdate update) {
+            if (overflowed) {
+                return;
+            }
+            if (pending.size() >= bufferSize && !pending.containsKey(update.getDate())) {
+                pending.clear();
+                overflowed = true;
+                overflowCounter.increment();
+                return;
+            }
+            pending.put(update.getDate(), update);
+        }
+
+        synchronized boolean hasPending() {
+            return overflowed || !pending.isEmpty();
+        }
+
+        void send() throws IOException {
+            List<AvailabilityUpdate> updates;
+            boolean reset;
+            synchronized (this) {
+                updates = new ArrayList<>(pending.values());
+                reset = overflowed;
+                pending.clear();
+                overflowed = false;
+            }
+            boolean heartbeat = heartbeatDue;
+            heartbeatDue = false;
+            if (reset) {
+                emitter.send(SseEmitter.event().name(RESET_EVENT).data(serviceId));
+            } else {
+                for (AvailabilityUpdate update : updates) {
+                    emitter.send(SseEmitter.event().name(UPDATE_EVENT).data(update, MediaType.APPLICATION_JSON));
+                }
+            }
+            if (heartbeat && !reset && updates.isEmpty()) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingEvent;
+import com.example.carwashapi.model.Booking;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Запись пакета бронирований одним JDBC-батчем в одной транзакции.
+ * <p>
+ * Все строки отправляются в базу за один вызов {@link PreparedStatement#executeBatch()}.
+ * Идентификаторы выделяются заранее блоками booking_seq ({@link PooledIdAllocator}) и после вставки
+ * проставляются в переданные бронирования. События создания записываются в booking_outbox в той же транзакции.
+ */
+@Component
+public class BookingBatchWriter {
+    private static final String INSERT_SQL =
+            "INSERT INTO booking (id, customer_id, service_id, start_time, end_time, bay) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingEventOutbox eventOutbox;
+    private final PooledIdAllocator idAllocator;
+
+    public BookingBatchWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, BookingEventOutbox eventOutbox,
+                              PooledIdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventOutbox = eventOutbox;
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Вставляет бронирования и проставляет им идентификаторы. Если хотя бы одна строка нарушает
+     * ограничения базы данных, не сохраняется ни одна.
+     *
+     * @param bookings Бронирования с заполненными клиентом, услугой, временем и боксом.
+     */
+    public void insert(List<Booking> bookings) {
+        transactionTemplate.executeWithoutResult(status -> {
+            long[] ids = idAllocator.allocate("booking_seq", bookings.size());
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                    for (int i = 0; i < bookings.size(); i++) {
+                        Booking booking = bookings.get(i);
+                        statement.setLong(1, ids[i]);
+                        statement.setLong(2, booking.getCustomer().getId());
+                        statement.setLong(3, booking.getService().getId());
+                        statement.setObject(4, booking.getStartTime());
+                        statement.setObject(5, booking.getEndTime());
+                        statement.setInt(6, booking.getBay());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                return null;
+            });
+            for (int i = 0; i < bookings.size(); i++) {
+                bookings.get(i).setId(ids[i]);
+            }
+            eventOutbox.appendAll(BookingEvent.Type.CREATED, bookings);
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.model.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.OptionalInt;
+
+/**
+ * Стратегия проверки пересечений бронирований с учётом количества боксов услуги.
+ * Реализация выбирается свойством {@code booking.conflict-engine}.
+ */
+public interface BookingConflictDetector {
+    /**
+     * Находит свободный бокс услуги на интервал [startTime, endTime).
+     *
+     * @param excludedBookingId Идентификатор бронирования, исключаемого из проверки, или null.
+     * @return Номер свободного бокса (начиная с 1) или пустое значение, если все боксы заняты.
+     */
+    public OptionalInt findFreeBay(Service service, LocalDateTime startTime, LocalDateTime endTime, Long excludedBookingId);
+    public void bookingSaved(Booking booking);
+    public void bookingDeleted(Long bookingId);
+
+    /**
+     * Возвращает наименьший номер бокса, не входящий в occupiedBays.
+     */
+    static OptionalInt firstFreeBay(Collection<Integer> occupiedBays, int bays) {
+        for (int bay = 1; bay <= bays; bay++) {
+            if (!occupiedBays.contains(bay)) {
+                return OptionalInt.of(bay);
+            }
+        }
+        return OptionalInt.empty();
+    }
+}
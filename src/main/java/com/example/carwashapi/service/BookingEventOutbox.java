@@ -0,0 +1,54 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingEvent;
+import com.example.carwashapi.model.Booking;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запись событий бронирований в таблицу booking_outbox.
+ * <p>
+ * Вызывается внутри транзакции, изменяющей бронирование: событие фиксируется вместе с изменением
+ * или откатывается вместе с ним. Публикацией занимается {@link BookingEventRelay}.
+ */
+@Component
+public class BookingEventOutbox {
+    private static final String INSERT_SQL = "INSERT INTO booking_outbox " +
+            "(event_type, booking_id, service_id, customer_id, start_time, end_time, bay, occurred_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookingEventOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Записывает событие об изменении бронирования в текущей транзакции.
+     *
+     * @param type    Тип события.
+     * @param booking Бронирование в состоянии после изменения (для отмены — перед удалением).
+     */
+    public void append(BookingEvent.Type type, Booking booking) {
+        jdbcTemplate.update(INSERT_SQL, row(type, booking, LocalDateTime.now()));
+    }
+
+    /**
+     * Записывает события об изменении нескольких бронирований одним JDBC-батчем в текущей транзакции.
+     */
+    public void appendAll(BookingEvent.Type type, List<Booking> bookings) {
+        LocalDateTime occurredAt = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(bookings.size());
+        bookings.forEach(booking -> rows.add(row(type, booking, occurredAt)));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private static Object[] row(BookingEvent.Type type, Booking booking, LocalDateTime occurredAt) {
+        return new Object[]{type.name(), booking.getId(), booking.getService().getId(), booking.getCustomer().getId(),
+                booking.getStartTime(), booking.getEndTime(), booking.getBay(), occurredAt};
+    }
+}
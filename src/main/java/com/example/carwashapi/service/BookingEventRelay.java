@@ -0,0 +1,103 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingEvent;
+import com.example.carwashapi.dto.BookingSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Фоновая публикация событий бронирований из таблицы booking_outbox в {@link BookingEventSink}.
+ * <p>
+ * Раз в {@code booking.events.relay-interval} события выбираются пачками по {@code booking.events.batch-size}
+ * в порядке записи. Пачка публикуется и удаляется из таблицы в одной транзакции; строки блокируются
+ * с {@code SKIP LOCKED}, поэтому несколько экземпляров приложения публикуют разные пачки. Порядок
+ * событий соблюдается в пределах пачки, но не между пачками разных экземпляров.
+ */
+@Slf4j
+@Component
+public class BookingEventRelay {
+    private static final String SELECT_SQL = "SELECT id, event_type, booking_id, service_id, customer_id, " +
+            "start_time, end_time, bay, occurred_at FROM booking_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingEventSink sink;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Counter publishedCounter;
+
+    public BookingEventRelay(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, BookingEventSink sink,
+                             @Value("${booking.events.relay.enabled:true}") boolean enabled,
+                             @Value("${booking.events.batch-size:500}") int batchSize,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sink = sink;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.publishedCounter = Counter.builder("booking.events.published")
+                .description("События бронирований, опубликованные из booking_outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${booking.events.relay-interval:PT1S}")
+    public void scheduledRelay() {
+        if (enabled) {
+            relay();
+        }
+    }
+
+    /**
+     * Публикует все накопившиеся события, пока в таблице остаются неопубликованные.
+     *
+     * @return Количество опубликованных событий.
+     */
+    public int relay() {
+        int total = 0;
+        int published;
+        do {
+            published = publishBatch();
+            total += published;
+        } while (published == batchSize);
+        if (total > 0) {
+            log.debug("Опубликовано {} событий бронирований", total);
+        }
+        return total;
+    }
+
+    private int publishBatch() {
+        Integer published = transactionTemplate.execute(status -> {
+            List<BookingEvent> events = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new BookingEvent(
+                    rs.getLong("id"),
+                    BookingEvent.Type.valueOf(rs.getString("event_type")),
+                    new BookingSummary(rs.getLong("booking_id"), rs.getLong("service_id"), rs.getLong("customer_id"),
+                            rs.getObject("start_time", LocalDateTime.class), rs.getObject("end_time", LocalDateTime.class),
+                            rs.getInt("bay")),
+                    rs.getObject("occurred_at", LocalDateTime.class)), batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            try {
+                sink.publish(events);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to publish booking events", e);
+            }
+            List<Object[]> ids = new ArrayList<>(events.size());
+            events.forEach(event -> ids.add(new Object[]{event.getId()}));
+            jdbcTemplate.batchUpdate("DELETE FROM booking_outbox WHERE id = ?", ids);
+            return events.size();
+        });
+        publishedCounter.increment(published);
+        return published;
+    }
+}
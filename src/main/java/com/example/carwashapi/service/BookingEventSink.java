@@ -0,0 +1,16 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingEvent;
+
+import java.util.List;
+
+/**
+ * Получатель событий бронирований, в который {@link BookingEventRelay} публикует пачки из booking_outbox.
+ * Реализация выбирается свойством {@code booking.events.sink}.
+ * <p>
+ * Доставка «как минимум один раз»: если публикация завершилась исключением, пачка остаётся в таблице
+ * и будет опубликована повторно, поэтому получатели должны отбрасывать повторы по {@link BookingEvent#getId()}.
+ */
+public interface BookingEventSink {
+    void publish(List<BookingEvent> events) throws Exception;
+}
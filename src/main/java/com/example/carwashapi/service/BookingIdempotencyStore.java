@@ -0,0 +1,248 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.BookingSummary;
+import com.example.carwashapi.exception.BookingConflictException;
+import com.example.carwashapi.exception.IdempotencyKeyInProgressException;
+import com.example.carwashapi.exception.InvalidIdempotencyKeyException;
+import com.example.carwashapi.exception.NotFoundException;
+import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище ответов на запросы создания бронирования с заголовком {@code Idempotency-Key}.
+ * <p>
+ * Ключ действует в пределах клиента. Первый запрос с ключом выполняется, и созданное бронирование
+ * запоминается; повторы с тем же ключом получают его без проверки пересечений и обращения к
+ * {@link com.example.carwashapi.repository.BookingRepository}. Повтор, пришедший во время выполнения
+ * первого запроса, ждёт его результата не дольше {@code booking.idempotency.await-timeout}. Ошибки не запоминаются:
+ * после отказа запрос с тем же ключом выполняется заново. Ключ, использованный с другим запросом, отклоняется.
+ * <p>
+ * В памяти хранится не более {@code booking.idempotency.max-keys} ключей в течение {@code booking.idempotency.ttl}.
+ * При {@code booking.idempotency.persistent=true} ответы дополнительно записываются в таблицу
+ * {@code booking_idempotency_key}: повторы обслуживаются после перезапуска и другими экземплярами приложения.
+ * Ключ записывается в транзакции, сохраняющей бронирование, поэтому бронирование не фиксируется без ключа.
+ * Если тот же ключ успел записать другой экземпляр, транзакция откатывается и возвращается его бронирование.
+ * <p>
+ * Метрики: {@code cache.gets} и {@code cache.evictions} с тегом {@code cache=bookingIdempotencyKeys};
+ * попадание в кэш — это повтор запроса.
+ */
+@Slf4j
+@Component
+public class BookingIdempotencyStore {
+    static final String NAME = "bookingIdempotencyKeys";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final Cache<String, Entry> entries;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean persistent;
+    private final Duration ttl;
+    private final Duration awaitTimeout;
+
+    public BookingIdempotencyStore(JdbcTemplate jdbcTemplate,
+                                   @Value("${booking.idempotency.max-keys:100000}") long maxKeys,
+                                   @Value("${booking.idempotency.ttl:24h}") Duration ttl,
+                                   @Value("${booking.idempotency.persistent:false}") boolean persistent,
+                                   @Value("${booking.idempotency.await-timeout:30s}") Duration awaitTimeout,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.persistent = persistent;
+        this.ttl = ttl;
+        this.awaitTimeout = awaitTimeout;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, NAME);
+    }
+
+    /**
+     * Создание бронирования, выполняемое для первого запроса с ключом.
+     */
+    @FunctionalInterface
+    public interface BookingCreation {
+        /**
+         * @param keyWriter Запись ключа для созданного бронирования; вызывается в транзакции, сохраняющей бронирование.
+         */
+        BookingSummary create(Consumer<BookingSummary> keyWriter)
+                throws BookingConflictException, NotFoundException, ServiceNotFoundException;
+    }
+
+    /**
+     * Возвращает ответ на запрос с ключом идемпотентности: сохранённый, если запрос с этим ключом уже выполнен,
+     * иначе выполняет создание бронирования и запоминает его результат.
+     *
+     * @param idempotencyKey Значение заголовка {@code Idempotency-Key}.
+     * @param request        Запрос на создание бронирования.
+     * @param creation       Создание бронирования.
+     * @return Созданное бронирование, одно и то же для всех запросов с этим ключом.
+     * @throws InvalidIdempotencyKeyException    если ключ слишком длинный или уже использован с другим запросом.
+     * @throws IdempotencyKeyInProgressException если запрос с этим ключом не завершился за {@code booking.idempotency.await-timeout}.
+     */
+    public BookingSummary execute(String idempotencyKey, BookingRequest request, BookingCreation creation)
+            throws BookingConflictException, NotFoundException, ServiceNotFoundException, InvalidIdempotencyKeyException,
+            IdempotencyKeyInProgressException {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key must not be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+        String key = request.getCustomerId() + ":" + idempotencyKey;
+        Entry entry = new Entry(request);
+        Entry existing = entries.asMap().putIfAbsent(key, entry);
+        if (existing != null) {
+            checkSameRequest(existing.request, request);
+            log.info("Повтор запроса создания бронирования с ключом идемпотентности {}", idempotencyKey);
+            return await(existing.response);
+        }
+
+        try {
+            BookingSummary stored = persistent ? findPersisted(request.getCustomerId(), idempotencyKey) : null;
+            if (stored == null) {
+                try {
+                    BookingSummary created = creation.create(
+                            persistent ? booking -> persist(idempotencyKey, booking) : booking -> { });
+                    entry.response.complete(created);
+                    return created;
+                } catch (KeyTakenException e) {
+                    stored = findPersisted(request.getCustomerId(), idempotencyKey);
+                    if (stored == null) {
+                        throw new IdempotencyKeyInProgressException("Request with this Idempotency-Key is still being processed");
+                    }
+                }
+            }
+            log.info("Повтор запроса создания бронирования с ключом идемпотентности {} найден в базе данных", idempotencyKey);
+            checkSameRequest(requestOf(stored), request);
+            entry.response.complete(stored);
+            return stored;
+        } catch (Throwable e) {
+            entries.asMap().remove(key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Удаляет из базы данных ключи старше {@code booking.idempotency.ttl}.
+     */
+    @Scheduled(fixedDelayString = "${booking.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        if (!persistent) {
+            return;
+        }
+        int purged = jdbcTemplate.update("DELETE FROM booking_idempotency_key WHERE created_at < ?",
+                LocalDateTime.now().minus(ttl));
+        log.debug("Удалено {} устаревших ключей идемпотентности", purged);
+    }
+
+    private BookingSummary findPersisted(Long customerId, String idempotencyKey) {
+        List<BookingSummary> rows = jdbcTemplate.query(
+                "SELECT booking_id, customer_id, service_id, start_time, end_time, bay FROM booking_idempotency_key " +
+                        "WHERE customer_id = ? AND idempotency_key = ? AND created_at >= ?",
+                (rs, rowNum) -> new BookingSummary(rs.getLong("booking_id"), rs.getLong("service_id"), rs.getLong("customer_id"),
+                        rs.getObject("start_time", LocalDateTime.class), rs.getObject("end_time", LocalDateTime.class),
+                        rs.getInt("bay")),
+                customerId, idempotencyKey, LocalDateTime.now().minus(ttl));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * Записывает ключ в текущей транзакции. Устаревшая запись ключа заменяется; действующая означает,
+     * что ключ записал другой экземпляр, и транзакция бронирования откатывается.
+     */
+    private void persist(String idempotencyKey, BookingSummary booking) {
+        LocalDateTime now = LocalDateTime.now();
+        int written = jdbcTemplate.update("INSERT INTO booking_idempotency_key " +
+                        "(customer_id, idempotency_key, service_id, start_time, end_time, booking_id, bay, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (customer_id, idempotency_key) DO UPDATE SET service_id = EXCLUDED.service_id, " +
+                        "start_time = EXCLUDED.start_time, end_time = EXCLUDED.end_time, " +
+                        "booking_id = EXCLUDED.booking_id, bay = EXCLUDED.bay, created_at = EXCLUDED.created_at " +
+                        "WHERE booking_idempotency_key.created_at < ?",
+                booking.getCustomerId(), idempotencyKey, booking.getServiceId(), booking.getStartTime(),
+                booking.getEndTime(), booking.getId(), booking.getBay(), now, now.minus(ttl));
+        if (written == 0) {
+            throw new KeyTakenException();
+        }
+    }
+
+    private static BookingRequest requestOf(BookingSummary booking) {
+        return new BookingRequest(booking.getCustomerId(), booking.getServiceId(), booking.getStartTime(), booking.getEndTime());
+    }
+
+    private static void checkSameRequest(BookingRequest original, BookingRequest request) throws InvalidIdempotencyKeyException {
+        if (!Objects.equals(original, request)) {
+            throw new InvalidIdempotencyKeyException("Idempotency-Key has already been used with a different request");
+        }
+    }
+
+    private BookingSummary await(CompletableFuture<BookingSummary> response)
+            throws BookingConflictException, NotFoundException, ServiceNotFoundException, InvalidIdempotencyKeyException,
+            IdempotencyKeyInProgressException {
+        try {
+            return response.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("Request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Request with this Idempotency-Key is still being processed");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BookingConflictException) {
+                throw (BookingConflictException) cause;
+            }
+            if (cause instanceof NotFoundException) {
+                throw (NotFoundException) cause;
+            }
+            if (cause instanceof ServiceNotFoundException) {
+                throw (ServiceNotFoundException) cause;
+            }
+            if (cause instanceof InvalidIdempotencyKeyException) {
+                throw (InvalidIdempotencyKeyException) cause;
+            }
+            if (cause instanceof IdempotencyKeyInProgressException) {
+                throw (IdempotencyKeyInProgressException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Ключ уже записан другим экземпляром приложения; откатывает транзакцию бронирования.
+     */
+    private static final class KeyTakenException extends RuntimeException {
+    }
+
+    /**
+     * Запрос с ключом и его ответ; ответ завершается, когда первый запрос выполнен.
+     */
+    private static final class Entry {
+        final BookingRequest request;
+        final CompletableFuture<BookingSummary> response = new CompletableFuture<>();
+
+        Entry(BookingRequest request) {
+            this.request = request;
+        }
+    }
+}
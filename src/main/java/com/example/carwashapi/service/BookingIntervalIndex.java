@@ -0,0 +1,102 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingInterval;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Индекс интервалов бронирований в памяти.
+ * <p>
+ * Интервалы каждой услуги упорядочены по времени начала. Поскольку известна максимальная длительность
+ * бронирования, поиск пересечений с [startTime, endTime) сводится к просмотру интервалов,
+ * начинающихся в окне [startTime - maxDuration, endTime), то есть O(log n + k).
+ * Чтение не блокируется, запись сериализуется. Бронирования без услуги не индексируются.
+ */
+public class BookingIntervalIndex {
+    private static final Comparator<BookingInterval> BY_START = Comparator
+            .comparing(BookingInterval::getStartTime)
+            .thenComparing(BookingInterval::getId);
+
+    private final Map<Long, NavigableSet<BookingInterval>> byService = new ConcurrentHashMap<>();
+    private final Map<Long, BookingInterval> byId = new ConcurrentHashMap<>();
+    private final AtomicLong maxDurationSeconds = new AtomicLong();
+
+    /**
+     * Добавляет интервал или заменяет интервал с тем же идентификатором.
+     */
+    public synchronized void put(BookingInterval interval) {
+        remove(interval.getId());
+        if (interval.getServiceId() == null) {
+            return;
+        }
+        byId.put(interval.getId(), interval);
+        byService.computeIfAbsent(interval.getServiceId(), id -> new ConcurrentSkipListSet<>(BY_START)).add(interval);
+        long seconds = Duration.between(interval.getStartTime(), interval.getEndTime()).getSeconds();
+        maxDurationSeconds.accumulateAndGet(seconds, Math::max);
+    }
+
+    /**
+     * Удаляет интервал по идентификатору бронирования.
+     */
+    public synchronized void remove(Long bookingId) {
+        BookingInterval previous = byId.remove(bookingId);
+        if (previous != null) {
+            byService.get(previous.getServiceId()).remove(previous);
+        }
+    }
+
+    public synchronized void clear() {
+        byService.clear();
+        byId.clear();
+        maxDurationSeconds.set(0);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Находит интервалы услуги, пересекающиеся с [startTime, endTime).
+     *
+     * @param excludedBookingId Идентификатор бронирования, исключаемого из поиска, или null.
+     */
+    public List<BookingInterval> findOverlapping(Long serviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                                 Long excludedBookingId) {
+        return overlapping(serviceId, startTime, endTime, excludedBookingId).collect(Collectors.toList());
+    }
+
+    /**
+     * Возвращает номера боксов услуги, занятых в интервале [startTime, endTime).
+     */
+    public Set<Integer> findOccupiedBays(Long serviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                         Long excludedBookingId) {
+        return overlapping(serviceId, startTime, endTime, excludedBookingId)
+                .map(BookingInterval::getBay)
+                .collect(Collectors.toSet());
+    }
+
+    private Stream<BookingInterval> overlapping(Long serviceId, LocalDateTime startTime, LocalDateTime endTime,
+                                                Long excludedBookingId) {
+        NavigableSet<BookingInterval> intervals = byService.get(serviceId);
+        if (intervals == null) {
+            return Stream.empty();
+        }
+        LocalDateTime from = startTime.minusSeconds(maxDurationSeconds.get());
+        BookingInterval lower = new BookingInterval(Long.MIN_VALUE, serviceId, 0, from, from);
+        BookingInterval upper = new BookingInterval(Long.MIN_VALUE, serviceId, 0, endTime, endTime);
+        return intervals.subSet(lower, true, upper, false).stream()
+                .filter(interval -> interval.overlaps(startTime, endTime))
+                .filter(interval -> !interval.getId().equals(excludedBookingId));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.carwashapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import com.example.carwashapi.dto.BookingInterval;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Полосатая (striped) таблица блокировок для записи бронирований.
+ * <p>
+ * Ключ блокировки — пара (услуга, день). Бронирования разных услуг или разных дней, как правило,
+ * попадают в разные полосы и выполняются параллельно; запись в один и тот же слот выстраивается
+ * в очередь в памяти, не удерживая соединение с базой данных. Бронирование, переходящее через
+ * полночь, захватывает полосы всех затронутых дней в порядке возрастания номера, что исключает
+ * взаимную блокировку.
+ * <p>
+ * Метрики: {@code booking.lock.wait} — время ожидания блокировки,
+ * {@code booking.lock.contended} — число захватов, которым пришлось ждать.
+ */
+@Slf4j
+@Component
+public class BookingLockManager {
+    private final ReentrantLock[] stripes;
+    private final Timer waitTimer;
+    private final Counter contendedCounter;
+
+    public BookingLockManager(@Value("${booking.write-lock.stripes:256}") int stripeCount,
+                              MeterRegistry meterRegistry) {
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.waitTimer = Timer.builder("booking.lock.wait")
+                .description("Время ожидания блокировки записи бронирования")
+                .register(meterRegistry);
+        this.contendedCounter = Counter.builder("booking.lock.contended")
+                .description("Захваты блокировки записи бронирования, которым пришлось ждать")
+                .register(meterRegistry);
+        Gauge.builder("booking.lock.stripes", stripes, s -> s.length)
+                .description("Количество полос блокировки записи бронирований")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Захватывает блокировки всех дней интервала [startTime, endTime) указанной услуги.
+     *
+     * @return Захваченная блокировка; освобождается вызовом {@link BookingLock#close()}.
+     */
+    public BookingLock lock(Long serviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        addStripeIndexes(indexes, serviceId, startTime, endTime);
+        return acquire(indexes);
+    }
+
+    /**
+     * Захватывает блокировки всех интервалов сразу (например, для пакета бронирований).
+     * Полосы захватываются в общем порядке возрастания номера, поэтому пакет не может
+     * взаимно заблокироваться с другими пакетами или одиночными бронированиями.
+     *
+     * @return Захваченная блокировка; освобождается вызовом {@link BookingLock#close()}.
+     */
+    public BookingLock lockAll(Collection<BookingInterval> intervals) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        for (BookingInterval interval : intervals) {
+            addStripeIndexes(indexes, interval.getServiceId(), interval.getStartTime(), interval.getEndTime());
+        }
+        return acquire(indexes);
+    }
+
+    private BookingLock acquire(SortedSet<Integer> indexes) {
+        long startNanos = System.nanoTime();
+        boolean contended = false;
+        for (int index : indexes) {
+            ReentrantLock stripe = stripes[index];
+            if (!stripe.tryLock()) {
+                contended = true;
+                stripe.lock();
+            }
+        }
+        long waitNanos = System.nanoTime() - startNanos;
+        waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        if (contended) {
+            contendedCounter.increment();
+            log.debug("Ожидание блокировки бронирования ({} полос): {} мкс", indexes.size(), waitNanos / 1000);
+        }
+        return () -> {
+            for (int index : indexes) {
+                stripes[index].unlock();
+            }
+        };
+    }
+
+    private void addStripeIndexes(SortedSet<Integer> indexes, Long serviceId, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDate lastDay = endTime.isAfter(startTime) ? endTime.minusNanos(1).toLocalDate() : startTime.toLocalDate();
+        for (LocalDate day = startTime.toLocalDate(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            indexes.add(Math.floorMod(Objects.hash(serviceId, day), stripes.length));
+        }
+    }
+
+    /**
+     * Захваченная блокировка записи бронирования.
+     */
+    @FunctionalInterface
+    public interface BookingLock extends AutoCloseable {
+        BookingLock NONE = () -> {
+        };
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.carwashapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Обслуживание месячных секций таблиц booking и timeslot (миграция V11).
+ * <p>
+ * Раз в {@code booking.partitions.interval} создаются секции текущего месяца и {@code booking.partitions.months-ahead}
+ * следующих, чтобы новые строки не попадали в секцию по умолчанию. Если задано {@code booking.partitions.retention-months},
+ * секции, закончившиеся раньше этого числа месяцев назад, отсоединяются и переносятся в схему archive:
+ * данные сохраняются, но запросы к booking и timeslot их больше не читают.
+ * <p>
+ * Работа выполняется функциями базы create_month_partition и detach_month_partitions под транзакционной
+ * advisory-блокировкой, поэтому несколько экземпляров приложения не создают секции одновременно.
+ */
+@Slf4j
+@Component
+public class BookingPartitionManager {
+    static final List<String> PARTITIONED_TABLES = List.of("booking", "timeslot");
+
+    /**
+     * Ключ pg_advisory_xact_lock для обслуживания секций.
+     */
+    private static final long MAINTENANCE_LOCK = 0x62_6f_6f_6b_70_61_72_74L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public BookingPartitionManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   @Value("${booking.partitions.enabled:true}") boolean enabled,
+                                   @Value("${booking.partitions.months-ahead:3}") int monthsAhead,
+                                   @Value("${booking.partitions.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.partitions.interval:PT6H}")
+    public void scheduledMaintenance() {
+        if (enabled) {
+            maintain(YearMonth.now());
+        }
+    }
+
+    /**
+     * Создает секции с месяца {@code current} на {@code booking.partitions.months-ahead} месяцев вперед
+     * и отсоединяет устаревшие, если задан срок хранения.
+     *
+     * @param current Текущий месяц.
+     */
+    public void maintain(YearMonth current) {
+        createPartitions(current, current.plusMonths(monthsAhead));
+        if (retentionMonths > 0) {
+            detachPartitionsBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * Создает отсутствующие месячные секции booking и timeslot с {@code from} по {@code to} включительно.
+     * Строки этих месяцев из секций по умолчанию переносятся в новые секции.
+     *
+     * @return Имена созданных секций.
+     */
+    public List<String> createPartitions(YearMonth from, YearMonth to) {
+        List<String> created = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            for (String table : PARTITIONED_TABLES) {
+                YearMonth partitionMonth = month;
+                Boolean createdNow = transactionTemplate.execute(status -> {
+                    lock();
+                    return jdbcTemplate.queryForObject("SELECT create_month_partition(?, ?)", Boolean.class,
+                            table, partitionMonth.atDay(1));
+                });
+                if (Boolean.TRUE.equals(createdNow)) {
+                    created.add(partitionName(table, partitionMonth));
+                }
+            }
+        }
+        if (!created.isEmpty()) {
+            log.info("Созданы секции {}", created);
+        }
+        return created;
+    }
+
+    /**
+     * Отсоединяет месячные секции booking и timeslot, закончившиеся до начала месяца {@code before},
+     * и переносит их в схему archive.
+     *
+     * @return Имена отсоединенных секций.
+     */
+    public List<String> detachPartitionsBefore(YearMonth before) {
+        LocalDateTime detachBefore = before.atDay(1).atStartOfDay();
+        List<String> detached = new ArrayList<>();
+        for (String table : PARTITIONED_TABLES) {
+            List<String> tableDetached = transactionTemplate.execute(status -> {
+                lock();
+                return jdbcTemplate.queryForList("SELECT detach_month_partitions(?, ?)", String.class, table, detachBefore);
+            });
+            if (tableDetached != null) {
+                detached.addAll(tableDetached);
+            }
+        }
+        if (!detached.isEmpty()) {
+            log.info("Секции {} отсоединены и перенесены в схему archive", detached);
+        }
+        return detached;
+    }
+
+    static String partitionName(String table, YearMonth month) {
+        return String.format("%s_p%04d_%02d", table, month.getYear(), month.getMonthValue());
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, MAINTENANCE_LOCK);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingEvent;
+import com.example.carwashapi.dto.BookingInterval;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.repository.BookingRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Удаление бронирований, общее для отмены бронирования и удаления клиента.
+ * <p>
+ * {@link #delete} вызывается внутри транзакции: бронирования удаляются вместе с событиями CANCELLED
+ * в booking_outbox. {@link #deleted} вызывается после фиксации и убирает бронирования из индекса
+ * пересечений и календаря доступности.
+ */
+@Component
+public class BookingRemover {
+    private final BookingRepository bookingRepository;
+    private final BookingEventOutbox eventOutbox;
+    private final BookingConflictDetector conflictDetector;
+    private final AvailabilityCalendar availabilityCalendar;
+
+    public BookingRemover(BookingRepository bookingRepository, BookingEventOutbox eventOutbox,
+                          BookingConflictDetector conflictDetector, AvailabilityCalendar availabilityCalendar) {
+        this.bookingRepository = bookingRepository;
+        this.eventOutbox = eventOutbox;
+        this.conflictDetector = conflictDetector;
+        this.availabilityCalendar = availabilityCalendar;
+    }
+
+    /**
+     * Удаляет бронирования и записывает события об отмене в текущей транзакции.
+     */
+    public void delete(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        bookingRepository.deleteAll(bookings);
+        eventOutbox.appendAll(BookingEvent.Type.CANCELLED, bookings);
+    }
+
+    /**
+     * Убирает удалённые бронирования из индекса пересечений и календаря доступности.
+     * Вызывается после фиксации транзакции {@link #delete}.
+     */
+    public void deleted(List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            conflictDetector.bookingDeleted(booking.getId());
+            availabilityCalendar.bookingChanged(BookingInterval.of(booking), null);
+        }
+    }
+}
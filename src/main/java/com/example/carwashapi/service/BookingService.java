@@ -1,23 +1,38 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.dto.BookingBatchResult;
 import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.BookingSummary;
+import com.example.carwashapi.dto.CursorPage;
+import com.example.carwashapi.dto.FreeWindow;
+import com.example.carwashapi.dto.ServiceSummary;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.exception.BookingConflictException;
+import com.example.carwashapi.exception.IdempotencyKeyInProgressException;
+import com.example.carwashapi.exception.InvalidIdempotencyKeyException;
 import com.example.carwashapi.exception.NotFoundException;
 import com.example.carwashapi.exception.ServiceNotFoundException;
 import com.example.carwashapi.model.Booking;
 import com.example.carwashapi.model.Service;
-import com.example.carwashapi.model.Timeslot;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface BookingService {
-    public List<Service> getAllServices();
+    public List<ServiceSummary> getAllServices();
     public Service getServiceById(Long serviceId) throws ServiceNotFoundException;
-    public List<Timeslot> getAvailableTimeSlotsForService(Service service);
-    public List<Booking> getAllBookings();
-    public Booking getBookingById(Long bookingId);
+    public List<TimeslotSummary> getAvailableTimeSlotsForService(Service service, LocalDateTime from, LocalDateTime to);
+    public List<FreeWindow> findEarliestFreeWindows(int limit, Integer maxDuration, Double maxPrice, LocalDateTime from, LocalDateTime to);
+    public List<BookingSummary> getAllBookings();
+    public CursorPage<BookingSummary> getBookingsPage(Long afterId, int limit);
+    public void exportBookings(OutputStream out) throws IOException;
+    public BookingSummary getBookingById(Long bookingId);
     public void deleteBooking(Long bookingId);
-    public Booking updateBooking(Long bookingId, BookingRequest bookingRequest) throws BookingConflictException, NotFoundException;
+    public BookingSummary updateBooking(Long bookingId, BookingRequest bookingRequest) throws BookingConflictException, NotFoundException;
     public Booking createBooking(BookingRequest bookingRequest) throws BookingConflictException, NotFoundException, ServiceNotFoundException;
+    public BookingSummary createBooking(BookingRequest bookingRequest, String idempotencyKey) throws BookingConflictException, NotFoundException, ServiceNotFoundException, InvalidIdempotencyKeyException, IdempotencyKeyInProgressException;
+    public List<BookingBatchResult> createBookings(List<BookingRequest> bookingRequests);
 
 }
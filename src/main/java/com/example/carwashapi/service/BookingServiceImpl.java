@@ -1,19 +1,39 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.dto.BookingBatchResult;
+import com.example.carwashapi.dto.BookingEvent;
+import com.example.carwashapi.dto.BookingInterval;
 import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.BookingSummary;
+import com.example.carwashapi.dto.CursorPage;
+import com.example.carwashapi.dto.FreeWindow;
+import com.example.carwashapi.dto.ServiceSummary;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.exception.BookingConflictException;
+import com.example.carwashapi.exception.IdempotencyKeyInProgressException;
+import com.example.carwashapi.exception.InvalidIdempotencyKeyException;
 import com.example.carwashapi.exception.NotFoundException;
 import com.example.carwashapi.exception.ServiceNotFoundException;
 import com.example.carwashapi.model.Booking;
 import com.example.carwashapi.model.Customer;
-import com.example.carwashapi.model.Timeslot;
 import com.example.carwashapi.repository.BookingRepository;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления бронированиями услуг.
@@ -21,14 +41,51 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 public class BookingServiceImpl implements BookingService{
+    /**
+     * SQLSTATE нарушения ограничения исключения booking_no_overlap.
+     */
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    /**
+     * Окно поиска свободных слотов, если конец интервала не указан.
+     */
+    private static final Duration DEFAULT_AVAILABILITY_WINDOW = Duration.ofDays(14);
+
     private final BookingRepository bookingRepository;
     private final CustomerServiceImpl customerService;
     private final ServiceServiceImpl serviceService;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final BookingConflictDetector conflictDetector;
+    private final BookingLockManager lockManager;
+    private final NdjsonExporter ndjsonExporter;
+    private final BookingBatchWriter batchWriter;
+    private final BookingIdempotencyStore idempotencyStore;
+    private final BookingEventOutbox eventOutbox;
+    private final BookingRemover bookingRemover;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxSearchWindow;
 
-    public BookingServiceImpl(BookingRepository bookingRepository, CustomerServiceImpl customerService, ServiceServiceImpl serviceService) {
+    public BookingServiceImpl(BookingRepository bookingRepository, CustomerServiceImpl customerService,
+                              ServiceServiceImpl serviceService, AvailabilityCalendar availabilityCalendar,
+                              BookingConflictDetector conflictDetector, BookingLockManager lockManager,
+                              NdjsonExporter ndjsonExporter, BookingBatchWriter batchWriter,
+                              BookingIdempotencyStore idempotencyStore, BookingEventOutbox eventOutbox,
+                              BookingRemover bookingRemover, TransactionTemplate transactionTemplate,
+                              @org.springframework.beans.factory.annotation.Value("${booking.search.max-window:P14D}")
+                              Duration maxSearchWindow) {
         this.bookingRepository = bookingRepository;
         this.customerService = customerService;
         this.serviceService = serviceService;
+        this.availabilityCalendar = availabilityCalendar;
+        this.conflictDetector = conflictDetector;
+        this.lockManager = lockManager;
+        this.ndjsonExporter = ndjsonExporter;
+        this.batchWriter = batchWriter;
+        this.idempotencyStore = idempotencyStore;
+        this.eventOutbox = eventOutbox;
+        this.bookingRemover = bookingRemover;
+        this.transactionTemplate = transactionTemplate;
+        this.maxSearchWindow = maxSearchWindow;
     }
 
     /**
@@ -36,9 +93,11 @@ public class BookingServiceImpl implements BookingService{
      *
      * @return Список всех доступных услуг.
      */
-    public List<com.example.carwashapi.model.Service> getAllServices() {
+    public List<ServiceSummary> getAllServices() {
         log.info("Запрос всех услуг");
-        return serviceService.getAllServices();
+        return serviceService.getAllServices().stream()
+                .map(ServiceSummary::of)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -54,16 +113,52 @@ public class BookingServiceImpl implements BookingService{
     }
 
     /**
-     * Получает список доступных временных слотов для услуги.
+     * Получает список доступных временных слотов для услуги, начинающихся в интервале [from, to).
+     * Ответ строится по календарю в памяти; слоты, на время которых заняты все боксы услуги, не возвращаются.
      *
      * @param service Услуга, для которой запрашиваются временные слоты.
-     * @return Список доступных временных слотов.
+     * @param from    Начало интервала; если null — текущее время.
+     * @param to      Конец интервала; если null — две недели после начала.
+     * @return Список доступных временных слотов в порядке времени начала.
      */
-    public List<Timeslot> getAvailableTimeSlotsForService(com.example.carwashapi.model.Service service) {
+    public List<TimeslotSummary> getAvailableTimeSlotsForService(com.example.carwashapi.model.Service service,
+                                                                 LocalDateTime from, LocalDateTime to) {
+        LocalDateTime windowStart = from != null ? from : LocalDateTime.now();
+        LocalDateTime windowEnd = to != null ? to : windowStart.plus(DEFAULT_AVAILABILITY_WINDOW);
         log.info("Запрос доступных временных слотов для услуги: {}", service.getName());
-        return service.getTimeslots().stream()
-                .filter(Timeslot::isAvailable)
-                .collect(Collectors.toList());
+        return availabilityCalendar.getAvailableTimeslots(service, windowStart, windowEnd);
+    }
+
+    /**
+     * Находит самые ранние свободные слоты среди всех услуг (см. {@link FreeWindowSearch}).
+     * Ответ строится по календарю в памяти, как и {@link #getAvailableTimeSlotsForService}.
+     *
+     * @param limit       Наибольшее количество слотов (не более {@value FreeWindowSearch#MAX_LIMIT}).
+     * @param maxDuration Наибольшая длительность слота в минутах или null.
+     * @param maxPrice    Наибольшая цена услуги или null.
+     * @param from        Начало интервала; если null — текущее время.
+     * @param to          Конец интервала; если null или дальше {@code booking.search.max-window} (две недели
+     *                    по умолчанию) после начала — начало плюс max-window. Каждый день интервала загружается
+     *                    в календарь для каждой услуги, и далекий конец вытеснил бы из календаря нужные дни.
+     * @return Свободные слоты в порядке времени начала.
+     */
+    public List<FreeWindow> findEarliestFreeWindows(int limit, Integer maxDuration, Double maxPrice,
+                                                    LocalDateTime from, LocalDateTime to) {
+        LocalDateTime windowStart = from != null ? from : LocalDateTime.now();
+        LocalDateTime maxWindowEnd = windowStart.plus(maxSearchWindow);
+        LocalDateTime windowEnd = to != null && to.isBefore(maxWindowEnd) ? to : maxWindowEnd;
+        int resultLimit = Math.max(1, Math.min(limit, FreeWindowSearch.MAX_LIMIT));
+        log.info("Поиск {} ближайших свободных слотов с {} по {}", resultLimit, windowStart, windowEnd);
+        List<com.example.carwashapi.model.Service> services = new ArrayList<>();
+        for (com.example.carwashapi.model.Service service : serviceService.getAllServices()) {
+            if (maxPrice == null || service.getPrice() <= maxPrice) {
+                services.add(service);
+            }
+        }
+        return FreeWindowSearch.earliest(services, windowStart, windowEnd, resultLimit,
+                timeslot -> maxDuration == null
+                        || !timeslot.getEndTime().isAfter(timeslot.getStartTime().plusMinutes(maxDuration)),
+                availabilityCalendar::getAvailableTimeslots);
     }
 
     /**
@@ -71,20 +166,24 @@ public class BookingServiceImpl implements BookingService{
      *
      * @param bookingRequest Запрос на создание бронирования.
      * @return Созданное бронирование.
-     * @throws BookingConflictException если временной слот уже занят другим бронированием.
+     * @throws BookingConflictException если на это время заняты все боксы услуги.
      * @throws NotFoundException        если клиент или услуга не найдены.
      * @throws ServiceNotFoundException если услуга не найдена.
      */
     public Booking createBooking(BookingRequest bookingRequest) throws BookingConflictException, NotFoundException, ServiceNotFoundException {
+        return saveNewBooking(bookingRequest, null);
+    }
+
+    /**
+     * Создает новое бронирование; onSaved, если задано, выполняется в транзакции сохранения (см. {@link #saveBooking}).
+     */
+    private Booking saveNewBooking(BookingRequest bookingRequest, Consumer<BookingSummary> onSaved)
+            throws BookingConflictException, NotFoundException, ServiceNotFoundException {
         LocalDateTime startTime = bookingRequest.getStartTime();
         LocalDateTime endTime = bookingRequest.getEndTime();
 
         log.info("Создание бронирования начато: startTime={}, endTime={}", startTime, endTime);
 
-        if (!isTimeSlotAvailable(startTime, endTime)) {
-            log.error("Ошибка при создании бронирования: Time slot is not available");
-            throw new BookingConflictException("Time slot is not available");
-        }
         Customer customer = customerService.getCustomerById(bookingRequest.getCustomerId());
         if (customer == null) {
             log.error("Ошибка при создании бронирования: Customer not found");
@@ -102,40 +201,248 @@ public class BookingServiceImpl implements BookingService{
         booking.setStartTime(startTime);
         booking.setEndTime(endTime);
 
+        Booking savedBooking = reserveBay(booking, null, onSaved);
         log.info("Создание бронирования завершено");
-        return bookingRepository.save(booking);
+        return savedBooking;
+    }
+
+    /**
+     * Создает новое бронирование с ключом идемпотентности. Повторный запрос с тем же ключом возвращает
+     * бронирование, созданное первым запросом, и не создает новое (см. {@link BookingIdempotencyStore}).
+     *
+     * @param bookingRequest Запрос на создание бронирования.
+     * @param idempotencyKey Ключ идемпотентности; без ключа бронирование создается как обычно.
+     * @return Созданное бронирование.
+     * @throws BookingConflictException       если на это время заняты все боксы услуги.
+     * @throws NotFoundException              если клиент или услуга не найдены.
+     * @throws ServiceNotFoundException       если услуга не найдена.
+     * @throws InvalidIdempotencyKeyException если ключ уже использован с другим запросом.
+     * @throws IdempotencyKeyInProgressException если запрос с этим ключом всё ещё выполняется.
+     */
+    public BookingSummary createBooking(BookingRequest bookingRequest, String idempotencyKey)
+            throws BookingConflictException, NotFoundException, ServiceNotFoundException, InvalidIdempotencyKeyException,
+            IdempotencyKeyInProgressException {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return BookingSummary.of(createBooking(bookingRequest));
+        }
+        return idempotencyStore.execute(idempotencyKey, bookingRequest,
+                keyWriter -> BookingSummary.of(saveNewBooking(bookingRequest, keyWriter)));
+    }
+
+    /**
+     * Создает пакет бронирований.
+     * <p>
+     * Клиенты загружаются одним запросом, услуги — из кэша каталога. Затем под блокировкой всех
+     * затронутых пар (услуга, день) одним запросом читаются существующие бронирования этих услуг
+     * в общем интервале пакета, боксы назначаются в памяти по порядку запроса с учетом уже принятых
+     * бронирований пакета, и все принятые бронирования вставляются одним JDBC-батчем в одной транзакции.
+     * Если батч нарушил ограничение booking_no_overlap (бокс заняли параллельно в обход блокировки),
+     * бронирования сохраняются по одному, и каждое, для которого не нашлось свободного бокса, получает CONFLICT.
+     *
+     * @param bookingRequests Запросы на создание бронирований.
+     * @return Результат по каждому запросу в том же порядке.
+     */
+    public List<BookingBatchResult> createBookings(List<BookingRequest> bookingRequests) {
+        log.info("Пакетное создание бронирований начато: {} шт.", bookingRequests.size());
+        BookingBatchResult[] results = new BookingBatchResult[bookingRequests.size()];
+
+        Set<Long> customerIds = new HashSet<>();
+        Set<Long> serviceIds = new HashSet<>();
+        bookingRequests.forEach(request -> {
+            customerIds.add(request.getCustomerId());
+            serviceIds.add(request.getServiceId());
+        });
+        Map<Long, Customer> customers = customerService.getCustomersById(customerIds);
+        Map<Long, com.example.carwashapi.model.Service> services = new HashMap<>();
+        for (Long serviceId : serviceIds) {
+            try {
+                services.put(serviceId, serviceService.getServiceById(serviceId));
+            } catch (ServiceNotFoundException e) {
+                log.warn("Услуга с ID {} из пакета не найдена", serviceId);
+            }
+        }
+
+        List<PendingBooking> pending = new ArrayList<>();
+        for (int i = 0; i < bookingRequests.size(); i++) {
+            BookingRequest request = bookingRequests.get(i);
+            Customer customer = customers.get(request.getCustomerId());
+            com.example.carwashapi.model.Service service = services.get(request.getServiceId());
+            if (customer == null) {
+                results[i] = BookingBatchResult.failed(i, BookingBatchResult.Status.NOT_FOUND, "Customer not found");
+            } else if (service == null) {
+                results[i] = BookingBatchResult.failed(i, BookingBatchResult.Status.NOT_FOUND, "Service not found");
+            } else if (!request.isEndAfterStart()) {
+                results[i] = BookingBatchResult.failed(i, BookingBatchResult.Status.INVALID, "endTime must be after startTime");
+            } else if (!request.isDurationAllowed()) {
+                results[i] = BookingBatchResult.failed(i, BookingBatchResult.Status.INVALID, "booking must not be longer than 24 hours");
+            } else {
+                Booking booking = new Booking();
+                booking.setCustomer(customer);
+                booking.setService(service);
+                booking.setStartTime(request.getStartTime());
+                booking.setEndTime(request.getEndTime());
+                pending.add(new PendingBooking(i, booking));
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            reserveBays(pending, results);
+        }
+        log.info("Пакетное создание бронирований завершено");
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Назначает боксы бронированиям пакета, сохраняет принятые и записывает результат по каждому бронированию.
+     * Как и при создании одного бронирования, сохраненные бронирования передаются детектору конфликтов
+     * и календарю доступности до снятия блокировки.
+     */
+    private void reserveBays(List<PendingBooking> pending, BookingBatchResult[] results) {
+        List<BookingInterval> intervals = new ArrayList<>(pending.size());
+        Set<Long> serviceIds = new HashSet<>();
+        LocalDateTime windowStart = null;
+        LocalDateTime windowEnd = null;
+        for (PendingBooking item : pending) {
+            BookingInterval interval = BookingInterval.of(item.getBooking());
+            intervals.add(interval);
+            serviceIds.add(interval.getServiceId());
+            windowStart = windowStart == null || interval.getStartTime().isBefore(windowStart) ? interval.getStartTime() : windowStart;
+            windowEnd = windowEnd == null || interval.getEndTime().isAfter(windowEnd) ? interval.getEndTime() : windowEnd;
+        }
+
+        try (BookingLockManager.BookingLock lock = lockManager.lockAll(intervals)) {
+            BookingIntervalIndex occupied = new BookingIntervalIndex();
+            bookingRepository.findIntervalsForServices(serviceIds, windowStart, windowEnd).forEach(occupied::put);
+
+            List<PendingBooking> accepted = new ArrayList<>(pending.size());
+            for (PendingBooking item : pending) {
+                Booking booking = item.getBooking();
+                OptionalInt freeBay = BookingConflictDetector.firstFreeBay(
+                        occupied.findOccupiedBays(booking.getService().getId(), booking.getStartTime(), booking.getEndTime(), null),
+                        booking.getService().getBays());
+                if (freeBay.isEmpty()) {
+                    results[item.getIndex()] = BookingBatchResult.failed(item.getIndex(),
+                            BookingBatchResult.Status.CONFLICT, "Time slot is not available");
+                    continue;
+                }
+                booking.setBay(freeBay.getAsInt());
+                // Временный отрицательный идентификатор: бронирование еще не сохранено, но должно учитываться
+                // при назначении боксов следующим бронированиям пакета.
+                occupied.put(new BookingInterval(-1L - item.getIndex(), booking.getService().getId(), booking.getBay(),
+                        booking.getStartTime(), booking.getEndTime()));
+                accepted.add(item);
+            }
+
+            if (accepted.isEmpty()) {
+                return;
+            }
+            List<Booking> bookings = new ArrayList<>(accepted.size());
+            accepted.forEach(item -> bookings.add(item.getBooking()));
+            try {
+                batchWriter.insert(bookings);
+            } catch (DataIntegrityViolationException e) {
+                if (!isOverlapViolation(e)) {
+                    throw e;
+                }
+                log.warn("Пакет бронирований пересекается с параллельными бронированиями, сохранение по одному");
+                saveOneByOne(accepted, results);
+                return;
+            }
+            accepted.forEach(item -> bookingCreated(item.getIndex(), item.getBooking(), results));
+        }
     }
 
     /**
-     * Получает список всех бронирований.
+     * Сохраняет бронирования пакета по одному после отката батча. Каждое сохранение при занятом боксе
+     * выбирает свободный бокс по данным базы (см. {@link #saveBooking}); если его нет, бронирование получает CONFLICT.
+     */
+    private void saveOneByOne(List<PendingBooking> accepted, BookingBatchResult[] results) {
+        for (PendingBooking item : accepted) {
+            try {
+                bookingCreated(item.getIndex(), saveBooking(item.getBooking(), null, null), results);
+            } catch (BookingConflictException e) {
+                results[item.getIndex()] = BookingBatchResult.failed(item.getIndex(),
+                        BookingBatchResult.Status.CONFLICT, e.getMessage());
+            }
+        }
+    }
+
+    private void bookingCreated(int index, Booking booking, BookingBatchResult[] results) {
+        conflictDetector.bookingSaved(booking);
+        availabilityCalendar.bookingChanged(null, BookingInterval.of(booking));
+        results[index] = BookingBatchResult.created(index, booking);
+    }
+
+    /**
+     * Получает список всех бронирований без загрузки сущностей в контекст персистентности.
      *
      * @return Список всех бронирований.
      */
-    public List<Booking> getAllBookings() {
+    @Transactional(readOnly = true)
+    public List<BookingSummary> getAllBookings() {
         log.info("Запрос всех бронирований");
-        return bookingRepository.findAll();
+        return bookingRepository.findAllSummaries();
+    }
+
+    /**
+     * Получает страницу бронирований в порядке возрастания идентификатора (keyset-пагинация).
+     *
+     * @param afterId Идентификатор последнего бронирования предыдущей страницы или null для первой страницы.
+     * @param limit   Размер страницы (не более {@value CursorPage#MAX_LIMIT}).
+     * @return Страница бронирований и курсор следующей страницы.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<BookingSummary> getBookingsPage(Long afterId, int limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        log.info("Запрос страницы бронирований после ID {} размером {}", afterId, pageSize);
+        List<BookingSummary> bookings = bookingRepository.findSummaryPageAfter(afterId != null ? afterId : 0L,
+                PageRequest.of(0, pageSize));
+        return CursorPage.of(bookings, pageSize, BookingSummary::getId);
+    }
+
+    /**
+     * Выгружает все бронирования в формате NDJSON в том же представлении, что и страницы бронирований.
+     *
+     * @param out Поток, в который записываются бронирования.
+     */
+    @Transactional(readOnly = true)
+    public void exportBookings(OutputStream out) throws IOException {
+        log.info("Выгрузка всех бронирований");
+        ndjsonExporter.export(out, "SELECT id, service_id, customer_id, start_time, end_time, bay FROM booking ORDER BY id",
+                (rs, rowNum) -> new BookingSummary(rs.getLong("id"), rs.getObject("service_id", Long.class),
+                        rs.getObject("customer_id", Long.class), rs.getObject("start_time", LocalDateTime.class),
+                        rs.getObject("end_time", LocalDateTime.class), rs.getInt("bay")));
     }
 
     /**
      * Получает бронирование по его идентификатору.
      *
      * @param bookingId Идентификатор бронирования.
-     * @return Бронирование с указанным идентификатором.
+     * @return Бронирование с указанным идентификатором или null, если оно не найдено.
      */
-    public Booking getBookingById(Long bookingId) {
+    @Transactional(readOnly = true)
+    public BookingSummary getBookingById(Long bookingId) {
         log.info("Запрос бронирования по ID: {}", bookingId);
-        return bookingRepository.findById(bookingId)
+        return bookingRepository.findSummaryById(bookingId)
                 .orElse(null);
     }
 
     /**
-     * Удаляет бронирование по его идентификатору.
+     * Удаляет бронирование по его идентификатору. Событие отмены записывается в booking_outbox
+     * в той же транзакции, что и удаление.
      *
      * @param bookingId Идентификатор бронирования.
      */
     public void deleteBooking(Long bookingId) {
         log.info("Удаление бронирования с ID: {}", bookingId);
-        bookingRepository.deleteById(bookingId);
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new EmptyResultDataAccessException("Booking not found", 1));
+        List<Booking> bookings = List.of(booking);
+        transactionTemplate.execute(status -> {
+            bookingRemover.delete(bookings);
+            return null;
+        });
+        bookingRemover.deleted(bookings);
     }
 
     /**
@@ -144,50 +451,128 @@ public class BookingServiceImpl implements BookingService{
      * @param bookingId      Идентификатор бронирования, которое требуется обновить.
      * @param bookingRequest Запрос на обновление бронирования.
      * @return Обновленное бронирование.
-     * @throws BookingConflictException если временной слот уже занят другим бронированием.
+     * @throws BookingConflictException если на это время заняты все боксы услуги.
      * @throws NotFoundException        если бронирование не найдено.
      */
-    public Booking updateBooking(Long bookingId, BookingRequest bookingRequest) throws BookingConflictException, NotFoundException {
+    public BookingSummary updateBooking(Long bookingId, BookingRequest bookingRequest) throws BookingConflictException, NotFoundException {
         log.info("Обновление бронирования с ID: {}", bookingId);
         Booking existingBooking = bookingRepository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Booking not found"));
 
+        BookingInterval previous = BookingInterval.of(existingBooking);
+
         LocalDateTime startTime = bookingRequest.getStartTime();
         LocalDateTime endTime = bookingRequest.getEndTime();
 
-        if (!isTimeSlotAvailable(startTime, endTime, bookingId)) {
-            log.error("Ошибка при обновлении бронирования: Time slot is not available");
-            throw new BookingConflictException("Time slot is not available");
-        }
-
         existingBooking.setStartTime(startTime);
         existingBooking.setEndTime(endTime);
 
-        return bookingRepository.save(existingBooking);
+        return BookingSummary.of(reserveBay(existingBooking, previous, null));
     }
 
     /**
-     * Проверяет доступность временного слота для бронирования.
+     * Назначает бронированию свободный бокс и сохраняет его. Проверка и запись выполняются
+     * под блокировкой (услуга, день), поэтому параллельные записи в один слот не конкурируют
+     * за одно и то же место.
      *
-     * @param startTime Начальное время бронирования.
-     * @param endTime   Конечное время бронирования.
-     * @return true, если временной слот доступен для бронирования, в противном случае - false.
+     * @param booking   Бронирование с заполненными услугой и временем.
+     * @param previous  Изменяемое бронирование в состоянии до изменения или null для нового бронирования.
+     * @param onSaved   Действие с сохранённым бронированием в транзакции сохранения или null (см. {@link #saveBooking}).
+     * @return Сохраненное бронирование.
+     * @throws BookingConflictException если на это время заняты все боксы услуги.
      */
-    private boolean isTimeSlotAvailable(LocalDateTime startTime, LocalDateTime endTime) {
-        long overlappingBookings = bookingRepository.countOverlappingBookings(startTime, endTime);
-        return overlappingBookings == 0;
+    private Booking reserveBay(Booking booking, BookingInterval previous, Consumer<BookingSummary> onSaved)
+            throws BookingConflictException {
+        com.example.carwashapi.model.Service service = booking.getService();
+        Long bookingId = previous != null ? previous.getId() : null;
+        try (BookingLockManager.BookingLock lock = lockManager.lock(service.getId(), booking.getStartTime(), booking.getEndTime())) {
+            OptionalInt freeBay = findFreeBay(service, booking.getStartTime(), booking.getEndTime(), bookingId);
+            if (freeBay.isEmpty()) {
+                log.error("Ошибка при сохранении бронирования: Time slot is not available");
+                throw new BookingConflictException("Time slot is not available");
+            }
+            booking.setBay(freeBay.getAsInt());
+
+            Booking savedBooking = saveBooking(booking, bookingId, onSaved);
+            conflictDetector.bookingSaved(savedBooking);
+            availabilityCalendar.bookingChanged(previous, BookingInterval.of(savedBooking));
+            return savedBooking;
+        }
     }
 
     /**
-     * Проверяет доступность временного слота для бронирования с исключением указанного бронирования.
+     * Сохраняет бронирование. Если выбранный бокс успели занять параллельно (нарушение ограничения
+     * booking_no_overlap), заново выбирает свободный бокс по данным базы и повторяет сохранение.
+     * Каждая попытка — отдельная транзакция, в которой вместе с бронированием записывается событие в booking_outbox.
      *
+     * @param booking    Бронирование с назначенным боксом.
+     * @param bookingId  Идентификатор бронирования, которое нужно исключить из проверки на пересечение, или null.
+     * @param onSaved    Действие с сохранённым бронированием в той же транзакции (запись ключа идемпотентности) или null.
+     * @return Сохраненное бронирование.
+     * @throws BookingConflictException если все боксы услуги заняты.
+     */
+    private Booking saveBooking(Booking booking, Long bookingId, Consumer<BookingSummary> onSaved) throws BookingConflictException {
+        com.example.carwashapi.model.Service service = booking.getService();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Booking savedBooking = bookingRepository.save(booking);
+                    eventOutbox.append(bookingId == null ? BookingEvent.Type.CREATED : BookingEvent.Type.UPDATED, savedBooking);
+                    if (onSaved != null) {
+                        onSaved.accept(BookingSummary.of(savedBooking));
+                    }
+                    return savedBooking;
+                });
+            } catch (DataIntegrityViolationException e) {
+                if (!isOverlapViolation(e)) {
+                    throw e;
+                }
+                log.warn("Бокс {} занят параллельным бронированием, попытка {}", booking.getBay(), attempt);
+                List<Integer> occupiedBays = bookingId == null
+                        ? bookingRepository.findOccupiedBays(service.getId(), booking.getStartTime(), booking.getEndTime())
+                        : bookingRepository.findOccupiedBaysWithId(service.getId(), booking.getStartTime(), booking.getEndTime(), bookingId);
+                OptionalInt freeBay = BookingConflictDetector.firstFreeBay(occupiedBays, service.getBays());
+                if (freeBay.isEmpty() || attempt >= service.getBays()) {
+                    log.error("Ошибка при сохранении бронирования: Time slot is not available");
+                    throw new BookingConflictException("Time slot is not available");
+                }
+                booking.setBay(freeBay.getAsInt());
+            }
+        }
+    }
+
+    /**
+     * Проверяет, вызвана ли ошибка нарушением ограничения booking_no_overlap.
+     */
+    private static boolean isOverlapViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Находит свободный бокс услуги на указанное время.
+     *
+     * @param service    Услуга бронирования.
      * @param startTime  Начальное время бронирования.
      * @param endTime    Конечное время бронирования.
-     * @param bookingId  Идентификатор бронирования, которое нужно исключить из проверки на пересечение.
-     * @return true, если временной слот доступен для бронирования, в противном случае - false.
+     * @param bookingId  Идентификатор бронирования, которое нужно исключить из проверки на пересечение, или null.
+     * @return Номер свободного бокса или пустое значение, если все боксы услуги заняты.
+     */
+    private OptionalInt findFreeBay(com.example.carwashapi.model.Service service, LocalDateTime startTime,
+                                    LocalDateTime endTime, Long bookingId) {
+        return conflictDetector.findFreeBay(service, startTime, endTime, bookingId);
+    }
+
+    /**
+     * Бронирование пакета вместе с его позицией в запросе.
      */
-    private boolean isTimeSlotAvailable(LocalDateTime startTime, LocalDateTime endTime, Long bookingId) {
-        long overlappingBookings = bookingRepository.countOverlappingBookingsWithId(startTime, endTime, bookingId);
-        return overlappingBookings == 0;
+    @Value
+    private static class PendingBooking {
+        int index;
+        Booking booking;
     }
 }
@@ -0,0 +1,70 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.CustomerSummary;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Кэш клиентов по нормализованному номеру телефона.
+ * <p>
+ * Размер ограничен политикой W-TinyLFU (Caffeine): постоянные клиенты остаются в кэше, а разовые
+ * обращения его не вытесняют. Записи обновляются при создании, изменении и удалении клиента через
+ * {@link CustomerServiceImpl}; время жизни страхует от изменений в обход API.
+ * <p>
+ * Метрики: {@code cache.gets}, {@code cache.evictions} и {@code cache.hit.ratio} с тегом
+ * {@code cache=customersByPhone}.
+ */
+@Component
+public class CustomerPhoneCache {
+    static final String NAME = "customersByPhone";
+
+    private final Cache<String, CustomerSummary> customers;
+
+    public CustomerPhoneCache(@Value("${customer.phone-cache.max-size:10000}") long maxSize,
+                              @Value("${customer.phone-cache.ttl:1h}") Duration ttl,
+                              MeterRegistry meterRegistry) {
+        this.customers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, NAME);
+        Gauge.builder("cache.hit.ratio", customers, cache -> cache.stats().hitRate())
+                .description("Доля обращений к кэшу клиентов по номеру телефона, найденных в кэше")
+                .tag("cache", NAME)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Получает клиента из кэша или загружает его. Отсутствующий клиент не кэшируется.
+     *
+     * @param phoneNumber Нормализованный номер телефона.
+     * @param loader      Загрузка клиента по номеру; возвращает null, если клиент не найден.
+     * @return Клиент или null.
+     */
+    public CustomerSummary get(String phoneNumber, Function<String, CustomerSummary> loader) {
+        return customers.get(phoneNumber, loader);
+    }
+
+    /**
+     * Сохраняет клиента под его номером телефона.
+     */
+    public void put(CustomerSummary customer) {
+        customers.put(customer.getPhoneNumber(), customer);
+    }
+
+    /**
+     * Удаляет запись номера телефона. Если номер в этот момент загружается, запись удаляется после загрузки.
+     */
+    public void evict(String phoneNumber) {
+        customers.invalidate(phoneNumber);
+    }
+}
@@ -1,18 +1,27 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.dto.CursorPage;
 import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.CustomerSummary;
 import com.example.carwashapi.exception.CustomerNotFoundException;
 import com.example.carwashapi.exception.NotFoundException;
+import com.example.carwashapi.exception.PhoneNumberConflictException;
 import com.example.carwashapi.model.Customer;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface CustomerService {
     public Customer getCustomerById(Long customerId) throws NotFoundException;
-    public long getRemainingTimeUntilNextBooking(Customer customer);
-    public Customer getCustomerByPhoneNumber(String phoneNumber) throws CustomerNotFoundException;
-    public Customer createCustomer(CustomerRequest customerRequest);
-    public List<Customer> getAllCustomers();
-    public Customer updateCustomer(Long customerId, CustomerRequest customerRequest) throws CustomerNotFoundException;
+    public CustomerSummary getCustomerSummaryById(Long customerId) throws NotFoundException;
+    public long getRemainingTimeUntilNextBooking(String phoneNumber) throws CustomerNotFoundException;
+    public CustomerSummary getCustomerByPhoneNumber(String phoneNumber) throws CustomerNotFoundException;
+    public Customer createCustomer(CustomerRequest customerRequest) throws PhoneNumberConflictException;
+    public List<CustomerSummary> getAllCustomers();
+    public CursorPage<CustomerSummary> getCustomersPage(Long afterId, int limit);
+    public void exportCustomers(OutputStream out) throws IOException;
+    public Customer updateCustomer(Long customerId, CustomerRequest customerRequest)
+            throws CustomerNotFoundException, PhoneNumberConflictException;
     public void deleteCustomer(Long customerId);
 }
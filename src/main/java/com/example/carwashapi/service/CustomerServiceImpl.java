@@ -1,18 +1,36 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.dto.CursorPage;
+import com.example.carwashapi.dto.CustomerNextBooking;
 import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.CustomerSummary;
 import com.example.carwashapi.exception.CustomerNotFoundException;
 import com.example.carwashapi.exception.NotFoundException;
+import com.example.carwashapi.exception.PhoneNumberConflictException;
 import com.example.carwashapi.model.Booking;
 import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.repository.BookingRepository;
 import com.example.carwashapi.repository.CustomerRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Сервис для управления клиентами и их бронированиями.
@@ -20,11 +38,25 @@ import java.util.Optional;
 @Service
 @Slf4j
 public class CustomerServiceImpl implements CustomerService{
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String PHONE_NUMBER_KEY = "customer_phone_number_key";
 
     private final CustomerRepository customerRepository;
+    private final NdjsonExporter ndjsonExporter;
+    private final CustomerPhoneCache phoneCache;
+    private final BookingRepository bookingRepository;
+    private final BookingRemover bookingRemover;
+    private final TransactionTemplate transactionTemplate;
 
-    public CustomerServiceImpl(CustomerRepository customerRepository) {
+    public CustomerServiceImpl(CustomerRepository customerRepository, NdjsonExporter ndjsonExporter,
+                               CustomerPhoneCache phoneCache, BookingRepository bookingRepository,
+                               BookingRemover bookingRemover, TransactionTemplate transactionTemplate) {
         this.customerRepository = customerRepository;
+        this.ndjsonExporter = ndjsonExporter;
+        this.phoneCache = phoneCache;
+        this.bookingRepository = bookingRepository;
+        this.bookingRemover = bookingRemover;
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -41,45 +73,65 @@ public class CustomerServiceImpl implements CustomerService{
     }
 
     /**
-     * Получает оставшееся время до следующего бронирования клиента.
+     * Получает представление клиента по его идентификатору без загрузки сущности в контекст персистентности.
      *
-     * @param customer Клиент, для которого нужно определить время до бронирования.
-     * @return Оставшееся время до ближайшего бронирования клиента в минутах, или -1, если у клиента нет броней.
+     * @param customerId Идентификатор клиента.
+     * @return Клиент с указанным идентификатором.
+     * @throws NotFoundException если клиент не найден.
      */
-    public long getRemainingTimeUntilNextBooking(Customer customer) {
-        if (customer == null || customer.getBookings() == null) {
-            return -1; // Если клиент не найден или у клиента нет броней, возвращаем -1.
-        }
-        if (customer.getBookings().isEmpty()) {
-            return -1; // Если у клиента нет броней, возвращаем -1, как индикатор отсутствия ближайших броней.
-        }
-
-        LocalDateTime currentTime = LocalDateTime.now();
-        long remainingMinutes = Long.MAX_VALUE;
+    @Transactional(readOnly = true)
+    public CustomerSummary getCustomerSummaryById(Long customerId) throws NotFoundException {
+        log.info("Поиск клиента по ID: {}", customerId);
+        return customerRepository.findSummaryById(customerId)
+                .orElseThrow(() -> new NotFoundException("Customer not found with id: " + customerId));
+    }
 
-        for (Booking booking : customer.getBookings()) {
-            LocalDateTime bookingStartTime = booking.getStartTime();
+    /**
+     * Получает клиентов по набору идентификаторов одним запросом.
+     *
+     * @param customerIds Идентификаторы клиентов.
+     * @return Найденные клиенты по идентификатору; отсутствующие идентификаторы в результат не входят.
+     */
+    public Map<Long, Customer> getCustomersById(Collection<Long> customerIds) {
+        log.info("Поиск {} клиентов по ID", customerIds.size());
+        return customerRepository.findAllById(customerIds).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+    }
 
-            if (bookingStartTime.isAfter(currentTime)) {
-                long minutesUntilBooking = ChronoUnit.MINUTES.between(currentTime, bookingStartTime);
-                remainingMinutes = Math.min(remainingMinutes, minutesUntilBooking);
-            }
+    /**
+     * Получает оставшееся время до следующего бронирования клиента одним запросом к базе данных.
+     *
+     * @param phoneNumber Номер телефона клиента.
+     * @return Оставшееся время до ближайшего бронирования клиента в минутах, или -1, если будущих броней нет.
+     * @throws CustomerNotFoundException если клиент не найден.
+     */
+    @Transactional(readOnly = true)
+    public long getRemainingTimeUntilNextBooking(String phoneNumber) throws CustomerNotFoundException {
+        LocalDateTime currentTime = LocalDateTime.now();
+        CustomerNextBooking nextBooking = customerRepository.findNextBookingByPhoneNumber(PhoneNumbers.normalize(phoneNumber), currentTime)
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with phone number: " + phoneNumber));
+        if (nextBooking.getNextStartTime() == null) {
+            return -1; // Если у клиента нет будущих броней, возвращаем -1.
         }
-
-        return remainingMinutes == Long.MAX_VALUE ? -1 : remainingMinutes;
+        return ChronoUnit.MINUTES.between(currentTime, nextBooking.getNextStartTime());
     }
 
     /**
-     * Получает клиента по номеру телефона.
+     * Получает клиента по номеру телефона. Повторные запросы одного номера обслуживаются из кэша
+     * без обращения к базе данных.
      *
-     * @param phoneNumber Номер телефона клиента.
+     * @param phoneNumber Номер телефона клиента в любом формате.
      * @return Клиент с указанным номером телефона.
      * @throws CustomerNotFoundException если клиент не найден.
      */
-    public Customer getCustomerByPhoneNumber(String phoneNumber) throws CustomerNotFoundException {
+    public CustomerSummary getCustomerByPhoneNumber(String phoneNumber) throws CustomerNotFoundException {
         log.info("Поиск клиента по номеру телефона: {}", phoneNumber);
-        return customerRepository.findByPhoneNumber(phoneNumber)
-                .orElseThrow(() -> new CustomerNotFoundException("Customer not found with phone number: " + phoneNumber));
+        CustomerSummary customer = phoneCache.get(PhoneNumbers.normalize(phoneNumber),
+                normalized -> customerRepository.findSummaryByPhoneNumber(normalized).orElse(null));
+        if (customer == null) {
+            throw new CustomerNotFoundException("Customer not found with phone number: " + phoneNumber);
+        }
+        return customer;
     }
 
     /**
@@ -87,11 +139,14 @@ public class CustomerServiceImpl implements CustomerService{
      *
      * @param customerRequest Данные для создания клиента.
      * @return Созданный клиент.
+     * @throws PhoneNumberConflictException если номер телефона уже принадлежит другому клиенту.
      */
-    public Customer createCustomer(CustomerRequest customerRequest) {
+    public Customer createCustomer(CustomerRequest customerRequest) throws PhoneNumberConflictException {
         log.info("Создание нового клиента: {}", customerRequest.getName());
-        Customer customer = new Customer(customerRequest.getName(),customerRequest.getPhoneNumber());
-        return customerRepository.save(customer);
+        Customer customer = new Customer(customerRequest.getName(), PhoneNumbers.normalize(customerRequest.getPhoneNumber()));
+        Customer saved = saveCustomer(customer);
+        phoneCache.put(CustomerSummary.of(saved));
+        return saved;
     }
 
     /**
@@ -99,9 +154,38 @@ public class CustomerServiceImpl implements CustomerService{
      *
      * @return Список всех клиентов.
      */
-    public List<Customer> getAllCustomers() {
+    @Transactional(readOnly = true)
+    public List<CustomerSummary> getAllCustomers() {
         log.info("Получение списка всех клиентов");
-        return customerRepository.findAll();
+        return customerRepository.findAllSummaries();
+    }
+
+    /**
+     * Получает страницу клиентов в порядке возрастания идентификатора (keyset-пагинация).
+     *
+     * @param afterId Идентификатор последнего клиента предыдущей страницы или null для первой страницы.
+     * @param limit   Размер страницы (не более {@value CursorPage#MAX_LIMIT}).
+     * @return Страница клиентов и курсор следующей страницы.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CustomerSummary> getCustomersPage(Long afterId, int limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        log.info("Получение страницы клиентов после ID {} размером {}", afterId, pageSize);
+        List<CustomerSummary> customers = customerRepository.findSummaryPageAfter(afterId != null ? afterId : 0L,
+                PageRequest.of(0, pageSize));
+        return CursorPage.of(customers, pageSize, CustomerSummary::getId);
+    }
+
+    /**
+     * Выгружает всех клиентов в формате NDJSON.
+     *
+     * @param out Поток, в который записываются клиенты.
+     */
+    @Transactional(readOnly = true)
+    public void exportCustomers(OutputStream out) throws IOException {
+        log.info("Выгрузка всех клиентов");
+        ndjsonExporter.export(out, "SELECT id, name, phone_number FROM customer ORDER BY id", (rs, rowNum) ->
+                new CustomerSummary(rs.getLong("id"), rs.getString("name"), rs.getString("phone_number")));
     }
 
     /**
@@ -111,27 +195,69 @@ public class CustomerServiceImpl implements CustomerService{
      * @param customerRequest Данные для обновления клиента.
      * @return Обновленный клиент.
      * @throws CustomerNotFoundException если клиент не найден.
+     * @throws PhoneNumberConflictException если номер телефона уже принадлежит другому клиенту.
      */
-    public Customer updateCustomer(Long customerId, CustomerRequest customerRequest) throws CustomerNotFoundException {
+    public Customer updateCustomer(Long customerId, CustomerRequest customerRequest)
+            throws CustomerNotFoundException, PhoneNumberConflictException {
         log.info("Обновление клиента с ID: {}", customerId);
         Optional<Customer> optionalCustomer = customerRepository.findById(customerId);
         if (optionalCustomer.isPresent()) {
             Customer existingCustomer = optionalCustomer.get();
+            String previousPhoneNumber = existingCustomer.getPhoneNumber();
             existingCustomer.setName(customerRequest.getName());
-            existingCustomer.setPhoneNumber(customerRequest.getPhoneNumber());
-            return customerRepository.save(existingCustomer);
+            existingCustomer.setPhoneNumber(PhoneNumbers.normalize(customerRequest.getPhoneNumber()));
+            Customer saved = saveCustomer(existingCustomer);
+            phoneCache.evict(previousPhoneNumber);
+            phoneCache.put(CustomerSummary.of(saved));
+            return saved;
         } else {
             throw new CustomerNotFoundException("Customer not found");
         }
     }
 
     /**
-     * Удаляет клиента по его идентификатору.
+     * Удаляет клиента по его идентификатору вместе с его бронированиями. Бронирования отменяются
+     * так же, как при {@link BookingService#deleteBooking}: в той же транзакции записываются события
+     * CANCELLED, а после фиксации освобождаются слоты в индексе пересечений и календаре доступности.
      *
      * @param customerId Идентификатор клиента, который требуется удалить.
      */
     public void deleteCustomer(Long customerId) {
         log.info("Удаление клиента с ID: {}", customerId);
-        customerRepository.deleteById(customerId);
+        List<Booking> bookings = new ArrayList<>();
+        Customer customer = transactionTemplate.execute(status -> {
+            Customer existing = customerRepository.findById(customerId)
+                    .orElseThrow(() -> new EmptyResultDataAccessException("Customer not found", 1));
+            bookings.addAll(bookingRepository.findByCustomerId(customerId));
+            bookingRemover.delete(bookings);
+            customerRepository.delete(existing);
+            return existing;
+        });
+        bookingRemover.deleted(bookings);
+        phoneCache.evict(customer.getPhoneNumber());
+    }
+
+    /**
+     * Сохраняет клиента. Номер телефона уникален (индекс customer_phone_number_key),
+     * поэтому повторное использование номера другим клиентом завершается ошибкой.
+     */
+    private Customer saveCustomer(Customer customer) throws PhoneNumberConflictException {
+        try {
+            return customerRepository.save(customer);
+        } catch (DataIntegrityViolationException e) {
+            if (isPhoneNumberViolation(e)) {
+                throw new PhoneNumberConflictException("Customer already exists with phone number: " + customer.getPhoneNumber());
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isPhoneNumberViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return String.valueOf(cause.getMessage()).contains(PHONE_NUMBER_KEY);
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,47 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.repository.BookingRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Проверка пересечений бронирований запросом занятых боксов к базе данных.
+ */
+@org.springframework.stereotype.Service
+@ConditionalOnProperty(name = "booking.conflict-engine", havingValue = "database")
+public class DatabaseConflictDetector implements BookingConflictDetector {
+    private final BookingRepository bookingRepository;
+
+    public DatabaseConflictDetector(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Находит свободный бокс услуги на указанное время.
+     *
+     * @param service           Услуга бронирования.
+     * @param startTime         Начальное время бронирования.
+     * @param endTime           Конечное время бронирования.
+     * @param excludedBookingId Идентификатор бронирования, исключаемого из проверки, или null.
+     * @return Номер свободного бокса или пустое значение, если все боксы заняты.
+     */
+    public OptionalInt findFreeBay(Service service, LocalDateTime startTime, LocalDateTime endTime, Long excludedBookingId) {
+        List<Integer> occupiedBays = excludedBookingId == null
+                ? bookingRepository.findOccupiedBays(service.getId(), startTime, endTime)
+                : bookingRepository.findOccupiedBaysWithId(service.getId(), startTime, endTime, excludedBookingId);
+        return BookingConflictDetector.firstFreeBay(occupiedBays, service.getBays());
+    }
+
+    public void bookingSaved(Booking booking) {
+        // Состояние хранится только в базе данных.
+    }
+
+    public void bookingDeleted(Long bookingId) {
+        // Состояние хранится только в базе данных.
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.FreeWindow;
+import com.example.carwashapi.dto.TimeslotSummary;
+import com.example.carwashapi.model.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Поиск самых ранних свободных слотов среди нескольких услуг.
+ * <p>
+ * Слоты каждой услуги читаются по одному дню и уже отсортированы по времени начала, поэтому результат
+ * собирается k-путевым слиянием: в очереди с приоритетом у каждой услуги либо первый ещё не выданный слот,
+ * либо начало следующего непрочитанного дня. Очередной день услуги читается, только когда её граница
+ * оказывается наименьшей; поиск останавливается, как только найдено нужное количество слотов.
+ * Услуги без свободных слотов поэтому читаются лишь до времени последнего найденного слота.
+ */
+final class FreeWindowSearch {
+    /**
+     * Наибольшее количество слотов в одном ответе.
+     */
+    static final int MAX_LIMIT = 100;
+
+    /**
+     * Чтение свободных слотов услуги, начинающихся в интервале [from, to), в порядке времени начала.
+     */
+    @FunctionalInterface
+    interface SlotReader {
+        List<TimeslotSummary> read(Service service, LocalDateTime from, LocalDateTime to);
+    }
+
+    private FreeWindowSearch() {
+    }
+
+    /**
+     * Находит не более limit самых ранних свободных слотов услуг, начинающихся в интервале [from, to).
+     * При одинаковом времени начала раньше идёт услуга с меньшим идентификатором.
+     *
+     * @param services Услуги, среди которых выполняется поиск.
+     * @param from     Начало интервала (включительно).
+     * @param to       Конец интервала (не включительно).
+     * @param limit    Наибольшее количество слотов.
+     * @param filter   Условие, которому должен удовлетворять слот.
+     * @param reader   Чтение свободных слотов услуги.
+     * @return Слоты в порядке времени начала.
+     */
+    static List<FreeWindow> earliest(Collection<Service> services, LocalDateTime from, LocalDateTime to, int limit,
+                                     Predicate<TimeslotSummary> filter, SlotReader reader) {
+        List<FreeWindow> result = new ArrayList<>(Math.min(limit, MAX_LIMIT));
+        if (!from.isBefore(to)) {
+            return result;
+        }
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, services.size()));
+        services.forEach(service -> queue.add(new Cursor(service, from)));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Cursor cursor = queue.poll();
+            if (cursor.pending.isEmpty()) {
+                cursor.readNextDay(to, filter, reader);
+            } else {
+                TimeslotSummary timeslot = cursor.pending.poll();
+                Service service = cursor.service;
+                result.add(new FreeWindow(timeslot.getId(), service.getId(), service.getName(), service.getPrice(),
+                        timeslot.getStartTime(), timeslot.getEndTime()));
+            }
+            if (!cursor.pending.isEmpty() || cursor.nextDay.isBefore(to)) {
+                queue.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Позиция слияния в слотах одной услуги: прочитанные, но не выданные слоты и начало следующего дня.
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        final Service service;
+        final Deque<TimeslotSummary> pending = new ArrayDeque<>();
+        LocalDateTime nextDay;
+
+        Cursor(Service service, LocalDateTime from) {
+            this.service = service;
+            this.nextDay = from;
+        }
+
+        void readNextDay(LocalDateTime to, Predicate<TimeslotSummary> filter, SlotReader reader) {
+            LocalDateTime dayEnd = nextDay.toLocalDate().plusDays(1).atStartOfDay();
+            if (dayEnd.isAfter(to)) {
+                dayEnd = to;
+            }
+            for (TimeslotSummary timeslot : reader.read(service, nextDay, dayEnd)) {
+                if (filter.test(timeslot)) {
+                    pending.add(timeslot);
+                }
+            }
+            nextDay = dayEnd;
+        }
+
+        /**
+         * Наименьшее время начала, которое может выдать услуга.
+         */
+        LocalDateTime key() {
+            return pending.isEmpty() ? nextDay : pending.peek().getStartTime();
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int byTime = key().compareTo(other.key());
+            if (byTime != 0) {
+                return byTime;
+            }
+            // Непрочитанный день может начинаться со слота в то же время: сначала читаем его.
+            int byPending = Boolean.compare(!pending.isEmpty(), !other.pending.isEmpty());
+            if (byPending != 0) {
+                return byPending;
+            }
+            return service.getId().compareTo(other.service.getId());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingInterval;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Проверка пересечений бронирований по индексу интервалов в памяти.
+ * <p>
+ * Индекс загружается после старта приложения и обновляется при каждой записи бронирования.
+ * Если по индексу есть свободный бокс, он возвращается без обращения к базе данных;
+ * если все боксы заняты, результат подтверждается запросом к базе данных, чтобы устаревшая запись
+ * в индексе не приводила к ложному отказу. До окончания загрузки все проверки выполняются
+ * через базу данных.
+ */
+@Slf4j
+@org.springframework.stereotype.Service
+@ConditionalOnProperty(name = "booking.conflict-engine", havingValue = "interval-index", matchIfMissing = true)
+public class IntervalIndexConflictDetector implements BookingConflictDetector {
+    private final BookingRepository bookingRepository;
+    private final DatabaseConflictDetector databaseDetector;
+    private final BookingIntervalIndex index = new BookingIntervalIndex();
+    private volatile boolean loaded;
+
+    public IntervalIndexConflictDetector(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+        this.databaseDetector = new DatabaseConflictDetector(bookingRepository);
+    }
+
+    /**
+     * Загружает все бронирования в индекс.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        log.info("Загрузка индекса интервалов бронирований");
+        List<BookingInterval> intervals = bookingRepository.findAllIntervals();
+        intervals.forEach(index::put);
+        loaded = true;
+        log.info("Индекс интервалов бронирований загружен: {} записей", index.size());
+    }
+
+    public OptionalInt findFreeBay(Service service, LocalDateTime startTime, LocalDateTime endTime, Long excludedBookingId) {
+        if (loaded) {
+            OptionalInt freeBay = BookingConflictDetector.firstFreeBay(
+                    index.findOccupiedBays(service.getId(), startTime, endTime, excludedBookingId), service.getBays());
+            if (freeBay.isPresent()) {
+                return freeBay;
+            }
+        }
+        return databaseDetector.findFreeBay(service, startTime, endTime, excludedBookingId);
+    }
+
+    public void bookingSaved(Booking booking) {
+        index.put(BookingInterval.of(booking));
+    }
+
+    public void bookingDeleted(Long bookingId) {
+        index.remove(bookingId);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.carwashapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Выгрузка таблиц в формате NDJSON (один JSON-объект на строку) напрямую из курсора JDBC.
+ * <p>
+ * Запрос выполняется в транзакции только для чтения с ограниченным fetch size, поэтому драйвер
+ * PostgreSQL читает строки порциями через серверный курсор, а каждая строка сразу сериализуется
+ * в поток ответа. Потребление памяти не зависит от размера таблицы.
+ */
+@Component
+public class NdjsonExporter {
+    static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowWriter;
+
+    public NdjsonExporter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Выполняет запрос и записывает каждую строку результата в out как отдельную строку JSON.
+     *
+     * @param out       Поток ответа.
+     * @param sql       SQL-запрос выгрузки.
+     * @param rowMapper Преобразование строки результата в сериализуемый объект.
+     */
+    public <T> void export(OutputStream out, String sql, RowMapper<T> rowMapper) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql, rs -> {
+                try {
+                    rowWriter.writeValue(generator, rowMapper.mapRow(rs, rs.getRow()));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.flush();
+    }
+}
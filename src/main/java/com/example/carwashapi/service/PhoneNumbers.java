@@ -0,0 +1,28 @@
+package com.example.carwashapi.service;
+
+/**
+ * Приведение номеров телефонов к единому виду: номер хранится и ищется только в нормализованной форме.
+ */
+public final class PhoneNumbers {
+
+    private PhoneNumbers() {
+    }
+
+    /**
+     * Оставляет в номере только цифры и ведущий «+»: {@code "+7 (901) 234-56-78"} → {@code "+79012345678"}.
+     */
+    public static String normalize(String phoneNumber) {
+        String trimmed = phoneNumber.trim();
+        StringBuilder normalized = new StringBuilder(trimmed.length());
+        if (trimmed.startsWith("+")) {
+            normalized.append('+');
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c >= '0' && c <= '9') {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.config.CacheConfig;
 import com.example.carwashapi.dto.ServiceRequest;
 import com.example.carwashapi.exception.ServiceNotFoundException;
 import com.example.carwashapi.model.Service;
 import com.example.carwashapi.repository.ServiceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 
 import java.util.List;
 
 /**
  * Сервис для управления услугами.
+ * Чтение каталога кэшируется; любые изменения через этот сервис очищают затронутые записи кэша.
+ * Каталог читается с основного источника данных, а не с реплики: кэш, заполненный сразу после изменения
+ * с отстающей реплики, хранил бы устаревшую услугу до истечения TTL.
  */
 @org.springframework.stereotype.Service
 public class ServiceServiceImpl implements ServiceService{
@@ -26,9 +33,10 @@ public class ServiceServiceImpl implements ServiceService{
      *
      * @return Список всех услуг.
      */
+    @Cacheable(CacheConfig.SERVICE_CATALOG)
     public List<Service> getAllServices() {
         logger.info("Запрос всех услуг");
-        return repository.findAll();
+        return List.copyOf(repository.findAll());
     }
 
     /**
@@ -38,6 +46,7 @@ public class ServiceServiceImpl implements ServiceService{
      * @return Услуга с указанным идентификатором.
      * @throws ServiceNotFoundException если услуга не найдена.
      */
+    @Cacheable(CacheConfig.SERVICES)
     public Service getServiceById(Long serviceId) throws ServiceNotFoundException {
         logger.info("Запрос услуги по ID: {}", serviceId);
         return repository.findById(serviceId)
@@ -53,11 +62,15 @@ public class ServiceServiceImpl implements ServiceService{
      * @param serviceRequest Данные для создания новой услуги.
      * @return Созданная услуга.
      */
+    @CacheEvict(value = CacheConfig.SERVICE_CATALOG, allEntries = true)
     public Service addService(ServiceRequest serviceRequest) {
         logger.info("Добавление новой услуги: {}", serviceRequest.getName());
         Service service = new Service();
         service.setName(serviceRequest.getName());
         service.setPrice(serviceRequest.getPrice());
+        if (serviceRequest.getBays() != null) {
+            service.setBays(serviceRequest.getBays());
+        }
         return repository.save(service);
     }
 
@@ -67,6 +80,10 @@ public class ServiceServiceImpl implements ServiceService{
      * @param serviceId Идентификатор услуги, которую требуется удалить.
      * @throws ServiceNotFoundException если услуга не найдена.
      */
+    @Caching(evict = {
+            @CacheEvict(CacheConfig.SERVICES),
+            @CacheEvict(value = CacheConfig.SERVICE_CATALOG, allEntries = true)
+    })
     public void deleteService(Long serviceId) throws ServiceNotFoundException {
         logger.info("Удаление услуги по ID: {}", serviceId);
         if (!repository.existsById(serviceId)) {
@@ -84,6 +101,10 @@ public class ServiceServiceImpl implements ServiceService{
      * @return Обновленная услуга.
      * @throws ServiceNotFoundException если услуга не найдена.
      */
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.SERVICES, key = "#serviceId"),
+            @CacheEvict(value = CacheConfig.SERVICE_CATALOG, allEntries = true)
+    })
     public Service updateService(Long serviceId, ServiceRequest updatedServiceRequest) throws ServiceNotFoundException {
         logger.info("Обновление услуги по ID: {}", serviceId);
         if (!repository.existsById(serviceId)) {
@@ -93,6 +114,9 @@ public class ServiceServiceImpl implements ServiceService{
         Service service = repository.findById(serviceId).get();
         service.setName(updatedServiceRequest.getName());
         service.setPrice(updatedServiceRequest.getPrice());
+        if (updatedServiceRequest.getBays() != null) {
+            service.setBays(updatedServiceRequest.getBays());
+        }
         return repository.save(service);
     }
 }
@@ -0,0 +1,144 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.config.SecondLevelCacheConfig;
+import com.example.carwashapi.dto.TimeslotScheduleRequest;
+import com.example.carwashapi.dto.TimeslotScheduleResult;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.model.Timeslot;
+import com.example.carwashapi.repository.TimeslotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Генерация временных слотов по шаблону расписания.
+ * <p>
+ * Дни шаблона обрабатываются порциями примерно по {@value #CHUNK_SIZE} слотов: для порции одним
+ * запросом читаются времена начала уже существующих слотов услуги, новые слоты вставляются
+ * одним запросом без загрузки сущностей в контекст персистентности.
+ * Потребление памяти не зависит от длины расписания.
+ * <p>
+ * Повторный слот исключает ограничение timeslot_service_start_key (услуга, время начала): вставка
+ * пропускает слоты, которые успел создать параллельный запрос, поэтому генерации не блокируют друг друга.
+ * <p>
+ * Идентификаторы слотов выделяются блоками timeslot_seq ({@link PooledIdAllocator}), а не значением столбца
+ * по умолчанию, которое расходует на каждую строку целый блок последовательности.
+ * <p>
+ * Вставка идёт в обход Hibernate, поэтому после неё сбрасываются кэш запросов свободных слотов
+ * и закэшированная коллекция Service.timeslots: иначе календарь доступности, загружающий день
+ * через кэш запросов, получил бы список слотов без созданных.
+ */
+@Slf4j
+@Component
+public class TimeslotScheduleGenerator {
+    static final int CHUNK_SIZE = 1_000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO timeslot (id, service_id, available, start_time, end_time) " +
+            "SELECT s.id, ?, true, s.start_time, s.start_time + make_interval(mins => ?) FROM unnest(?, ?) AS s(id, start_time) " +
+            "ON CONFLICT (service_id, start_time) DO NOTHING " +
+            "RETURNING id, start_time, end_time";
+
+    private final TimeslotRepository repository;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final JdbcTemplate jdbcTemplate;
+    private final PooledIdAllocator idAllocator;
+    private final Cache secondLevelCache;
+
+    public TimeslotScheduleGenerator(TimeslotRepository repository, AvailabilityCalendar availabilityCalendar,
+                                     JdbcTemplate jdbcTemplate, PooledIdAllocator idAllocator,
+                                     EntityManagerFactory entityManagerFactory) {
+        this.repository = repository;
+        this.availabilityCalendar = availabilityCalendar;
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    /**
+     * Создаёт слоты шаблона, пропуская слоты услуги с тем же временем начала.
+     *
+     * @param service  Услуга, для которой создаются слоты.
+     * @param schedule Шаблон расписания.
+     * @return Количество созданных и пропущенных слотов.
+     */
+    public TimeslotScheduleResult generate(Service service, TimeslotScheduleRequest schedule) {
+        int created = 0;
+        int skipped = 0;
+        List<LocalDateTime> starts = new ArrayList<>(CHUNK_SIZE);
+        LocalDate chunkStart = schedule.getStartDate();
+        for (LocalDate date = schedule.getStartDate(); !date.isAfter(schedule.getEndDate()); date = date.plusDays(1)) {
+            if (schedule.getDaysOfWeek().contains(date.getDayOfWeek())) {
+                addDayStarts(starts, date, schedule);
+            }
+            if (starts.size() >= CHUNK_SIZE || date.equals(schedule.getEndDate())) {
+                int saved = saveChunk(service, starts, chunkStart.atStartOfDay(), date.plusDays(1).atStartOfDay(),
+                        schedule.getSlotMinutes());
+                created += saved;
+                skipped += starts.size() - saved;
+                starts.clear();
+                chunkStart = date.plusDays(1);
+            }
+        }
+        log.info("Расписание услуги {}: создано {} слотов, пропущено {}", service.getId(), created, skipped);
+        return new TimeslotScheduleResult(created, skipped);
+    }
+
+    private static void addDayStarts(List<LocalDateTime> starts, LocalDate date, TimeslotScheduleRequest schedule) {
+        long slots = Duration.between(schedule.getOpeningTime(), schedule.getClosingTime()).toMinutes() / schedule.getSlotMinutes();
+        LocalDateTime opening = date.atTime(schedule.getOpeningTime());
+        for (long i = 0; i < slots; i++) {
+            starts.add(opening.plusMinutes(i * schedule.getSlotMinutes()));
+        }
+    }
+
+    /**
+     * Сохраняет слоты порции, которых еще нет у услуги. Существующие слоты отсеиваются заранее,
+     * чтобы не расходовать на них идентификаторы; созданные параллельно пропускает ON CONFLICT.
+     *
+     * @return Количество сохраненных слотов.
+     */
+    private int saveChunk(Service service, List<LocalDateTime> starts, LocalDateTime from, LocalDateTime to, int slotMinutes) {
+        if (starts.isEmpty()) {
+            return 0;
+        }
+        Set<LocalDateTime> existing = new HashSet<>(repository.findStartTimes(service.getId(), from, to));
+        Timestamp[] newStarts = starts.stream()
+                .filter(start -> !existing.contains(start))
+                .map(Timestamp::valueOf)
+                .toArray(Timestamp[]::new);
+        if (newStarts.length == 0) {
+            return 0;
+        }
+        Long[] ids = Arrays.stream(idAllocator.allocate("timeslot_seq", newStarts.length)).boxed().toArray(Long[]::new);
+        List<Timeslot> timeslots = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+            statement.setLong(1, service.getId());
+            statement.setInt(2, slotMinutes);
+            statement.setArray(3, connection.createArrayOf("bigint", ids));
+            statement.setArray(4, connection.createArrayOf("timestamp", newStarts));
+            return statement;
+        }, (rs, rowNum) -> new Timeslot(rs.getLong("id"), service, rs.getObject("start_time", LocalDateTime.class),
+                rs.getObject("end_time", LocalDateTime.class), true));
+        if (!timeslots.isEmpty()) {
+            secondLevelCache.evictQueryRegion(SecondLevelCacheConfig.AVAILABLE_TIMESLOTS_QUERY_REGION);
+            secondLevelCache.evictCollectionData(Service.class.getName() + ".timeslots", service.getId());
+        }
+        timeslots.forEach(timeslot -> availabilityCalendar.timeslotChanged(null, timeslot));
+        return timeslots.size();
+    }
+}
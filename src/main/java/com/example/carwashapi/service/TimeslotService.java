@@ -1,16 +1,28 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.dto.CursorPage;
 import com.example.carwashapi.dto.TimeslotRequest;
+import com.example.carwashapi.dto.TimeslotScheduleRequest;
+import com.example.carwashapi.dto.TimeslotScheduleResult;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.example.carwashapi.exception.TimeslotConflictException;
 import com.example.carwashapi.exception.TimeslotNotFoundException;
 import com.example.carwashapi.model.Timeslot;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TimeslotService {
-    public List<Timeslot> getAllTimeslots();
-    public Timeslot getTimeslotById(Long timeslotId) throws TimeslotNotFoundException;
-    public Timeslot addTimeslot(TimeslotRequest timeslotRequest) throws ServiceNotFoundException;
+    public List<TimeslotSummary> getAllTimeslots();
+    public CursorPage<TimeslotSummary> getTimeslotsPage(Long afterId, int limit);
+    public void exportTimeslots(OutputStream out) throws IOException;
+    public TimeslotSummary getTimeslotById(Long timeslotId) throws TimeslotNotFoundException;
+    public List<TimeslotSummary> getAvailableTimeslots(Long serviceId, LocalDateTime from, LocalDateTime to);
+    public Timeslot addTimeslot(TimeslotRequest timeslotRequest) throws ServiceNotFoundException, TimeslotConflictException;
+    public TimeslotScheduleResult generateTimeslots(TimeslotScheduleRequest scheduleRequest) throws ServiceNotFoundException;
     public void deleteTimeslot(Long timeslotId) throws TimeslotNotFoundException;
-    public Timeslot updateTimeslot(Long timeslotId, TimeslotRequest updatedTimeslotRequest) throws TimeslotNotFoundException, ServiceNotFoundException;
+    public Timeslot updateTimeslot(Long timeslotId, TimeslotRequest updatedTimeslotRequest) throws TimeslotNotFoundException, ServiceNotFoundException, TimeslotConflictException;
 }
@@ -1,14 +1,26 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.dto.CursorPage;
 import com.example.carwashapi.dto.TimeslotRequest;
+import com.example.carwashapi.dto.TimeslotScheduleRequest;
+import com.example.carwashapi.dto.TimeslotScheduleResult;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.example.carwashapi.exception.TimeslotConflictException;
 import com.example.carwashapi.exception.TimeslotNotFoundException;
 import com.example.carwashapi.model.Timeslot;
 import com.example.carwashapi.repository.TimeslotRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -16,23 +28,64 @@ import java.util.List;
  */
 @Service
 public class TimeslotServiceImpl  implements TimeslotService{
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final TimeslotRepository repository;
     private final ServiceServiceImpl serviceService;
+    private final NdjsonExporter ndjsonExporter;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final TimeslotScheduleGenerator scheduleGenerator;
     private final Logger logger = LoggerFactory.getLogger(TimeslotServiceImpl.class);
 
-    public TimeslotServiceImpl(TimeslotRepository repository, ServiceServiceImpl serviceService) {
+    public TimeslotServiceImpl(TimeslotRepository repository, ServiceServiceImpl serviceService,
+                               NdjsonExporter ndjsonExporter, AvailabilityCalendar availabilityCalendar,
+                               TimeslotScheduleGenerator scheduleGenerator) {
         this.repository = repository;
         this.serviceService = serviceService;
+        this.ndjsonExporter = ndjsonExporter;
+        this.availabilityCalendar = availabilityCalendar;
+        this.scheduleGenerator = scheduleGenerator;
     }
 
     /**
-     * Получает список всех доступных временных слотов.
+     * Получает список всех временных слотов без загрузки сущностей в контекст персистентности.
      *
      * @return Список всех временных слотов.
      */
-    public List<Timeslot> getAllTimeslots() {
+    @Transactional(readOnly = true)
+    public List<TimeslotSummary> getAllTimeslots() {
         logger.info("Запрос всех Timeslot");
-        return repository.findAll();
+        return repository.findAllSummaries();
+    }
+
+    /**
+     * Получает страницу временных слотов в порядке возрастания идентификатора (keyset-пагинация).
+     *
+     * @param afterId Идентификатор последнего слота предыдущей страницы или null для первой страницы.
+     * @param limit   Размер страницы (не более {@value CursorPage#MAX_LIMIT}).
+     * @return Страница временных слотов и курсор следующей страницы.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TimeslotSummary> getTimeslotsPage(Long afterId, int limit) {
+        int pageSize = CursorPage.clampLimit(limit);
+        logger.info("Запрос страницы Timeslot после ID {} размером {}", afterId, pageSize);
+        List<TimeslotSummary> timeslots = repository.findSummaryPageAfter(afterId != null ? afterId : 0L,
+                PageRequest.of(0, pageSize));
+        return CursorPage.of(timeslots, pageSize, TimeslotSummary::getId);
+    }
+
+    /**
+     * Выгружает все временные слоты в формате NDJSON в том же представлении, что и страницы слотов.
+     *
+     * @param out Поток, в который записываются временные слоты.
+     */
+    @Transactional(readOnly = true)
+    public void exportTimeslots(OutputStream out) throws IOException {
+        logger.info("Выгрузка всех Timeslot");
+        ndjsonExporter.export(out, "SELECT id, service_id, start_time, end_time, available FROM timeslot ORDER BY id",
+                (rs, rowNum) -> new TimeslotSummary(rs.getLong("id"), rs.getObject("service_id", Long.class),
+                        rs.getObject("start_time", LocalDateTime.class), rs.getObject("end_time", LocalDateTime.class),
+                        rs.getBoolean("available")));
     }
 
     /**
@@ -42,23 +95,39 @@ public class TimeslotServiceImpl  implements TimeslotService{
      * @return Временный слот с указанным идентификатором.
      * @throws TimeslotNotFoundException если временный слот не найден.
      */
-    public Timeslot getTimeslotById(Long timeslotId) throws TimeslotNotFoundException {
+    @Transactional(readOnly = true)
+    public TimeslotSummary getTimeslotById(Long timeslotId) throws TimeslotNotFoundException {
         logger.info("Запрос Timeslot по ID: {}", timeslotId);
-        return repository.findById(timeslotId)
+        return repository.findSummaryById(timeslotId)
                 .orElseThrow(() -> {
                     logger.error("Timeslot с ID {} не найден", timeslotId);
                     return new TimeslotNotFoundException("Timeslot not found");
                 });
     }
 
+    /**
+     * Получает свободные временные слоты услуги, начинающиеся в интервале [from, to).
+     *
+     * @param serviceId Идентификатор услуги.
+     * @param from      Начало интервала (включительно).
+     * @param to        Конец интервала (не включительно).
+     * @return Список свободных временных слотов в порядке времени начала.
+     */
+    @Transactional(readOnly = true)
+    public List<TimeslotSummary> getAvailableTimeslots(Long serviceId, LocalDateTime from, LocalDateTime to) {
+        logger.info("Запрос свободных Timeslot услуги {} с {} по {}", serviceId, from, to);
+        return repository.findAvailableByServiceId(serviceId, from, to);
+    }
+
     /**
      * Добавляет новый временный слот.
      *
      * @param timeslotRequest Данные для создания нового временного слота.
      * @return Созданный временный слот.
-     * @throws ServiceNotFoundException если услуга не найдена.
+     * @throws ServiceNotFoundException  если услуга не найдена.
+     * @throws TimeslotConflictException если у услуги уже есть слот с тем же временем начала.
      */
-    public Timeslot addTimeslot(TimeslotRequest timeslotRequest) throws ServiceNotFoundException {
+    public Timeslot addTimeslot(TimeslotRequest timeslotRequest) throws ServiceNotFoundException, TimeslotConflictException {
         logger.info("Добавление нового Timeslot");
         com.example.carwashapi.model.Service service = serviceService.getServiceById(timeslotRequest.getServiceId());
         Timeslot timeslot = new Timeslot();
@@ -66,7 +135,24 @@ public class TimeslotServiceImpl  implements TimeslotService{
         timeslot.setStartTime(timeslotRequest.getStartTime());
         timeslot.setEndTime(timeslotRequest.getEndTime());
         timeslot.setAvailable(timeslotRequest.isAvailable());
-        return repository.save(timeslot);
+        Timeslot savedTimeslot = saveTimeslot(timeslot);
+        availabilityCalendar.timeslotChanged(null, savedTimeslot);
+        return savedTimeslot;
+    }
+
+    /**
+     * Создает временные слоты по шаблону расписания. Слоты услуги, которые уже существуют
+     * с тем же временем начала, пропускаются.
+     *
+     * @param scheduleRequest Шаблон расписания.
+     * @return Количество созданных и пропущенных слотов.
+     * @throws ServiceNotFoundException если услуга не найдена.
+     */
+    public TimeslotScheduleResult generateTimeslots(TimeslotScheduleRequest scheduleRequest) throws ServiceNotFoundException {
+        logger.info("Генерация Timeslot услуги {} с {} по {}", scheduleRequest.getServiceId(),
+                scheduleRequest.getStartDate(), scheduleRequest.getEndDate());
+        com.example.carwashapi.model.Service service = serviceService.getServiceById(scheduleRequest.getServiceId());
+        return scheduleGenerator.generate(service, scheduleRequest);
     }
 
     /**
@@ -77,11 +163,13 @@ public class TimeslotServiceImpl  implements TimeslotService{
      */
     public void deleteTimeslot(Long timeslotId) throws TimeslotNotFoundException {
         logger.info("Удаление Timeslot по ID: {}", timeslotId);
-        if (!repository.existsById(timeslotId)) {
-            logger.error("Timeslot с ID {} не найден и не может быть удален", timeslotId);
-            throw new TimeslotNotFoundException("Timeslot not found");
-        }
-        repository.deleteById(timeslotId);
+        Timeslot timeslot = repository.findById(timeslotId)
+                .orElseThrow(() -> {
+                    logger.error("Timeslot с ID {} не найден и не может быть удален", timeslotId);
+                    return new TimeslotNotFoundException("Timeslot not found");
+                });
+        repository.delete(timeslot);
+        availabilityCalendar.timeslotChanged(timeslot, null);
     }
 
     /**
@@ -92,9 +180,10 @@ public class TimeslotServiceImpl  implements TimeslotService{
      * @return Обновленный временный слот.
      * @throws TimeslotNotFoundException если временный слот не найден.
      * @throws ServiceNotFoundException  если услуга не найдена.
+     * @throws TimeslotConflictException если у услуги уже есть другой слот с тем же временем начала.
      */
     public Timeslot updateTimeslot(Long timeslotId, TimeslotRequest updatedTimeslotRequest)
-            throws TimeslotNotFoundException, ServiceNotFoundException {
+            throws TimeslotNotFoundException, ServiceNotFoundException, TimeslotConflictException {
         logger.info("Обновление Timeslot по ID: {}", timeslotId);
         if (!repository.existsById(timeslotId)) {
             logger.error("Timeslot с ID {} не найден и не может быть обновлен", timeslotId);
@@ -102,10 +191,39 @@ public class TimeslotServiceImpl  implements TimeslotService{
         }
         com.example.carwashapi.model.Service service = serviceService.getServiceById(updatedTimeslotRequest.getServiceId());
         Timeslot timeslot = repository.findById(timeslotId).get();
+        Timeslot previous = new Timeslot(timeslot.getId(), timeslot.getService(), timeslot.getStartTime(),
+                timeslot.getEndTime(), timeslot.isAvailable());
         timeslot.setService(service);
         timeslot.setStartTime(updatedTimeslotRequest.getStartTime());
         timeslot.setEndTime(updatedTimeslotRequest.getEndTime());
         timeslot.setAvailable(updatedTimeslotRequest.isAvailable());
-        return repository.save(timeslot);
+        Timeslot savedTimeslot = saveTimeslot(timeslot);
+        availabilityCalendar.timeslotChanged(previous, savedTimeslot);
+        return savedTimeslot;
+    }
+
+    /**
+     * Сохраняет временный слот. Время начала слота уникально в пределах услуги
+     * (ограничение timeslot_service_start_key).
+     */
+    private Timeslot saveTimeslot(Timeslot timeslot) throws TimeslotConflictException {
+        try {
+            return repository.save(timeslot);
+        } catch (DataIntegrityViolationException e) {
+            if (!isUniqueViolation(e)) {
+                throw e;
+            }
+            logger.error("Timeslot услуги {} на {} уже существует", timeslot.getService().getId(), timeslot.getStartTime());
+            throw new TimeslotConflictException("Timeslot already exists at " + timeslot.getStartTime());
+        }
+    }
+
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+-- Исходящие события жизненного цикла бронирований (transactional outbox): строка пишется в той же транзакции,
+-- что и изменение бронирования, и удаляется после публикации BookingEventRelay.
+-- Хранится состояние бронирования на момент события; для отменённых — последнее состояние перед удалением.
+CREATE SEQUENCE IF NOT EXISTS public.booking_outbox_seq INCREMENT 1 START 1;
+
+CREATE TABLE IF NOT EXISTS public.booking_outbox
+(
+    id bigint NOT NULL DEFAULT nextval('public.booking_outbox_seq'),
+    event_type character varying(16) NOT NULL,
+    booking_id bigint NOT NULL,
+    service_id bigint NOT NULL,
+    customer_id bigint NOT NULL,
+    start_time timestamp without time zone NOT NULL,
+    end_time timestamp without time zone NOT NULL,
+    bay integer NOT NULL,
+    occurred_at timestamp without time zone NOT NULL,
+    CONSTRAINT booking_outbox_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,208 @@
+-- Помесячное секционирование booking и timeslot по start_time.
+--
+-- Секция месяца называется <таблица>_pYYYY_MM. Строки вне созданных секций попадают в секцию <таблица>_default.
+-- Будущие секции создаёт, а старые отсоединяет BookingPartitionManager через функции ниже.
+--
+-- Первичный и уникальные ключи секционированной таблицы обязаны включать ключ секционирования,
+-- поэтому первичный ключ теперь (id, start_time). Идентификаторы по-прежнему выдаются последовательностями
+-- и уникальны. Внешних ключей на booking и timeslot нет.
+--
+-- PostgreSQL до 17-й версии не поддерживает ограничения исключения на секционированной таблице,
+-- поэтому booking_no_overlap создаётся в каждой секции, а пересечения бронирований из разных секций
+-- запрещает триггер booking_no_overlap_across_partitions (см. ниже).
+
+-- Создаёт секцию месяца month_start таблицы parent. Строки этого месяца из секции по умолчанию переносятся в новую секцию.
+-- Возвращает false, если секция уже есть.
+CREATE OR REPLACE FUNCTION create_month_partition(parent text, month_start date) RETURNS boolean
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    lower_bound timestamp := date_trunc('month', month_start::timestamp);
+    upper_bound timestamp := date_trunc('month', month_start::timestamp) + interval '1 month';
+    partition_name text := parent || '_p' || to_char(lower_bound, 'YYYY_MM');
+    default_name text := parent || '_default';
+    column_list text;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    -- Генерируемые столбцы (booking.during) вычисляются заново при вставке.
+    SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum) INTO column_list
+    FROM pg_attribute
+    WHERE attrelid = parent::regclass AND attnum > 0 AND NOT attisdropped AND attgenerated = '';
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING CONSTRAINTS)',
+                   partition_name, parent);
+    -- Ограничение диапазона заранее, чтобы ATTACH PARTITION не сканировал секцию повторно.
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (start_time >= %L AND start_time < %L)',
+                   partition_name, partition_name || '_range', lower_bound, upper_bound);
+    IF parent = 'booking' THEN
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist (service_id WITH =, bay WITH =, during WITH &&)',
+                       partition_name, partition_name || '_no_overlap');
+    END IF;
+
+    IF to_regclass(default_name) IS NOT NULL THEN
+        EXECUTE format('WITH moved AS (DELETE FROM %I WHERE start_time >= %L AND start_time < %L RETURNING %s) '
+                           'INSERT INTO %I (%s) SELECT %s FROM moved',
+                       default_name, lower_bound, upper_bound, column_list, partition_name, column_list, column_list);
+    END IF;
+
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent, partition_name, lower_bound, upper_bound);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+    RETURN true;
+END;
+$$;
+
+-- Отсоединяет от parent месячные секции, закончившиеся не позже detach_before, и переносит их в схему archive.
+-- Возвращает имена отсоединённых секций.
+CREATE OR REPLACE FUNCTION detach_month_partitions(parent text, detach_before timestamp) RETURNS SETOF text
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    partition_name text;
+BEGIN
+    CREATE SCHEMA IF NOT EXISTS archive;
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+                 JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent::regclass
+          AND c.relname ~ ('^' || parent || '_p\d{4}_\d{2}$')
+          AND to_date(substring(c.relname FROM '\d{4}_\d{2}$'), 'YYYY_MM')::timestamp + interval '1 month' <= detach_before
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, partition_name);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA archive', partition_name);
+        RETURN NEXT partition_name;
+    END LOOP;
+END;
+$$;
+
+-- booking
+
+-- Поиск пересечений (BookingRepository) и триггер ниже рассчитывают на бронирования не длиннее суток
+-- (Booking.MAX_DURATION): более длинное бронирование стало бы невидимым для проверки конфликтов.
+-- Такие строки нужно исправить вручную до миграции.
+DO
+$$
+DECLARE
+    too_long bigint;
+BEGIN
+    SELECT count(*) INTO too_long FROM booking WHERE end_time - start_time > interval '1 day';
+    IF too_long > 0 THEN
+        RAISE EXCEPTION 'booking contains % booking(s) longer than 1 day; shorten or remove them before partitioning', too_long
+            USING HINT = 'SELECT id, start_time, end_time FROM booking WHERE end_time - start_time > interval ''1 day''';
+    END IF;
+END;
+$$;
+
+ALTER SEQUENCE booking_seq OWNED BY NONE;
+ALTER TABLE booking RENAME TO booking_unpartitioned;
+ALTER TABLE booking_unpartitioned RENAME CONSTRAINT booking_pkey TO booking_unpartitioned_pkey;
+
+CREATE TABLE booking
+(
+    id          bigint    NOT NULL DEFAULT nextval('booking_seq'),
+    end_time    timestamp without time zone NOT NULL,
+    start_time  timestamp without time zone NOT NULL,
+    customer_id bigint REFERENCES customer (id),
+    service_id  bigint REFERENCES service (id),
+    bay         integer   NOT NULL DEFAULT 1,
+    during      tsrange GENERATED ALWAYS AS (tsrange(start_time, end_time, '[)')) STORED,
+    CONSTRAINT booking_pkey PRIMARY KEY (id, start_time),
+    CONSTRAINT booking_max_duration CHECK (end_time - start_time <= interval '1 day')
+) PARTITION BY RANGE (start_time);
+
+CREATE TABLE booking_default PARTITION OF booking DEFAULT;
+ALTER TABLE booking_default
+    ADD CONSTRAINT booking_default_no_overlap
+        EXCLUDE USING gist (service_id WITH =, bay WITH =, during WITH &&);
+
+-- Пересечение бронирований из разных секций возможно, только если одно из них переходит границу месяца,
+-- а другое начинается в первые сутки следующего месяца (бронирование длится не дольше суток).
+-- Для таких бронирований триггер под транзакционной advisory-блокировкой (услуга, бокс) ищет пересечения
+-- во всей таблице и завершает вставку ошибкой exclusion_violation (23P01), как ограничение исключения.
+-- Блокировка держится до конца транзакции, поэтому параллельные вставки на границе месяца видят друг друга;
+-- остальные бронирования проверяются только ограничением своей секции и не блокируются.
+CREATE FUNCTION booking_no_overlap_across_partitions() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    month_start timestamp := date_trunc('month', NEW.start_time);
+BEGIN
+    IF NEW.start_time >= month_start + interval '1 day' AND NEW.end_time <= month_start + interval '1 month' THEN
+        RETURN NEW;
+    END IF;
+    PERFORM pg_advisory_xact_lock(hashtextextended('booking_no_overlap:' || NEW.service_id || ':' || NEW.bay, 0));
+    IF EXISTS (SELECT 1
+               FROM booking b
+               WHERE b.service_id = NEW.service_id
+                 AND b.bay = NEW.bay
+                 AND b.id <> NEW.id
+                 AND b.start_time > NEW.start_time - interval '1 day'
+                 AND b.start_time < NEW.end_time
+                 AND b.end_time > NEW.start_time) THEN
+        RAISE EXCEPTION 'conflicting key value violates exclusion constraint "booking_no_overlap"'
+            USING ERRCODE = 'exclusion_violation', CONSTRAINT = 'booking_no_overlap', TABLE = 'booking';
+    END IF;
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER booking_no_overlap_across_partitions
+    BEFORE INSERT OR UPDATE OF service_id, bay, start_time, end_time
+    ON booking
+    FOR EACH ROW
+EXECUTE FUNCTION booking_no_overlap_across_partitions();
+
+-- Секции от первого месяца с данными до трёх месяцев вперёд; дальше их создаёт BookingPartitionManager.
+SELECT create_month_partition('booking', month::date)
+FROM generate_series(date_trunc('month', LEAST((SELECT MIN(start_time) FROM booking_unpartitioned), LOCALTIMESTAMP)),
+                     date_trunc('month', LOCALTIMESTAMP) + interval '3 months', interval '1 month') month;
+
+INSERT INTO booking (id, end_time, start_time, customer_id, service_id, bay)
+SELECT id, end_time, start_time, customer_id, service_id, bay
+FROM booking_unpartitioned;
+
+DROP TABLE booking_unpartitioned;
+ALTER SEQUENCE booking_seq OWNED BY booking.id;
+
+CREATE INDEX idx_booking_service_end_start ON booking (service_id, end_time, start_time);
+CREATE INDEX idx_booking_customer_start ON booking (customer_id, start_time);
+
+-- timeslot
+
+ALTER SEQUENCE timeslot_seq OWNED BY NONE;
+ALTER TABLE timeslot RENAME TO timeslot_unpartitioned;
+ALTER TABLE timeslot_unpartitioned RENAME CONSTRAINT timeslot_pkey TO timeslot_unpartitioned_pkey;
+
+CREATE TABLE timeslot
+(
+    id         bigint  NOT NULL DEFAULT nextval('timeslot_seq'),
+    available  boolean NOT NULL,
+    end_time   timestamp without time zone NOT NULL,
+    start_time timestamp without time zone NOT NULL,
+    service_id bigint REFERENCES service (id),
+    CONSTRAINT timeslot_pkey PRIMARY KEY (id, start_time)
+) PARTITION BY RANGE (start_time);
+
+CREATE TABLE timeslot_default PARTITION OF timeslot DEFAULT;
+
+SELECT create_month_partition('timeslot', month::date)
+FROM generate_series(date_trunc('month', LEAST((SELECT MIN(start_time) FROM timeslot_unpartitioned), LOCALTIMESTAMP)),
+                     date_trunc('month', LOCALTIMESTAMP) + interval '3 months', interval '1 month') month;
+
+INSERT INTO timeslot (id, available, end_time, start_time, service_id)
+SELECT id, available, end_time, start_time, service_id
+FROM timeslot_unpartitioned;
+
+DROP TABLE timeslot_unpartitioned;
+ALTER SEQUENCE timeslot_seq OWNED BY timeslot.id;
+
+CREATE INDEX idx_timeslot_service_available_start ON timeslot (service_id, start_time) WHERE available;
+CREATE INDEX idx_timeslot_service_start ON timeslot (service_id, start_time);
+
+ANALYZE booking;
+ANALYZE timeslot;
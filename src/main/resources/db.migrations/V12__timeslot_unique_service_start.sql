@@ -0,0 +1,25 @@
+-- У услуги не больше одного слота с данным временем начала. Уникальность обеспечивает база,
+-- поэтому параллельные генерации расписания (TimeslotScheduleGenerator) не создают повторяющихся слотов.
+-- Ограничение содержит ключ секционирования start_time и создаётся во всех секциях timeslot.
+
+-- Уже созданные повторы объединяются: остаётся слот с наименьшим id, доступный, только если доступны все его копии.
+UPDATE timeslot t
+SET available = false
+FROM (SELECT service_id, start_time, min(id) AS keep_id
+      FROM timeslot
+      GROUP BY service_id, start_time
+      HAVING count(*) > 1 AND NOT bool_and(available)) duplicates
+WHERE t.id = duplicates.keep_id
+  AND t.start_time = duplicates.start_time;
+
+DELETE FROM timeslot t
+USING timeslot kept
+WHERE kept.service_id = t.service_id
+  AND kept.start_time = t.start_time
+  AND kept.id < t.id;
+
+ALTER TABLE timeslot
+    ADD CONSTRAINT timeslot_service_start_key UNIQUE (service_id, start_time);
+
+-- Индекс ограничения обслуживает те же запросы, что и idx_timeslot_service_start.
+DROP INDEX idx_timeslot_service_start;
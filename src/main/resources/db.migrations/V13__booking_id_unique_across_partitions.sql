@@ -0,0 +1,93 @@
+-- Первичный ключ секционированной таблицы booking — (id, start_time) (см. V11), и сам по себе он не запрещает
+-- двух бронирований с одним id в разных секциях. Идентификаторы выдаёт booking_seq, но id, заданный явно
+-- (ручная вставка, перенос данных), мог бы повторить существующий, и поиск по id вернул бы две строки.
+--
+-- Уникальность id во всей таблице обеспечивает первичный ключ таблицы booking_id, которую ведут триггеры booking:
+-- повторный id завершает вставку ошибкой unique_violation (23505) с ограничением booking_id_key, в том числе
+-- при параллельных вставках, без блокировок. Перенос строки в другую секцию (изменение start_time) PostgreSQL
+-- выполняет как удаление и вставку, поэтому id освобождается и занимается заново.
+-- Строки отсоединённых секций (detach_month_partitions) остаются в booking_id: их id не выдаются повторно.
+--
+-- Поиск бронирования по id по-прежнему проверяет индекс первичного ключа каждой секции (id — его первый столбец):
+-- это цена секционирования по start_time.
+CREATE TABLE booking_id
+(
+    id bigint NOT NULL,
+    CONSTRAINT booking_id_key PRIMARY KEY (id)
+);
+
+INSERT INTO booking_id (id)
+SELECT id
+FROM booking;
+
+CREATE FUNCTION booking_id_unique_across_partitions() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP = 'UPDATE' AND NEW.id = OLD.id THEN
+        RETURN NEW;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM booking_id WHERE id = OLD.id;
+    END IF;
+    IF TG_OP = 'DELETE' THEN
+        RETURN OLD;
+    END IF;
+    INSERT INTO booking_id (id) VALUES (NEW.id);
+    RETURN NEW;
+END;
+$$;
+
+CREATE TRIGGER booking_id_unique_across_partitions
+    BEFORE INSERT OR DELETE OR UPDATE OF id
+    ON booking
+    FOR EACH ROW
+EXECUTE FUNCTION booking_id_unique_across_partitions();
+
+-- Строки, которые create_month_partition переносит из секции по умолчанию, удаляются из booking_default
+-- (триггер освобождает их id) и вставляются в ещё не присоединённую секцию без триггеров:
+-- их id занимаются заново после присоединения.
+CREATE OR REPLACE FUNCTION create_month_partition(parent text, month_start date) RETURNS boolean
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    lower_bound timestamp := date_trunc('month', month_start::timestamp);
+    upper_bound timestamp := date_trunc('month', month_start::timestamp) + interval '1 month';
+    partition_name text := parent || '_p' || to_char(lower_bound, 'YYYY_MM');
+    default_name text := parent || '_default';
+    column_list text;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    -- Генерируемые столбцы (booking.during) вычисляются заново при вставке.
+    SELECT string_agg(quote_ident(attname), ', ' ORDER BY attnum) INTO column_list
+    FROM pg_attribute
+    WHERE attrelid = parent::regclass AND attnum > 0 AND NOT attisdropped AND attgenerated = '';
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING GENERATED INCLUDING CONSTRAINTS)',
+                   partition_name, parent);
+    -- Ограничение диапазона заранее, чтобы ATTACH PARTITION не сканировал секцию повторно.
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (start_time >= %L AND start_time < %L)',
+                   partition_name, partition_name || '_range', lower_bound, upper_bound);
+    IF parent = 'booking' THEN
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I EXCLUDE USING gist (service_id WITH =, bay WITH =, during WITH &&)',
+                       partition_name, partition_name || '_no_overlap');
+    END IF;
+
+    IF to_regclass(default_name) IS NOT NULL THEN
+        EXECUTE format('WITH moved AS (DELETE FROM %I WHERE start_time >= %L AND start_time < %L RETURNING %s) '
+                           'INSERT INTO %I (%s) SELECT %s FROM moved',
+                       default_name, lower_bound, upper_bound, column_list, partition_name, column_list, column_list);
+    END IF;
+
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent, partition_name, lower_bound, upper_bound);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+    IF parent = 'booking' THEN
+        EXECUTE format('INSERT INTO booking_id (id) SELECT id FROM %I', partition_name);
+    END IF;
+    RETURN true;
+END;
+$$;
@@ -0,0 +1,13 @@
+-- Количество боксов (параллельных мест) для услуги и номер бокса, назначенный бронированию.
+ALTER TABLE public.service
+    ADD COLUMN IF NOT EXISTS bays integer NOT NULL DEFAULT 1;
+
+ALTER TABLE public.service
+    ADD CONSTRAINT service_bays_positive CHECK (bays > 0);
+
+ALTER TABLE public.booking
+    ADD COLUMN IF NOT EXISTS bay integer NOT NULL DEFAULT 1;
+
+-- Поиск занятых боксов услуги: бронирования, заканчивающиеся после начала проверяемого интервала.
+CREATE INDEX IF NOT EXISTS idx_booking_service_end_start
+    ON public.booking (service_id, end_time, start_time);
@@ -0,0 +1,12 @@
+-- Запрет пересекающихся бронирований одного бокса услуги на уровне базы данных.
+-- Параллельные вставки в один и тот же бокс на пересекающееся время завершаются
+-- ошибкой exclusion_violation (SQLSTATE 23P01) без блокировок на стороне приложения.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE public.booking
+    ADD COLUMN IF NOT EXISTS during tsrange
+        GENERATED ALWAYS AS (tsrange(start_time, end_time, '[)')) STORED;
+
+ALTER TABLE public.booking
+    ADD CONSTRAINT booking_no_overlap
+        EXCLUDE USING gist (service_id WITH =, bay WITH =, during WITH &&);
@@ -0,0 +1,18 @@
+-- Вторичные индексы для запросов репозиториев.
+
+-- CustomerRepository.findByPhoneNumber
+CREATE INDEX IF NOT EXISTS idx_customer_phone_number
+    ON public.customer (phone_number);
+
+-- Бронирования клиента в порядке времени начала (история и ближайшая запись).
+CREATE INDEX IF NOT EXISTS idx_booking_customer_start
+    ON public.booking (customer_id, start_time);
+
+-- Свободные слоты услуги в порядке времени начала.
+CREATE INDEX IF NOT EXISTS idx_timeslot_service_available_start
+    ON public.timeslot (service_id, start_time)
+    WHERE available;
+
+-- Внешний ключ timeslot.service_id для удаления услуги и загрузки Service.timeslots.
+CREATE INDEX IF NOT EXISTS idx_timeslot_service
+    ON public.timeslot (service_id);
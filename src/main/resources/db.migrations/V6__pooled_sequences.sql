@@ -0,0 +1,24 @@
+-- Идентификаторы из последовательностей вместо IDENTITY, чтобы Hibernate мог группировать INSERT в JDBC-батчи.
+-- Шаг 50 совпадает с allocationSize в сущностях (оптимизатор pooled-lo: значение последовательности —
+-- нижняя граница блока из 50 идентификаторов). DEFAULT nextval(...) оставлен для вставок в обход Hibernate:
+-- такая вставка занимает начало собственного блока и не пересекается с блоками Hibernate.
+
+ALTER TABLE booking ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE booking_seq INCREMENT BY 50 OWNED BY booking.id;
+SELECT setval('booking_seq', COALESCE(MAX(id), 0) + 1, false) FROM booking;
+ALTER TABLE booking ALTER COLUMN id SET DEFAULT nextval('booking_seq');
+
+ALTER TABLE customer ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE customer_seq INCREMENT BY 50 OWNED BY customer.id;
+SELECT setval('customer_seq', COALESCE(MAX(id), 0) + 1, false) FROM customer;
+ALTER TABLE customer ALTER COLUMN id SET DEFAULT nextval('customer_seq');
+
+ALTER TABLE service ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE service_seq INCREMENT BY 50 OWNED BY service.id;
+SELECT setval('service_seq', COALESCE(MAX(id), 0) + 1, false) FROM service;
+ALTER TABLE service ALTER COLUMN id SET DEFAULT nextval('service_seq');
+
+ALTER TABLE timeslot ALTER COLUMN id DROP IDENTITY;
+CREATE SEQUENCE timeslot_seq INCREMENT BY 50 OWNED BY timeslot.id;
+SELECT setval('timeslot_seq', COALESCE(MAX(id), 0) + 1, false) FROM timeslot;
+ALTER TABLE timeslot ALTER COLUMN id SET DEFAULT nextval('timeslot_seq');
@@ -0,0 +1,6 @@
+-- Все слоты услуги (включая недоступные) по времени начала: проверка существующих слотов
+-- при генерации расписания. Индекс по одному service_id становится его префиксом и больше не нужен.
+CREATE INDEX IF NOT EXISTS idx_timeslot_service_start
+    ON public.timeslot (service_id, start_time);
+
+DROP INDEX IF EXISTS idx_timeslot_service;
@@ -0,0 +1,33 @@
+-- Номера телефонов хранятся в нормализованном виде (только цифры и ведущий «+»), как их приводит
+-- PhoneNumbers.normalize: поиск по номеру и кэш клиентов используют одну и ту же форму.
+
+-- Разные записи одного номера («+7 901 234-56-78» и «+79012345678») после нормализации совпали бы,
+-- и поиск по номеру перестал бы быть однозначным. Таких клиентов нужно объединить вручную до миграции.
+DO
+$$
+DECLARE
+    collisions text;
+BEGIN
+    SELECT string_agg(format('%s (id %s)', normalized, ids), '; ' ORDER BY normalized) INTO collisions
+    FROM (SELECT CASE WHEN btrim(phone_number) LIKE '+%' THEN '+' ELSE '' END
+                     || regexp_replace(phone_number, '[^0-9]', '', 'g') AS normalized,
+                 string_agg(id::text, ', ' ORDER BY id) AS ids
+          FROM public.customer
+          GROUP BY 1
+          HAVING count(*) > 1) duplicates;
+    IF collisions IS NOT NULL THEN
+        RAISE EXCEPTION 'customer phone numbers collide after normalization: %', collisions
+            USING HINT = 'Merge or correct these customers before normalizing phone numbers';
+    END IF;
+END;
+$$;
+
+UPDATE public.customer
+SET phone_number = CASE WHEN btrim(phone_number) LIKE '+%' THEN '+' ELSE '' END
+                       || regexp_replace(phone_number, '[^0-9]', '', 'g')
+WHERE phone_number ~ '[^0-9+]' OR phone_number ~ '.\+';
+
+-- Один номер — один клиент. Уникальный индекс заменяет обычный индекс из V5 для CustomerRepository.findByPhoneNumber.
+DROP INDEX IF EXISTS public.idx_customer_phone_number;
+CREATE UNIQUE INDEX customer_phone_number_key
+    ON public.customer (phone_number);
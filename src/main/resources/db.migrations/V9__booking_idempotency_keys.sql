@@ -0,0 +1,19 @@
+-- Ответы на запросы создания бронирования с заголовком Idempotency-Key (BookingIdempotencyStore):
+-- повтор запроса клиента с тем же ключом получает исходное бронирование без повторной проверки пересечений.
+-- Поля запроса хранятся для проверки, что ключ не использован с другим запросом. Записи старше
+-- booking.idempotency.ttl не используются и периодически удаляются.
+CREATE TABLE IF NOT EXISTS public.booking_idempotency_key
+(
+    customer_id bigint NOT NULL,
+    idempotency_key character varying(255) NOT NULL,
+    service_id bigint NOT NULL,
+    start_time timestamp without time zone NOT NULL,
+    end_time timestamp without time zone NOT NULL,
+    booking_id bigint NOT NULL,
+    bay integer NOT NULL,
+    created_at timestamp without time zone NOT NULL DEFAULT now(),
+    CONSTRAINT booking_idempotency_key_pkey PRIMARY KEY (customer_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_booking_idempotency_key_created_at
+    ON public.booking_idempotency_key (created_at);
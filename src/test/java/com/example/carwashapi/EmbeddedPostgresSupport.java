@@ -0,0 +1,43 @@
+package com.example.carwashapi;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Базовый класс интеграционных тестов: встроенный PostgreSQL, общий для всех тестов JVM.
+ * Схема создаётся миграциями Flyway, как в рабочем окружении.
+ */
+public abstract class EmbeddedPostgresSupport {
+    private static final EmbeddedPostgres POSTGRES = start();
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.jpa.show-sql", () -> "false");
+        // Контексты тестов работают с общей базой: фоновая публикация событий одного контекста забирала бы
+        // события, записанные другим. Тесты публикуют события явно через BookingEventRelay.relay().
+        registry.add("booking.events.relay.enabled", () -> "false");
+    }
+
+    private static EmbeddedPostgres start() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // Процесс PostgreSQL завершится вместе с JVM.
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.carwashapi.benchmark;
+
+import com.example.carwashapi.dto.TimeslotSummary;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.service.BookingServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск свободных слотов услуги ({@code getAvailableTimeSlotsForService}) в окне длиной windowDays,
+ * начинающемся в случайный день из days дней расписания. Слоты идут подряд по
+ * {@value BenchmarkContext#TIMESLOT_MINUTES} минут, бронирования занимают часть из них.
+ * Измеряется установившийся режим: после прогрева дни расписания находятся в календаре в памяти.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityBenchmark {
+    private static final int TIMESLOTS_PER_DAY = 24 * 60 / BenchmarkContext.TIMESLOT_MINUTES;
+
+    @Param({BenchmarkContext.H2})
+    private String database;
+
+    @Param({"30", "365"})
+    private int days;
+
+    @Param({"1", "14"})
+    private int windowDays;
+
+    private ConfigurableApplicationContext context;
+    private BookingServiceImpl bookingService;
+    private Service service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.startOn(database);
+        long serviceId = BenchmarkContext.seedService(context, "Benchmark");
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        BenchmarkContext.seedTimeslots(jdbcTemplate, serviceId, days * TIMESLOTS_PER_DAY);
+        int bookingCount = (int) (Duration.ofDays(days).toMinutes() / BenchmarkContext.BOOKING_STEP_MINUTES);
+        BenchmarkContext.seedBookings(jdbcTemplate, serviceId, bookingCount);
+        bookingService = context.getBean(BookingServiceImpl.class);
+        service = bookingService.getServiceById(serviceId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TimeslotSummary> getAvailableTimeSlots() {
+        LocalDateTime from = BenchmarkContext.BASE_TIME.toLocalDate()
+                .plusDays(ThreadLocalRandom.current().nextInt(days)).atStartOfDay();
+        return bookingService.getAvailableTimeSlotsForService(service, from, from.plusDays(windowDays));
+    }
+}
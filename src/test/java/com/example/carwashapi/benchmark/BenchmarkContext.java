@@ -0,0 +1,216 @@
+package com.example.carwashapi.benchmark;
+
+import com.example.carwashapi.CarWashApiApplication;
+import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.repository.CustomerRepository;
+import com.example.carwashapi.repository.ServiceRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Контекст приложения для бенчмарков: встроенная H2 или встроенный PostgreSQL и заполнение тестовыми данными.
+ */
+final class BenchmarkContext {
+    static final LocalDateTime BASE_TIME = LocalDateTime.of(2020, 1, 1, 8, 0);
+    static final int BOOKING_MINUTES = 30;
+    static final int BOOKING_STEP_MINUTES = 40;
+    static final int TIMESLOT_MINUTES = 30;
+
+    static final String H2 = "h2";
+    static final String POSTGRES = "postgres";
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Запускает приложение; args передаются как аргументы командной строки, например {@code --spring.cache.type=none}.
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        return run(WebApplicationType.NONE, args);
+    }
+
+    /**
+     * Запускает приложение на базе данных, заданной параметром бенчмарка: {@value #H2} или {@value #POSTGRES}.
+     * Встроенный PostgreSQL останавливается вместе с контекстом.
+     */
+    static ConfigurableApplicationContext startOn(String database, String... args) {
+        return runOn(WebApplicationType.NONE, database, args);
+    }
+
+    /**
+     * Запускает приложение с веб-сервером на базе данных {@value #H2} или {@value #POSTGRES}.
+     */
+    static ConfigurableApplicationContext startWebOn(String database, String... args) {
+        return runOn(WebApplicationType.SERVLET, database, args);
+    }
+
+    private static ConfigurableApplicationContext runOn(WebApplicationType type, String database, String... args) {
+        if (H2.equals(database)) {
+            return run(type, args);
+        }
+        if (!POSTGRES.equals(database)) {
+            throw new IllegalArgumentException("Unknown benchmark database: " + database);
+        }
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            ConfigurableApplicationContext context = run(type, postgresArgs(postgres, args));
+            context.addApplicationListener((ApplicationListener<ContextClosedEvent>) event -> {
+                try {
+                    postgres.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return context;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ConfigurableApplicationContext run(WebApplicationType type, String... args) {
+        return new SpringApplicationBuilder(CarWashApiApplication.class)
+                .web(type)
+                .profiles("benchmark")
+                .run(args);
+    }
+
+    /**
+     * Аргументы запуска приложения на встроенном PostgreSQL со схемой из миграций Flyway, как в рабочем
+     * окружении. Нужны бенчмаркам, результат которых зависит от числа обращений к базе данных по сети.
+     */
+    static String[] postgresArgs(EmbeddedPostgres postgres, String... args) {
+        List<String> result = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                "--spring.flyway.enabled=true",
+                "--spring.jpa.hibernate.ddl-auto=validate"));
+        result.addAll(List.of(args));
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * Создаёт услугу с одним боксом и возвращает её идентификатор.
+     */
+    static long seedService(ConfigurableApplicationContext context, String name) {
+        return seedService(context, name, 1);
+    }
+
+    /**
+     * Создаёт услугу с указанным числом боксов и возвращает её идентификатор.
+     */
+    static long seedService(ConfigurableApplicationContext context, String name, int bays) {
+        Service service = new Service();
+        service.setName(name);
+        service.setPrice(100);
+        service.setBays(bays);
+        return context.getBean(ServiceRepository.class).save(service).getId();
+    }
+
+    /**
+     * Создаёт клиента и возвращает его идентификатор.
+     */
+    static long seedCustomer(ConfigurableApplicationContext context, String phoneNumber) {
+        Customer customer = new Customer();
+        customer.setName("Benchmark");
+        customer.setPhoneNumber(phoneNumber);
+        return context.getBean(CustomerRepository.class).save(customer).getId();
+    }
+
+    /**
+     * Создаёт bookingCount бронирований услуги по {@value #BOOKING_MINUTES} минут с шагом
+     * {@value #BOOKING_STEP_MINUTES} минут начиная с {@link #BASE_TIME}.
+     */
+    static void seedBookings(JdbcTemplate jdbcTemplate, long serviceId, int bookingCount) {
+        long firstId = nextId(jdbcTemplate, "booking");
+        List<Object[]> rows = new ArrayList<>(bookingCount);
+        for (int i = 0; i < bookingCount; i++) {
+            LocalDateTime startTime = bookingStart(i);
+            rows.add(new Object[]{firstId + i, serviceId, Timestamp.valueOf(startTime), Timestamp.valueOf(startTime.plusMinutes(BOOKING_MINUTES))});
+        }
+        insert(jdbcTemplate, "booking", "INSERT INTO booking (id, service_id, start_time, end_time, bay) VALUES (?, ?, ?, ?, 1)", rows);
+    }
+
+    /**
+     * Создаёт timeslotCount доступных слотов услуги по {@value #TIMESLOT_MINUTES} минут подряд
+     * начиная с {@link #BASE_TIME}.
+     */
+    static void seedTimeslots(JdbcTemplate jdbcTemplate, long serviceId, int timeslotCount) {
+        long firstId = nextId(jdbcTemplate, "timeslot");
+        List<Object[]> rows = new ArrayList<>(timeslotCount);
+        for (int i = 0; i < timeslotCount; i++) {
+            LocalDateTime startTime = BASE_TIME.plusMinutes((long) i * TIMESLOT_MINUTES);
+            rows.add(new Object[]{firstId + i, serviceId, Timestamp.valueOf(startTime), Timestamp.valueOf(startTime.plusMinutes(TIMESLOT_MINUTES))});
+        }
+        insert(jdbcTemplate, "timeslot",
+                "INSERT INTO timeslot (id, service_id, start_time, end_time, available) VALUES (?, ?, ?, ?, TRUE)", rows);
+    }
+
+    /**
+     * Создаёт customerCount клиентов с номерами {@link #phoneNumber(int)} и по bookingsPerCustomer бронирований
+     * услуги у каждого. Бронирования идут по очереди клиентов с шагом {@value #BOOKING_STEP_MINUTES} минут,
+     * так что примерно половина бронирований каждого клиента в прошлом, половина — в будущем.
+     */
+    static void seedCustomers(JdbcTemplate jdbcTemplate, long serviceId, int customerCount, int bookingsPerCustomer) {
+        long firstCustomerId = nextId(jdbcTemplate, "customer");
+        List<Object[]> customers = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            customers.add(new Object[]{firstCustomerId + i, "Benchmark " + i, phoneNumber(i)});
+        }
+        insert(jdbcTemplate, "customer", "INSERT INTO customer (id, name, phone_number) VALUES (?, ?, ?)", customers);
+
+        long firstBookingId = nextId(jdbcTemplate, "booking");
+        int bookingCount = customerCount * bookingsPerCustomer;
+        LocalDateTime firstStart = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES)
+                .minusMinutes((long) bookingCount / 2 * BOOKING_STEP_MINUTES);
+        List<Object[]> bookings = new ArrayList<>(bookingCount);
+        for (int i = 0; i < bookingCount; i++) {
+            LocalDateTime startTime = firstStart.plusMinutes((long) i * BOOKING_STEP_MINUTES);
+            bookings.add(new Object[]{firstBookingId + i, firstCustomerId + i % customerCount, serviceId,
+                    Timestamp.valueOf(startTime), Timestamp.valueOf(startTime.plusMinutes(BOOKING_MINUTES))});
+        }
+        insert(jdbcTemplate, "booking",
+                "INSERT INTO booking (id, customer_id, service_id, start_time, end_time, bay) VALUES (?, ?, ?, ?, ?, 1)", bookings);
+    }
+
+    static String phoneNumber(int index) {
+        return "+7" + (9_000_000_000L + index);
+    }
+
+    static LocalDateTime bookingStart(int index) {
+        return BASE_TIME.plusMinutes((long) index * BOOKING_STEP_MINUTES);
+    }
+
+    private static long nextId(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+    }
+
+    /**
+     * Вставляет строки с явными идентификаторами батчами по {@value #BATCH_SIZE} и переводит последовательность
+     * таблицы за последний из них: схема H2 создаётся Hibernate и не содержит DEFAULT nextval(...), а следующие
+     * вставки через JPA не должны получить уже занятые идентификаторы. Поэтому таблицу нужно заполнять до первой
+     * вставки в неё через JPA.
+     */
+    private static void insert(JdbcTemplate jdbcTemplate, String table, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE " + table + "_seq RESTART WITH " + nextId(jdbcTemplate, table));
+    }}
@@ -0,0 +1,62 @@
+package com.example.carwashapi.benchmark;
+
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.service.BookingServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка создания бронирования с кэшем каталога услуг и без него ({@code spring.cache.type=none})
+ * при bookingCount уже существующих бронированиях услуги.
+ * Каждое бронирование занимает следующий свободный интервал, поэтому конфликтов нет.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingCreationBenchmark {
+
+    @Param({"caffeine", "none"})
+    private String cacheType;
+
+    @Param({BenchmarkContext.H2})
+    private String database;
+
+    @Param({"10000"})
+    private int bookingCount;
+
+    private ConfigurableApplicationContext context;
+    private BookingServiceImpl bookingService;
+    private long serviceId;
+    private long customerId;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startOn(database, "--spring.cache.type=" + cacheType);
+        serviceId = BenchmarkContext.seedService(context, "Benchmark");
+        customerId = BenchmarkContext.seedCustomer(context, "+70000000000");
+        BenchmarkContext.seedBookings(context.getBean(JdbcTemplate.class), serviceId, bookingCount);
+        next = bookingCount;
+        bookingService = context.getBean(BookingServiceImpl.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Booking createBooking() throws Exception {
+        LocalDateTime startTime = BenchmarkContext.bookingStart(next++);
+        return bookingService.createBooking(new BookingRequest(customerId, serviceId, startTime,
+                startTime.plusMinutes(BenchmarkContext.BOOKING_MINUTES)));
+    }
+}
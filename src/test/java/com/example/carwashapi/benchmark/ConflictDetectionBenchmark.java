@@ -0,0 +1,66 @@
+package com.example.carwashapi.benchmark;
+
+import com.example.carwashapi.repository.BookingRepository;
+import com.example.carwashapi.service.BookingIntervalIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение поиска занятых боксов запросом JPQL и индексом интервалов в памяти.
+ * Каждая итерация проверяет свободный промежуток между двумя случайными соседними бронированиями.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConflictDetectionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int bookingCount;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepository;
+    private BookingIntervalIndex index;
+    private long serviceId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        serviceId = BenchmarkContext.seedService(context, "Benchmark");
+        BenchmarkContext.seedBookings(context.getBean(JdbcTemplate.class), serviceId, bookingCount);
+        bookingRepository = context.getBean(BookingRepository.class);
+        index = new BookingIntervalIndex();
+        bookingRepository.findAllIntervals().forEach(index::put);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Integer> jpqlOccupiedBays() {
+        LocalDateTime startTime = randomGapStart();
+        return bookingRepository.findOccupiedBays(serviceId, startTime, startTime.plusMinutes(5));
+    }
+
+    @Benchmark
+    public Set<Integer> intervalIndex() {
+        LocalDateTime startTime = randomGapStart();
+        return index.findOccupiedBays(serviceId, startTime, startTime.plusMinutes(5), null);
+    }
+
+    private LocalDateTime randomGapStart() {
+        int booking = ThreadLocalRandom.current().nextInt(bookingCount);
+        return BenchmarkContext.bookingStart(booking).plusMinutes(BenchmarkContext.BOOKING_MINUTES);
+    }
+}
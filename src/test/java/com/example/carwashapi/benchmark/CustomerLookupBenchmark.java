@@ -0,0 +1,62 @@
+package com.example.carwashapi.benchmark;
+
+import com.example.carwashapi.dto.CustomerSummary;
+import com.example.carwashapi.service.CustomerServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск клиента по номеру телефона и расчёт времени до его ближайшего бронирования среди customerCount
+ * клиентов с bookingsPerCustomer бронированиями у каждого. Оба запроса выполняются для случайного клиента.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerLookupBenchmark {
+
+    @Param({BenchmarkContext.H2})
+    private String database;
+
+    @Param({"1000", "100000"})
+    private int customerCount;
+
+    @Param({"10"})
+    private int bookingsPerCustomer;
+
+    private ConfigurableApplicationContext context;
+    private CustomerServiceImpl customerService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.startOn(database);
+        long serviceId = BenchmarkContext.seedService(context, "Benchmark");
+        BenchmarkContext.seedCustomers(context.getBean(JdbcTemplate.class), serviceId, customerCount, bookingsPerCustomer);
+        customerService = context.getBean(CustomerServiceImpl.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CustomerSummary getCustomerByPhoneNumber() throws Exception {
+        return customerService.getCustomerByPhoneNumber(randomPhoneNumber());
+    }
+
+    @Benchmark
+    public long getRemainingTimeUntilNextBooking() throws Exception {
+        return customerService.getRemainingTimeUntilNextBooking(randomPhoneNumber());
+    }
+
+    private String randomPhoneNumber() {
+        return BenchmarkContext.phoneNumber(ThreadLocalRandom.current().nextInt(customerCount));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.carwashapi.benchmark;
+
+import com.example.carwashapi.dto.BookingSummary;
+import com.example.carwashapi.dto.TimeslotSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация списков бронирований и временных слотов в JSON тем же {@link ObjectMapper}, что и в ответах API.
+ * Сериализуются те же DTO-проекции, которые возвращают эндпоинты чтения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private List<BookingSummary> bookings;
+    private List<TimeslotSummary> timeslots;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        objectMapper = context.getBean(ObjectMapper.class);
+        bookings = new ArrayList<>(size);
+        timeslots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            LocalDateTime startTime = BenchmarkContext.bookingStart(i);
+            LocalDateTime endTime = startTime.plusMinutes(BenchmarkContext.BOOKING_MINUTES);
+            bookings.add(new BookingSummary((long) i, 1L, (long) i, startTime, endTime, 1));
+            timeslots.add(new TimeslotSummary((long) i, 1L, startTime, endTime, true));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] serializeBookings() throws Exception {
+        return objectMapper.writeValueAsBytes(bookings);
+    }
+
+    @Benchmark
+    public byte[] serializeTimeslots() throws Exception {
+        return objectMapper.writeValueAsBytes(timeslots);
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.carwashapi.benchmark;
+
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.dto.TimeslotScheduleRequest;
+import com.example.carwashapi.service.TimeslotServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест HTTP API: запускает приложение с веб-сервером на встроенной базе данных, заполняет её
+ * и отправляет запросы с постоянной частотой по профилю {@link TrafficProfile}.
+ * <p>
+ * Нагрузка открытая: запросы отправляются по расписанию независимо от ответов, а задержка отсчитывается
+ * от запланированного момента отправки, поэтому очередь перед перегруженным сервером входит в задержку.
+ * Если в обработке уже {@code loadtest.max-in-flight} запросов, очередной запрос не отправляется
+ * и учитывается как {@code dropped}.
+ * <p>
+ * Запуск: {@code mvn -Ploadtest verify -Dloadtest.profile=saturday-rush -Dloadtest.rps=300}.
+ * Отчёт по каждому маршруту (число запросов, пропускная способность, перцентили задержки, коды ответов)
+ * печатается в консоль и сохраняется в JSON ({@code loadtest.result}).
+ */
+public final class LoadGenerator {
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final TrafficProfile profile;
+    private final String baseUrl;
+    private final List<Long> serviceIds;
+    private final List<Long> customerIds;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final Random random;
+    private final LocalDate today = LocalDate.now();
+    private final Deque<BookedSlot> bookings = new ConcurrentLinkedDeque<>();
+    private final Map<TrafficProfile.Operation, EndpointStats> stats = new EnumMap<>(TrafficProfile.Operation.class);
+
+    private LoadGenerator(TrafficProfile profile, String baseUrl, List<Long> serviceIds, List<Long> customerIds,
+                          ObjectMapper objectMapper, int maxInFlight, long seed) {
+        this.profile = profile;
+        this.baseUrl = baseUrl;
+        this.serviceIds = serviceIds;
+        this.customerIds = customerIds;
+        this.objectMapper = objectMapper;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.random = new Random(seed);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(16))
+                .build();
+        for (TrafficProfile.Operation operation : TrafficProfile.Operation.values()) {
+            stats.put(operation, new EndpointStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        TrafficProfile profile = TrafficProfile.of(System.getProperty("loadtest.profile", TrafficProfile.STEADY.name));
+        int rps = Integer.getInteger("loadtest.rps", 200);
+        Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT60S"));
+        String database = System.getProperty("loadtest.database", BenchmarkContext.POSTGRES);
+        int serviceCount = Integer.getInteger("loadtest.services", 3);
+        int bays = Integer.getInteger("loadtest.bays", 2);
+        int customerCount = Integer.getInteger("loadtest.customers", 10_000);
+        int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 1_000);
+        long seed = Long.getLong("loadtest.seed", 42L);
+        File result = new File(System.getProperty("loadtest.result", "target/loadtest-result.json"));
+
+        try (ConfigurableApplicationContext context = BenchmarkContext.startWebOn(database, "--server.port=0")) {
+            List<Long> serviceIds = seedServices(context, serviceCount, bays);
+            // История бронирований клиентов — у отдельной услуги: эти строки вставлены в обход приложения,
+            // и индекс интервалов в памяти о них не знает.
+            long historyServiceId = BenchmarkContext.seedService(context, "History");
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            BenchmarkContext.seedCustomers(jdbcTemplate, historyServiceId, customerCount, 2);
+            List<Long> customerIds = jdbcTemplate.queryForList("SELECT id FROM customer ORDER BY id", Long.class);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            LoadGenerator generator = new LoadGenerator(profile, baseUrl, serviceIds, customerIds,
+                    context.getBean(ObjectMapper.class), maxInFlight, seed);
+            System.out.printf(Locale.ROOT, "Profile %s, %d rps, warmup %s, measurement %s, database %s%n",
+                    profile.name, rps, warmup, duration, database);
+            generator.run(rps, warmup, false);
+            generator.run(rps, duration, true);
+            generator.report(rps, duration, database, result);
+        }
+        System.exit(0);
+    }
+
+    private static List<Long> seedServices(ConfigurableApplicationContext context, int serviceCount, int bays) throws Exception {
+        TimeslotServiceImpl timeslotService = context.getBean(TimeslotServiceImpl.class);
+        LocalDate today = LocalDate.now();
+        List<Long> serviceIds = new ArrayList<>(serviceCount);
+        for (int i = 0; i < serviceCount; i++) {
+            long serviceId = BenchmarkContext.seedService(context, "Load " + i, bays);
+            timeslotService.generateTimeslots(new TimeslotScheduleRequest(serviceId, today, today.plusDays(TrafficProfile.DAYS),
+                    TrafficProfile.OPENING, TrafficProfile.CLOSING, TrafficProfile.SLOT_MINUTES, EnumSet.allOf(DayOfWeek.class)));
+            serviceIds.add(serviceId);
+        }
+        return serviceIds;
+    }
+
+    /**
+     * Отправляет запросы с частотой rps в течение duration и дожидается ответов на них.
+     *
+     * @param measured Учитывать ли ответы в отчёте; false — прогрев.
+     */
+    private void run(int rps, Duration duration, boolean measured) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long intended = start; intended < end; intended += interval) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            send(profile.nextOperation(random), intended, measured);
+        }
+        if (!inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Requests did not complete within a minute");
+        }
+        inFlight.release(maxInFlight);
+    }
+
+    private void send(TrafficProfile.Operation operation, long intended, boolean measured) {
+        EndpointStats endpointStats = stats.get(operation);
+        if (!inFlight.tryAcquire()) {
+            if (measured) {
+                endpointStats.status("dropped");
+            }
+            return;
+        }
+        BookedSlot booked = null;
+        BookingRequest created = null;
+        HttpRequest request;
+        try {
+            switch (operation) {
+                case AVAILABILITY: {
+                    LocalDateTime from = profile.nextDay(random, today).atStartOfDay();
+                    request = get("/api/bookings/availability/" + randomService() + "?from=" + from + "&to=" + from.plusDays(1));
+                    break;
+                }
+                case CATALOG:
+                    request = get("/api/bookings/services");
+                    break;
+                case UPDATE_BOOKING:
+                    booked = bookings.pollFirst();
+                    if (booked != null) {
+                        LocalDateTime startTime = profile.nextSlot(random, today);
+                        request = json("PUT", "/api/bookings/" + booked.id, new BookingRequest(booked.customerId,
+                                booked.serviceId, startTime, startTime.plusMinutes(TrafficProfile.SLOT_MINUTES)));
+                        break;
+                    }
+                    // Нечего переносить: создаём новое бронирование.
+                    operation = TrafficProfile.Operation.CREATE_BOOKING;
+                    endpointStats = stats.get(operation);
+                    created = nextBooking();
+                    request = json("POST", "/api/bookings/create", created);
+                    break;
+                case CANCEL_BOOKING:
+                    booked = bookings.pollFirst();
+                    if (booked != null) {
+                        request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/bookings/" + booked.id)).DELETE().build();
+                        break;
+                    }
+                    operation = TrafficProfile.Operation.CREATE_BOOKING;
+                    endpointStats = stats.get(operation);
+                    created = nextBooking();
+                    request = json("POST", "/api/bookings/create", created);
+                    break;
+                case CREATE_BOOKING:
+                    created = nextBooking();
+                    request = json("POST", "/api/bookings/create", created);
+                    break;
+                case REMAINING_TIME:
+                    request = get("/api/customers/remaining-time/"
+                            + BenchmarkContext.phoneNumber(random.nextInt(customerIds.size())).replace("+", "%2B"));
+                    break;
+                case ADMIN_TIMESLOTS_PAGE:
+                    request = get("/api/admin/timeslots/page?limit=50");
+                    break;
+                case ADMIN_UPDATE_SERVICE: {
+                    int index = random.nextInt(serviceIds.size());
+                    request = json("PUT", "/api/admin/services/update/" + serviceIds.get(index),
+                            new ServiceRequest("Load " + index, 100.0 + random.nextInt(100), null));
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unexpected operation: " + operation);
+            }
+        } catch (Exception e) {
+            inFlight.release();
+            throw new IllegalStateException(e);
+        }
+
+        TrafficProfile.Operation sent = operation;
+        EndpointStats sentStats = endpointStats;
+        BookedSlot sentBooking = booked;
+        BookingRequest createdBooking = created;
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+            try {
+                if (measured) {
+                    sentStats.record(intended, error != null ? "error" : Integer.toString(response.statusCode()));
+                }
+                if (error == null) {
+                    onResponse(sent, sentBooking, createdBooking, response);
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Отслеживает созданные бронирования, чтобы переносить и отменять их.
+     */
+    private void onResponse(TrafficProfile.Operation operation, BookedSlot booked, BookingRequest created,
+                            HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (operation == TrafficProfile.Operation.CREATE_BOOKING && status == 201) {
+            try {
+                Map<?, ?> body = objectMapper.readValue(response.body(), Map.class);
+                bookings.offerLast(new BookedSlot(((Number) body.get("id")).longValue(),
+                        created.getCustomerId(), created.getServiceId()));
+            } catch (Exception ignored) {
+                // Ответ без идентификатора не участвует в переносах и отменах.
+            }
+        } else if (operation == TrafficProfile.Operation.UPDATE_BOOKING && status != 404) {
+            bookings.offerLast(booked);
+        }
+    }
+
+    private BookingRequest nextBooking() {
+        LocalDateTime startTime = profile.nextSlot(random, today);
+        return new BookingRequest(customerIds.get(random.nextInt(customerIds.size())), randomService(),
+                startTime, startTime.plusMinutes(TrafficProfile.SLOT_MINUTES));
+    }
+
+    private long randomService() {
+        return serviceIds.get(random.nextInt(serviceIds.size()));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest json(String method, String path, Object body) throws Exception {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    private void report(int rps, Duration duration, String database, File result) throws Exception {
+        double seconds = duration.toMillis() / 1000.0;
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        System.out.printf(Locale.ROOT, "%-50s %8s %8s %9s %9s %9s %9s %9s  %s%n",
+                "Endpoint", "Requests", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "Statuses");
+        for (Map.Entry<TrafficProfile.Operation, EndpointStats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().latencies;
+            Map<String, Long> statuses = entry.getValue().statuses();
+            if (statuses.isEmpty()) {
+                continue;
+            }
+            long requests = histogram.getTotalCount();
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("endpoint", entry.getKey().endpoint);
+            endpoint.put("requests", requests);
+            endpoint.put("throughput", requests / seconds);
+            endpoint.put("p50Ms", millis(histogram, 50));
+            endpoint.put("p90Ms", millis(histogram, 90));
+            endpoint.put("p99Ms", millis(histogram, 99));
+            endpoint.put("p999Ms", millis(histogram, 99.9));
+            endpoint.put("maxMs", histogram.getMaxValue() / 1000.0);
+            endpoint.put("statuses", statuses);
+            endpoints.add(endpoint);
+            System.out.printf(Locale.ROOT, "%-50s %8d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    entry.getKey().endpoint, requests, requests / seconds, millis(histogram, 50), millis(histogram, 90),
+                    millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0, statuses);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("profile", profile.name);
+        report.put("targetRps", rps);
+        report.put("durationSeconds", seconds);
+        report.put("database", database);
+        report.put("endpoints", endpoints);
+        File parent = result.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(result, report);
+        System.out.println("Load test result is saved to " + result.getAbsolutePath());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Задержки ответов маршрута в микросекундах и число ответов по кодам.
+     */
+    private static final class EndpointStats {
+        final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        final Map<String, LongAdder> statuses = new ConcurrentSkipListMap<>();
+
+        void record(long intendedNanos, String status) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos);
+            latencies.recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+            status(status);
+        }
+
+        void status(String status) {
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+
+        Map<String, Long> statuses() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            statuses.forEach((status, count) -> result.put(status, count.sum()));
+            return result;
+        }
+    }
+
+    @Value
+    private static class BookedSlot {
+        long id;
+        long customerId;
+        long serviceId;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.carwashapi.benchmark;
+
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.model.Timeslot;
+import com.example.carwashapi.repository.ServiceRepository;
+import com.example.carwashapi.repository.TimeslotRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вставка 100 000 временных слотов через JPA на встроенном PostgreSQL: без группировки INSERT
+ * (hibernate.jdbc.batch_size=1, как при IDENTITY) и с JDBC-батчами по 50 строк.
+ * Слоты сохраняются порциями по {@value #CHUNK_SIZE} в отдельных транзакциях.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimeslotInsertBenchmark {
+    private static final int TIMESLOTS = 100_000;
+    private static final int CHUNK_SIZE = 1_000;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private TimeslotRepository timeslotRepository;
+    private Service service;
+    private LocalDateTime nextStart = BenchmarkContext.BASE_TIME;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        context = BenchmarkContext.start(BenchmarkContext.postgresArgs(postgres,
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize));
+        long serviceId = BenchmarkContext.seedService(context, "Benchmark");
+        service = context.getBean(ServiceRepository.class).findById(serviceId).orElseThrow();
+        timeslotRepository = context.getBean(TimeslotRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public int insertTimeslots() {
+        List<Timeslot> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < TIMESLOTS; i++) {
+            chunk.add(new Timeslot(null, service, nextStart, nextStart.plusMinutes(30), true));
+            nextStart = nextStart.plusMinutes(30);
+            if (chunk.size() == CHUNK_SIZE) {
+                timeslotRepository.saveAll(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        timeslotRepository.saveAll(chunk);
+        return TIMESLOTS;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.carwashapi.benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Профиль трафика нагрузочного теста {@link LoadGenerator}: доли операций и распределение времени бронирований.
+ * <p>
+ * Бронирования занимают {@value #SLOT_MINUTES}-минутные слоты с {@link #OPENING} до {@link #CLOSING}
+ * в ближайшие {@value #DAYS} дней. Доля hotShare бронирований и запросов свободного времени приходится
+ * на «горячее» окно профиля, остальные распределены равномерно.
+ */
+enum TrafficProfile {
+    /**
+     * Обычный день: в основном чтение, бронирования распределены по неделе.
+     */
+    STEADY("steady", 0.0, weights(45, 5, 15, 5, 5, 20, 4, 1)),
+
+    /**
+     * Субботнее утро: 80% бронирований приходятся на ближайшую субботу с 9:00 до 11:00.
+     */
+    SATURDAY_RUSH("saturday-rush", 0.8, weights(35, 3, 30, 8, 7, 15, 1, 1));
+
+    static final int DAYS = 7;
+    static final int SLOT_MINUTES = 30;
+    static final LocalTime OPENING = LocalTime.of(8, 0);
+    static final LocalTime CLOSING = LocalTime.of(20, 0);
+
+    private static final LocalTime HOT_START = LocalTime.of(9, 0);
+    private static final LocalTime HOT_END = LocalTime.of(11, 0);
+
+    /**
+     * Операции нагрузочного теста; имя — маршрут контроллера, по которому группируется отчёт.
+     */
+    enum Operation {
+        AVAILABILITY("GET /api/bookings/availability/{serviceId}"),
+        CATALOG("GET /api/bookings/services"),
+        CREATE_BOOKING("POST /api/bookings/create"),
+        UPDATE_BOOKING("PUT /api/bookings/{bookingId}"),
+        CANCEL_BOOKING("DELETE /api/bookings/{bookingId}"),
+        REMAINING_TIME("GET /api/customers/remaining-time/{phoneNumber}"),
+        ADMIN_TIMESLOTS_PAGE("GET /api/admin/timeslots/page"),
+        ADMIN_UPDATE_SERVICE("PUT /api/admin/services/update/{serviceId}");
+
+        final String endpoint;
+
+        Operation(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    final String name;
+    private final double hotShare;
+    private final Map<Operation, Integer> weights;
+    private final int totalWeight;
+
+    TrafficProfile(String name, double hotShare, Map<Operation, Integer> weights) {
+        this.name = name;
+        this.hotShare = hotShare;
+        this.weights = weights;
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    static TrafficProfile of(String name) {
+        for (TrafficProfile profile : values()) {
+            if (profile.name.equals(name)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown traffic profile: " + name);
+    }
+
+    Operation nextOperation(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Время начала бронирования: слот горячего окна с вероятностью hotShare, иначе любой слот ближайших дней.
+     */
+    LocalDateTime nextSlot(Random random, LocalDate today) {
+        if (random.nextDouble() < hotShare) {
+            return randomSlot(random, hotDay(today), HOT_START, HOT_END);
+        }
+        return randomSlot(random, today.plusDays(1 + random.nextInt(DAYS)), OPENING, CLOSING);
+    }
+
+    /**
+     * День запроса свободного времени, с тем же распределением, что и у бронирований.
+     */
+    LocalDate nextDay(Random random, LocalDate today) {
+        return nextSlot(random, today).toLocalDate();
+    }
+
+    static LocalDate hotDay(LocalDate today) {
+        return today.with(TemporalAdjusters.next(DayOfWeek.SATURDAY));
+    }
+
+    private static LocalDateTime randomSlot(Random random, LocalDate date, LocalTime from, LocalTime to) {
+        int slots = (to.toSecondOfDay() - from.toSecondOfDay()) / 60 / SLOT_MINUTES;
+        return date.atTime(from).plusMinutes((long) random.nextInt(slots) * SLOT_MINUTES);
+    }
+
+    private static Map<Operation, Integer> weights(int availability, int catalog, int create, int update, int cancel,
+                                                   int remainingTime, int adminTimeslots, int adminUpdateService) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        weights.put(Operation.AVAILABILITY, availability);
+        weights.put(Operation.CATALOG, catalog);
+        weights.put(Operation.CREATE_BOOKING, create);
+        weights.put(Operation.UPDATE_BOOKING, update);
+        weights.put(Operation.CANCEL_BOOKING, cancel);
+        weights.put(Operation.REMAINING_TIME, remainingTime);
+        weights.put(Operation.ADMIN_TIMESLOTS_PAGE, adminTimeslots);
+        weights.put(Operation.ADMIN_UPDATE_SERVICE, adminUpdateService);
+        return weights;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.carwashapi.config;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.CustomerSummary;
+import com.example.carwashapi.exception.CustomerNotFoundException;
+import com.example.carwashapi.exception.NotFoundException;
+import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.service.CustomerServiceImpl;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Маршрутизация чтения на реплику с двумя независимыми встроенными PostgreSQL: основной базой
+ * из {@link EmbeddedPostgresSupport} и «репликой» со схемой из тех же миграций. Репликации между ними нет,
+ * поэтому по наличию строки видно, из какой базы она прочитана.
+ */
+@SpringBootTest
+public class ReplicaRoutingTest extends EmbeddedPostgresSupport {
+    private static final EmbeddedPostgres REPLICA = startReplica();
+    private static final long REPLICA_CUSTOMER_ID = 9_000_000_001L;
+    private static final String REPLICA_PHONE_NUMBER = "+79990000001";
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.replica.jdbc-url", () -> REPLICA.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.replica.username", () -> "postgres");
+        registry.add("spring.datasource.replica.password", () -> "postgres");
+    }
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final JdbcTemplate replicaJdbcTemplate = new JdbcTemplate(REPLICA.getPostgresDatabase());
+
+    @BeforeEach
+    public void seedReplica() {
+        replicaJdbcTemplate.update("INSERT INTO customer (id, name, phone_number) VALUES (?, 'Replica only', ?) " +
+                "ON CONFLICT (id) DO NOTHING", REPLICA_CUSTOMER_ID, REPLICA_PHONE_NUMBER);
+    }
+
+    @Test
+    public void testReadOnlyServiceMethodsReadFromReplica() throws Exception {
+        assertEquals(new CustomerSummary(REPLICA_CUSTOMER_ID, "Replica only", REPLICA_PHONE_NUMBER),
+                customerService.getCustomerSummaryById(REPLICA_CUSTOMER_ID));
+        assertTrue(customerService.getAllCustomers().stream()
+                .anyMatch(customer -> customer.getId() == REPLICA_CUSTOMER_ID));
+        assertEquals(-1, customerService.getRemainingTimeUntilNextBooking(REPLICA_PHONE_NUMBER));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        customerService.exportCustomers(out);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains(REPLICA_PHONE_NUMBER));
+    }
+
+    @Test
+    public void testWritesGoToPrimary() throws Exception {
+        Customer created = customerService.createCustomer(new CustomerRequest("Primary only", "+79990000002"));
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM customer WHERE id = ?", Integer.class, created.getId()));
+        assertEquals(0, replicaJdbcTemplate.queryForObject("SELECT count(*) FROM customer WHERE id = ?", Integer.class, created.getId()));
+        assertThrows(NotFoundException.class, () -> customerService.getCustomerSummaryById(created.getId()));
+    }
+
+    @Test
+    public void testReadsOutsideReadOnlyServiceMethodsUsePrimary() {
+        // Собственные транзакции только для чтения репозиториев Spring Data и кэш клиентов по телефону.
+        assertThrows(NotFoundException.class, () -> customerService.getCustomerById(REPLICA_CUSTOMER_ID));
+        assertThrows(CustomerNotFoundException.class, () -> customerService.getCustomerByPhoneNumber(REPLICA_PHONE_NUMBER));
+
+        // Метод только для чтения, вызванный из транзакции записи, читает в ней же с основной базы.
+        Boolean foundInWriteTransaction = transactionTemplate.execute(status -> {
+            try {
+                customerService.getCustomerSummaryById(REPLICA_CUSTOMER_ID);
+                return true;
+            } catch (NotFoundException e) {
+                return false;
+            }
+        });
+        assertEquals(Boolean.FALSE, foundInWriteTransaction);
+    }
+
+    private static EmbeddedPostgres startReplica() {
+        try {
+            EmbeddedPostgres replica = EmbeddedPostgres.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    replica.close();
+                } catch (IOException ignored) {
+                    // Процесс PostgreSQL завершится вместе с JVM.
+                }
+            }));
+            Flyway.configure()
+                    .dataSource(replica.getPostgresDatabase())
+                    .locations("classpath:/db.migrations")
+                    .load()
+                    .migrate();
+            return replica;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.carwashapi.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запоминает SQL, сформированный Hibernate в текущем потоке.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    public static List<String> capture(Runnable action) {
+        STATEMENTS.get().clear();
+        action.run();
+        List<String> statements = new ArrayList<>(STATEMENTS.get());
+        STATEMENTS.get().clear();
+        return statements;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.carwashapi.repository;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.service.BookingPartitionManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Регрессионные тесты планов запросов: каждый запрос репозитория выполняется на заполненной базе,
+ * его SQL перехватывается и проверяется через EXPLAIN. Тест падает, если план содержит
+ * последовательное сканирование таблицы customer или месячных секций booking и timeslot с данными теста
+ * (в остальных секциях несколько строк других тестов, и их последовательное сканирование ничего не стоит).
+ * <p>
+ * Запросы, которые по смыслу читают всю таблицу (findAll, findAllIntervals, findAllSummaries), здесь не проверяются.
+ * Новый запрос в BookingRepository, CustomerRepository или TimeslotRepository должен получить тест здесь.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.carwashapi.repository.CapturingStatementInspector")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RepositoryQueryPlanTest extends EmbeddedPostgresSupport {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2031, 1, 1, 0, 0);
+    private static final int SERVICES = 50;
+    private static final int SLOTS = 4000;
+    private static final int CUSTOMERS = 50000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingPartitionManager partitionManager;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TimeslotRepository timeslotRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Set<String> checkedTables = new HashSet<>(Set.of("customer"));
+
+    private long serviceId;
+    private long bookingId;
+    private long customerId;
+    private long timeslotId;
+
+    @BeforeAll
+    public void seed() {
+        partitionManager.createPartitions(YearMonth.from(BASE_TIME), YearMonth.from(slotStart(SLOTS)));
+        for (YearMonth month = YearMonth.from(BASE_TIME); !month.isAfter(YearMonth.from(slotStart(SLOTS))); month = month.plusMonths(1)) {
+            checkedTables.add(String.format("booking_p%04d_%02d", month.getYear(), month.getMonthValue()));
+            checkedTables.add(String.format("timeslot_p%04d_%02d", month.getYear(), month.getMonthValue()));
+        }
+        jdbcTemplate.update("INSERT INTO service (name, price, bays) " +
+                "SELECT 'Plan service ' || g, 100, 1 FROM generate_series(1, ?) g", SERVICES);
+        jdbcTemplate.update("INSERT INTO customer (name, phone_number) " +
+                "SELECT 'Plan customer ' || g, '+7901' || lpad(g::text, 7, '0') FROM generate_series(1, ?) g", CUSTOMERS);
+        jdbcTemplate.update("WITH s AS (SELECT id, row_number() OVER (ORDER BY id) - 1 AS n " +
+                "           FROM service WHERE name LIKE 'Plan service %'), " +
+                "     c AS (SELECT id, row_number() OVER (ORDER BY id) - 1 AS n " +
+                "           FROM customer WHERE name LIKE 'Plan customer %') " +
+                "INSERT INTO booking (service_id, customer_id, bay, start_time, end_time) " +
+                "SELECT s.id, c.id, 1, " +
+                "       ?::timestamp + slot * interval '30 minutes', ?::timestamp + (slot + 1) * interval '30 minutes' " +
+                "FROM generate_series(0, ? - 1) slot CROSS JOIN s JOIN c ON c.n = (slot * ? + s.n) % ?",
+                BASE_TIME, BASE_TIME, SLOTS, SERVICES, CUSTOMERS);
+        jdbcTemplate.update("WITH s AS (SELECT id FROM service WHERE name LIKE 'Plan service %') " +
+                "INSERT INTO timeslot (service_id, available, start_time, end_time) " +
+                "SELECT s.id, slot % 3 = 0, " +
+                "       ?::timestamp + slot * interval '30 minutes', ?::timestamp + (slot + 1) * interval '30 minutes' " +
+                "FROM generate_series(0, ? - 1) slot CROSS JOIN s",
+                BASE_TIME, BASE_TIME, SLOTS);
+        jdbcTemplate.execute("ANALYZE");
+
+        serviceId = jdbcTemplate.queryForObject("SELECT min(id) FROM service WHERE name LIKE 'Plan service %'", Long.class);
+        bookingId = jdbcTemplate.queryForObject("SELECT max(id) FROM booking", Long.class);
+        customerId = jdbcTemplate.queryForObject("SELECT max(id) FROM customer", Long.class);
+        timeslotId = jdbcTemplate.queryForObject("SELECT max(id) FROM timeslot", Long.class);
+    }
+
+    @Test
+    public void testBookingFindOccupiedBays() {
+        LocalDateTime startTime = slotStart(SLOTS - 10);
+        LocalDateTime endTime = startTime.plusMinutes(30);
+
+        assertNoSequentialScan(() -> bookingRepository.findOccupiedBays(serviceId, startTime, endTime),
+                serviceId, startTime, startTime.minus(Booking.MAX_DURATION), endTime);
+    }
+
+    @Test
+    public void testBookingFindIntervals() {
+        LocalDateTime startTime = slotStart(SLOTS - 10).toLocalDate().atStartOfDay();
+        LocalDateTime endTime = startTime.plusDays(1);
+
+        assertNoSequentialScan(() -> bookingRepository.findIntervals(serviceId, startTime, endTime),
+                serviceId, startTime, startTime.minus(Booking.MAX_DURATION), endTime);
+    }
+
+    @Test
+    public void testBookingFindIntervalsForServices() {
+        LocalDateTime startTime = slotStart(SLOTS - 10);
+        LocalDateTime endTime = startTime.plusHours(3);
+
+        assertNoSequentialScan(() -> bookingRepository.findIntervalsForServices(List.of(serviceId, serviceId + 1), startTime, endTime),
+                serviceId, serviceId + 1, startTime, startTime.minus(Booking.MAX_DURATION), endTime);
+    }
+
+    @Test
+    public void testBookingFindOccupiedBaysWithId() {
+        LocalDateTime startTime = slotStart(SLOTS - 10);
+        LocalDateTime endTime = startTime.plusMinutes(30);
+
+        assertNoSequentialScan(() -> bookingRepository.findOccupiedBaysWithId(serviceId, startTime, endTime, bookingId),
+                serviceId, bookingId, startTime, startTime.minus(Booking.MAX_DURATION), endTime);
+    }
+
+    @Test
+    public void testBookingFindById() {
+        assertNoSequentialScan(() -> bookingRepository.findById(bookingId), bookingId);
+    }
+
+    @Test
+    public void testBookingFindSummaryById() {
+        assertNoSequentialScan(() -> bookingRepository.findSummaryById(bookingId), bookingId);
+    }
+
+    @Test
+    public void testBookingFindSummaryPageAfter() {
+        long afterId = bookingId - 1000;
+
+        assertNoSequentialScan(() -> bookingRepository.findSummaryPageAfter(afterId, PageRequest.of(0, 100)), afterId, 100);
+    }
+
+    @Test
+    public void testBookingFindByCustomerId() {
+        assertNoSequentialScan(() -> bookingRepository.findByCustomerId(customerId), customerId);
+    }
+
+    @Test
+    public void testCustomerFindSummaryByPhoneNumber() {
+        String phoneNumber = "+79010012345";
+
+        assertNoSequentialScan(() -> customerRepository.findSummaryByPhoneNumber(phoneNumber), phoneNumber);
+    }
+
+    @Test
+    public void testCustomerFindNextBookingByPhoneNumber() {
+        String phoneNumber = "+79010012345";
+        LocalDateTime now = slotStart(SLOTS / 2);
+
+        assertNoSequentialScan(() -> customerRepository.findNextBookingByPhoneNumber(phoneNumber, now), now, phoneNumber);
+    }
+
+    @Test
+    public void testCustomerFindById() {
+        assertNoSequentialScan(() -> customerRepository.findById(customerId), customerId);
+    }
+
+    @Test
+    public void testCustomerFindSummaryById() {
+        assertNoSequentialScan(() -> customerRepository.findSummaryById(customerId), customerId);
+    }
+
+    @Test
+    public void testCustomerFindSummaryPageAfter() {
+        long afterId = customerId - 1000;
+
+        assertNoSequentialScan(() -> customerRepository.findSummaryPageAfter(afterId, PageRequest.of(0, 100)), afterId, 100);
+    }
+
+    @Test
+    public void testTimeslotFindSummaryPageAfter() {
+        long afterId = timeslotId - 1000;
+
+        assertNoSequentialScan(() -> timeslotRepository.findSummaryPageAfter(afterId, PageRequest.of(0, 100)), afterId, 100);
+    }
+
+    @Test
+    public void testTimeslotFindStartTimes() {
+        LocalDateTime from = slotStart(SLOTS - 100);
+        LocalDateTime to = from.plusDays(1);
+
+        assertNoSequentialScan(() -> timeslotRepository.findStartTimes(serviceId, from, to), serviceId, from, to);
+    }
+
+    @Test
+    public void testTimeslotFindAvailableByServiceId() {
+        LocalDateTime from = slotStart(SLOTS - 100);
+        LocalDateTime to = from.plusDays(1);
+
+        assertNoSequentialScan(() -> timeslotRepository.findAvailableByServiceId(serviceId, from, to),
+                serviceId, from, to);
+    }
+
+    @Test
+    public void testTimeslotFindById() {
+        assertNoSequentialScan(() -> timeslotRepository.findById(timeslotId), timeslotId);
+    }
+
+    @Test
+    public void testTimeslotFindSummaryById() {
+        assertNoSequentialScan(() -> timeslotRepository.findSummaryById(timeslotId), timeslotId);
+    }
+
+    /**
+     * Выполняет запрос репозитория, перехватывает его SQL и проверяет план через EXPLAIN.
+     *
+     * @param parameters Значения параметров в порядке их появления в SQL.
+     */
+    private void assertNoSequentialScan(Runnable query, Object... parameters) {
+        List<String> statements = CapturingStatementInspector.capture(query);
+        assertEquals(1, statements.size(), "Ожидался один SQL-запрос: " + statements);
+        String sql = statements.get(0);
+
+        String plan = jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            return statement;
+        }, rs -> rs.next() ? rs.getString(1) : null);
+
+        List<String> sequentialScans = new ArrayList<>();
+        try {
+            collectSequentialScans(objectMapper.readTree(plan).get(0).get("Plan"), sequentialScans);
+        } catch (Exception e) {
+            fail("Не удалось разобрать план запроса: " + e.getMessage());
+        }
+        assertTrue(sequentialScans.isEmpty(),
+                "Последовательное сканирование " + sequentialScans + " в запросе:\n" + sql + "\nПлан:\n" + plan);
+    }
+
+    private void collectSequentialScans(JsonNode node, List<String> sequentialScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())
+                && checkedTables.contains(node.path("Relation Name").asText())) {
+            sequentialScans.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSequentialScans(child, sequentialScans);
+        }
+    }
+
+    private static LocalDateTime slotStart(int slot) {
+        return BASE_TIME.plusMinutes(30L * slot);
+    }
+}
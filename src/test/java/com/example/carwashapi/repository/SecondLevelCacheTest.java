@@ -0,0 +1,160 @@
+package com.example.carwashapi.repository;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.config.SecondLevelCacheConfig;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.dto.TimeslotRequest;
+import com.example.carwashapi.dto.TimeslotScheduleRequest;
+import com.example.carwashapi.dto.TimeslotSummary;
+import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.model.Timeslot;
+import com.example.carwashapi.service.BookingServiceImpl;
+import com.example.carwashapi.service.ServiceServiceImpl;
+import com.example.carwashapi.service.TimeslotServiceImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кэш второго уровня и кэш запросов: повторное чтение не обращается к базе, запись через JPA сбрасывает кэш.
+ * SQL перехватывается {@link CapturingStatementInspector}.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.carwashapi.repository.CapturingStatementInspector")
+public class SecondLevelCacheTest extends EmbeddedPostgresSupport {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2035, 6, 1, 0, 0);
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private TimeslotServiceImpl timeslotService;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ServiceRepository serviceRepository;
+
+    @Autowired
+    private TimeslotRepository timeslotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testSecondAvailabilityReadIssuesNoSql() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Query cache", 100.0, 1));
+        addTimeslot(service, DAY.plusHours(10));
+        addTimeslot(service, DAY.plusHours(11));
+
+        List<TimeslotSummary> first = readAvailability(service.getId());
+        List<TimeslotSummary> second = new ArrayList<>();
+        List<String> statements = CapturingStatementInspector.capture(() -> second.addAll(readAvailability(service.getId())));
+
+        assertEquals(List.of(), statements);
+        assertEquals(2, first.size());
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testScheduleGenerationInvalidatesAvailabilityQuery() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Query cache schedule", 100.0, 1));
+        addTimeslot(service, DAY.plusHours(8));
+        // Результат запроса попадает в кэш запросов, день календаря при этом не загружен.
+        assertEquals(1, timeslotRepository.findAvailableByServiceId(service.getId(), DAY, DAY.plusDays(1)).size());
+
+        timeslotService.generateTimeslots(new TimeslotScheduleRequest(service.getId(), DAY.toLocalDate(), DAY.toLocalDate(),
+                LocalTime.of(10, 0), LocalTime.of(12, 0), 30, EnumSet.allOf(DayOfWeek.class)));
+
+        assertEquals(List.of(DAY.plusHours(8), DAY.plusHours(10), DAY.plusHours(10).plusMinutes(30),
+                        DAY.plusHours(11), DAY.plusHours(11).plusMinutes(30)),
+                readAvailability(service.getId()).stream().map(TimeslotSummary::getStartTime).toList());
+    }
+
+    @Test
+    public void testTimeslotWriteInvalidatesAvailabilityQuery() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Query cache invalidation", 100.0, 1));
+        addTimeslot(service, DAY.plusHours(10));
+        timeslotService.getAvailableTimeslots(service.getId(), DAY, DAY.plusDays(1));
+
+        addTimeslot(service, DAY.plusHours(11));
+        List<TimeslotSummary> afterWrite = new ArrayList<>();
+        List<String> statements = CapturingStatementInspector.capture(() ->
+                afterWrite.addAll(timeslotService.getAvailableTimeslots(service.getId(), DAY, DAY.plusDays(1))));
+
+        assertFalse(statements.isEmpty());
+        assertEquals(2, afterWrite.size());
+    }
+
+    @Test
+    public void testEntitiesAndTimeslotCollectionAreCached() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Entity cache", 100.0, 1));
+        Timeslot timeslot = addTimeslot(service, DAY.plusHours(10));
+        loadServiceWithTimeslots(service.getId(), timeslot.getId());
+
+        List<String> statements = CapturingStatementInspector.capture(() -> {
+            assertEquals(1, loadServiceWithTimeslots(service.getId(), timeslot.getId()));
+        });
+
+        assertEquals(List.of(), statements);
+    }
+
+    @Test
+    public void testRegionStatisticsArePublished() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Region statistics", 100.0, 1));
+        Timeslot timeslot = addTimeslot(service, DAY.plusHours(10));
+        loadServiceWithTimeslots(service.getId(), timeslot.getId());
+        loadServiceWithTimeslots(service.getId(), timeslot.getId());
+
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", SecondLevelCacheConfig.TIMESLOT_REGION, "result", "hit").functionCounter();
+        assertNotNull(hits);
+        assertTrue(hits.count() >= 1);
+    }
+
+    /**
+     * Читает свободные слоты дня так же, как эндпоинт /availability/{serviceId}.
+     */
+    private List<TimeslotSummary> readAvailability(Long serviceId) {
+        try {
+            return bookingService.getAvailableTimeSlotsForService(bookingService.getServiceById(serviceId), DAY, DAY.plusDays(1));
+        } catch (ServiceNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Timeslot addTimeslot(Service service, LocalDateTime startTime) throws Exception {
+        return timeslotService.addTimeslot(new TimeslotRequest(service.getId(), startTime, startTime.plusMinutes(30), true));
+    }
+
+    /**
+     * Загружает услугу, её слоты и слот по идентификатору в отдельной транзакции.
+     *
+     * @return Количество слотов услуги.
+     */
+    private int loadServiceWithTimeslots(Long serviceId, Long timeslotId) {
+        return transactionTemplate.execute(status -> {
+            Service service = serviceRepository.findById(serviceId).orElseThrow();
+            timeslotRepository.findById(timeslotId).orElseThrow();
+            return service.getTimeslots().size();
+        });
+    }
+}
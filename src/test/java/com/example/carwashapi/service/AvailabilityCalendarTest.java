@@ -0,0 +1,162 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingInterval;
+import com.example.carwashapi.dto.TimeslotSummary;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.model.Timeslot;
+import com.example.carwashapi.repository.BookingRepository;
+import com.example.carwashapi.repository.TimeslotRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AvailabilityCalendarTest {
+    private static final LocalDate DAY = LocalDate.of(2030, 5, 10);
+    private static final LocalDateTime FROM = DAY.atStartOfDay();
+    private static final LocalDateTime TO = FROM.plusDays(2);
+
+    private BookingRepository bookingRepository;
+    private TimeslotRepository timeslotRepository;
+    private AvailabilityCalendar calendar;
+    private Service service;
+    private List<Timeslot> timeslots;
+    private List<BookingInterval> bookings;
+
+    @BeforeEach
+    public void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        timeslotRepository = mock(TimeslotRepository.class);
+        calendar = new AvailabilityCalendar(bookingRepository, timeslotRepository, 1000, Duration.ofHours(1),
+                new SimpleMeterRegistry());
+        service = new Service();
+        service.setId(1L);
+        service.setBays(1);
+        timeslots = new ArrayList<>();
+        bookings = new ArrayList<>();
+        when(timeslotRepository.findAvailableByServiceId(eq(1L), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime start = invocation.getArgument(1);
+            LocalDateTime end = invocation.getArgument(2);
+            return timeslots.stream()
+                    .filter(t -> !t.getStartTime().isBefore(start) && t.getStartTime().isBefore(end))
+                    .map(TimeslotSummary::of)
+                    .toList();
+        });
+        when(bookingRepository.findIntervals(eq(1L), any(), any())).thenAnswer(invocation -> {
+            LocalDateTime start = invocation.getArgument(1);
+            LocalDateTime end = invocation.getArgument(2);
+            return bookings.stream().filter(b -> b.overlaps(start, end)).toList();
+        });
+    }
+
+    @Test
+    public void testSlotHiddenWhenAllBaysBooked() {
+        timeslots.add(timeslot(1L, 10, 0, 30));
+        timeslots.add(timeslot(2L, 11, 0, 30));
+        bookings.add(booking(100L, 1, at(10, 10), at(10, 20)));
+
+        assertEquals(List.of(2L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+
+        service.setBays(2);
+        assertEquals(List.of(1L, 2L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+    }
+
+    @Test
+    public void testDayIsLoadedOnce() {
+        timeslots.add(timeslot(1L, 10, 0, 30));
+
+        calendar.getAvailableTimeslots(service, FROM, FROM.plusDays(1));
+        calendar.getAvailableTimeslots(service, FROM, FROM.plusDays(1));
+
+        verify(timeslotRepository, times(1)).findAvailableByServiceId(eq(1L), any(), any());
+        verify(bookingRepository, times(1)).findIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    public void testBookingChangesAreAppliedIncrementally() {
+        timeslots.add(timeslot(1L, 10, 0, 30));
+        timeslots.add(timeslot(2L, 11, 0, 30));
+        assertEquals(List.of(1L, 2L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+
+        BookingInterval booking = booking(100L, 1, at(10, 0), at(10, 30));
+        calendar.bookingChanged(null, booking);
+        assertEquals(List.of(2L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+
+        BookingInterval moved = booking(100L, 1, at(11, 15), at(11, 45));
+        calendar.bookingChanged(booking, moved);
+        assertEquals(List.of(1L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+
+        calendar.bookingChanged(moved, null);
+        assertEquals(List.of(1L, 2L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+        verify(bookingRepository, times(2)).findIntervals(eq(1L), any(), any());
+    }
+
+    @Test
+    public void testTimeslotChangesAreAppliedIncrementally() {
+        Timeslot timeslot = timeslot(1L, 10, 0, 30);
+        assertTrue(calendar.getAvailableTimeslots(service, FROM, TO).isEmpty());
+
+        calendar.timeslotChanged(null, timeslot);
+        assertEquals(List.of(1L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+
+        Timeslot unavailable = timeslot(1L, 10, 0, 30);
+        unavailable.setAvailable(false);
+        calendar.timeslotChanged(timeslot, unavailable);
+        assertTrue(calendar.getAvailableTimeslots(service, FROM, TO).isEmpty());
+
+        Timeslot moved = timeslot(1L, 12, 0, 30);
+        calendar.timeslotChanged(unavailable, moved);
+        assertEquals(List.of(1L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+
+        calendar.timeslotChanged(moved, null);
+        assertTrue(calendar.getAvailableTimeslots(service, FROM, TO).isEmpty());
+    }
+
+    @Test
+    public void testBookingAcrossMidnightBlocksNextDay() {
+        timeslots.add(timeslot(1L, 23, 0, 30));
+        Timeslot nextDay = new Timeslot(2L, service, FROM.plusDays(1), FROM.plusDays(1).plusMinutes(30), true);
+        timeslots.add(nextDay);
+        bookings.add(booking(100L, 1, at(23, 50), FROM.plusDays(1).plusMinutes(10)));
+
+        assertEquals(List.of(1L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+    }
+
+    @Test
+    public void testUnalignedBookingOccupiesWholeBuckets() {
+        timeslots.add(timeslot(1L, 10, 0, 30));
+        timeslots.add(timeslot(2L, 10, 30, 30));
+        bookings.add(booking(100L, 1, at(10, 0), at(10, 30)));
+
+        assertEquals(List.of(2L), ids(calendar.getAvailableTimeslots(service, FROM, TO)));
+
+        calendar.bookingChanged(bookings.get(0), booking(100L, 1, at(10, 0), at(10, 31)));
+        assertTrue(calendar.getAvailableTimeslots(service, FROM, TO).isEmpty());
+    }
+
+    private Timeslot timeslot(Long id, int hour, int minute, int minutes) {
+        return new Timeslot(id, service, at(hour, minute), at(hour, minute).plusMinutes(minutes), true);
+    }
+
+    private static BookingInterval booking(Long id, int bay, LocalDateTime startTime, LocalDateTime endTime) {
+        return new BookingInterval(id, 1L, bay, startTime, endTime);
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.atTime(hour, minute);
+    }
+
+    private static List<Long> ids(List<TimeslotSummary> timeslots) {
+        return timeslots.stream().map(TimeslotSummary::getId).toList();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.model.Service;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Объединение изменений в {@link AvailabilityFeed} при параллельных отметках и раздаче: каждый отмеченный день
+ * попадает в обновление, даже если отмечен во время выполнения {@link AvailabilityFeed#dispatch()}.
+ */
+public class AvailabilityFeedDispatchTest {
+
+    private static final Long SERVICE_ID = 1L;
+    private static final LocalDate DAY = LocalDate.of(2035, 1, 1);
+    private static final int WRITERS = 8;
+    private static final int DAYS_PER_WRITER = 20000;
+
+    private final Set<LocalDate> dispatchedDays = ConcurrentHashMap.newKeySet();
+
+    private AvailabilityFeed feed;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        AvailabilityCalendar calendar = mock(AvailabilityCalendar.class);
+        when(calendar.getAvailableTimeslots(any(), any(), any())).thenAnswer(invocation -> {
+            dispatchedDays.add(invocation.<LocalDateTime>getArgument(1).toLocalDate());
+            return List.of();
+        });
+        ServiceServiceImpl serviceService = mock(ServiceServiceImpl.class);
+        Service service = new Service();
+        service.setId(SERVICE_ID);
+        when(serviceService.getServiceById(SERVICE_ID)).thenReturn(service);
+        feed = new AvailabilityFeed(calendar, serviceService, WRITERS * DAYS_PER_WRITER, Duration.ofMinutes(1), 1,
+                new SimpleMeterRegistry());
+        feed.subscribe(SERVICE_ID);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        feed.shutdown();
+    }
+
+    @Test
+    public void testChangesDuringDispatchAreNotLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        try {
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < DAYS_PER_WRITER; i++) {
+                        feed.availabilityChanged(SERVICE_ID, DAY.plusDays((long) writer * DAYS_PER_WRITER + i));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            while (!writers.stream().allMatch(Future::isDone)) {
+                feed.dispatch();
+            }
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+            feed.dispatch();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(WRITERS * DAYS_PER_WRITER, dispatchedDays.size());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.dto.TimeslotRequest;
+import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.model.Service;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Лента свободного времени по HTTP: объединение изменений одного дня и событие reset при переполнении буфера.
+ * Обновления раздаются явным вызовом {@link AvailabilityFeed#dispatch()}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "booking.availability.feed.coalesce-interval=PT1H",
+        "booking.availability.feed.buffer-size=2"
+})
+public class AvailabilityFeedTest extends EmbeddedPostgresSupport {
+
+    private static final LocalDate DAY = LocalDate.of(2034, 5, 1);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AvailabilityFeed feed;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private TimeslotServiceImpl timeslotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testChangesOfOneDayAreCoalesced() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Feed coalescing", 100.0, 1));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Feed", "+79060000001"));
+        addTimeslot(service, DAY.atTime(10, 0));
+        addTimeslot(service, DAY.atTime(11, 0));
+        addTimeslot(service, DAY.atTime(12, 0));
+        addTimeslot(service, DAY.plusDays(1).atTime(10, 0));
+
+        try (EventStream events = subscribe(service)) {
+            bookingService.createBooking(request(customer, service, DAY.atTime(10, 0)));
+            bookingService.createBooking(request(customer, service, DAY.atTime(11, 0)));
+            feed.dispatch();
+            bookingService.createBooking(request(customer, service, DAY.plusDays(1).atTime(10, 0)));
+            feed.dispatch();
+
+            String[] first = events.next();
+            assertEquals(AvailabilityFeed.UPDATE_EVENT, first[0]);
+            JsonNode update = objectMapper.readTree(first[1]);
+            assertEquals(DAY.toString(), update.get("date").asText());
+            assertEquals(1, update.get("timeslots").size());
+            assertEquals(DAY.atTime(12, 0), LocalDateTime.parse(update.get("timeslots").get(0).get("startTime").asText()));
+
+            String[] second = events.next();
+            assertEquals(AvailabilityFeed.UPDATE_EVENT, second[0]);
+            assertEquals(DAY.plusDays(1).toString(), objectMapper.readTree(second[1]).get("date").asText());
+            assertEquals(0, objectMapper.readTree(second[1]).get("timeslots").size());
+        }
+    }
+
+    @Test
+    public void testOverflowReplacesBufferWithReset() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Feed overflow", 100.0, 1));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Feed", "+79060000002"));
+
+        try (EventStream events = subscribe(service)) {
+            for (int i = 0; i < 3; i++) {
+                bookingService.createBooking(request(customer, service, DAY.plusDays(i).atTime(10, 0)));
+            }
+            feed.dispatch();
+
+            String[] event = events.next();
+            assertEquals(AvailabilityFeed.RESET_EVENT, event[0]);
+            assertEquals(service.getId().toString(), event[1]);
+        }
+    }
+
+    private void addTimeslot(Service service, LocalDateTime startTime) throws Exception {
+        timeslotService.addTimeslot(new TimeslotRequest(service.getId(), startTime, startTime.plusMinutes(30), true));
+    }
+
+    private static BookingRequest request(Customer customer, Service service, LocalDateTime startTime) {
+        return new BookingRequest(customer.getId(), service.getId(), startTime, startTime.plusMinutes(30));
+    }
+
+    private EventStream subscribe(Service service) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/bookings/availability/" + service.getId() + "/stream"))
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        return new EventStream(response.body());
+    }
+
+    /**
+     * События SSE в виде пар (имя, данные), читаемые в фоновом потоке.
+     */
+    private static final class EventStream implements AutoCloseable {
+        private final Stream<String> lines;
+        private final BlockingQueue<String[]> events = new LinkedBlockingQueue<>();
+
+        EventStream(Stream<String> lines) {
+            this.lines = lines;
+            Thread reader = new Thread(() -> {
+                String name = null;
+                StringBuilder data = new StringBuilder();
+                for (Iterator<String> it = lines.iterator(); it.hasNext(); ) {
+                    String line = it.next();
+                    if (line.startsWith("event:")) {
+                        name = line.substring("event:".length());
+                    } else if (line.startsWith("data:")) {
+                        data.append(line.substring("data:".length()));
+                    } else if (line.isEmpty() && name != null) {
+                        events.add(new String[]{name, data.toString()});
+                        name = null;
+                        data.setLength(0);
+                    }
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        String[] next() throws InterruptedException {
+            String[] event = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event, "no event received");
+            return event;
+        }
+
+        @Override
+        public void close() {
+            lines.close();
+        }
+    }
+}
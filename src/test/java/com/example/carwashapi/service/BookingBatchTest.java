@@ -0,0 +1,158 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.BookingBatchRequest;
+import com.example.carwashapi.dto.BookingBatchResult;
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.BookingSummary;
+import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.model.Service;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.validation.Validator;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.example.carwashapi.dto.BookingBatchResult.Status.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Пакетное создание бронирований на встроенном PostgreSQL.
+ */
+@SpringBootTest
+public class BookingBatchTest extends EmbeddedPostgresSupport {
+
+    private static final LocalDateTime TEN = LocalDateTime.of(2031, 3, 1, 10, 0);
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @SpyBean
+    private BookingBatchWriter batchWriter;
+
+    @Test
+    public void testBatchResolvesConflictsWithinBatchAndDatabase() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Batch two bays", 100.0, 2));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Fleet", "+79030000001"));
+        Booking existing = bookingService.createBooking(request(customer, service, TEN));
+
+        List<BookingBatchResult> results = bookingService.createBookings(List.of(
+                request(customer, service, TEN),
+                request(customer, service, TEN.plusMinutes(15)),
+                request(customer, service, TEN.plusHours(1)),
+                new BookingRequest(-1L, service.getId(), TEN.plusHours(2), TEN.plusHours(3)),
+                new BookingRequest(customer.getId(), -1L, TEN.plusHours(2), TEN.plusHours(3)),
+                new BookingRequest(customer.getId(), service.getId(), TEN.plusHours(3), TEN.plusHours(2))));
+
+        assertEquals(List.of(CREATED, CONFLICT, CREATED, NOT_FOUND, NOT_FOUND, INVALID),
+                results.stream().map(BookingBatchResult::getStatus).toList());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+        BookingSummary first = results.get(0).getBooking();
+        assertNotEquals(existing.getBay(), first.getBay());
+        assertStored(first);
+        assertStored(results.get(2).getBooking());
+    }
+
+    @Test
+    public void testRequestEndingBeforeStartFailsValidation() {
+        BookingRequest inverted = new BookingRequest(1L, 1L, TEN.plusHours(1), TEN);
+        BookingRequest empty = new BookingRequest(1L, 1L, TEN, TEN);
+
+        assertEquals(Set.of("endAfterStart"), violatedProperties(inverted));
+        assertEquals(Set.of("endAfterStart"), violatedProperties(empty));
+        assertTrue(violatedProperties(new BookingRequest(1L, 1L, TEN, TEN.plusMinutes(30))).isEmpty());
+        assertFalse(validator.validate(new BookingBatchRequest(List.of(new BookingRequest(1L, 1L, TEN, TEN.plusMinutes(30)), inverted))).isEmpty());
+    }
+
+    @Test
+    public void testBatchAssignsBaysInRequestOrder() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Batch fleet", 100.0, 3));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Fleet", "+79030000002"));
+        List<BookingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requests.add(request(customer, service, TEN.plusMinutes(30L * (i / 5))));
+        }
+
+        List<BookingBatchResult> results = bookingService.createBookings(requests);
+
+        for (int i = 0; i < results.size(); i++) {
+            BookingBatchResult result = results.get(i);
+            if (i % 5 < 3) {
+                assertEquals(CREATED, result.getStatus());
+                assertEquals(i % 5 + 1, result.getBooking().getBay());
+                assertNotNull(result.getBooking().getId());
+            } else {
+                assertEquals(CONFLICT, result.getStatus());
+            }
+        }
+        assertEquals(30, results.stream().filter(result -> result.getStatus() == CREATED).count());
+        // Идентификаторы пакета идут подряд из блоков booking_seq, а не по блоку на строку.
+        LongSummaryStatistics ids = results.stream().filter(result -> result.getStatus() == CREATED)
+                .mapToLong(result -> result.getBooking().getId()).summaryStatistics();
+        assertTrue(ids.getMax() - ids.getMin() < 2 * PooledIdAllocator.BLOCK_SIZE, ids.toString());
+    }
+
+    @Test
+    public void testBatchReportsConcurrentDatabaseConflictPerItem() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Batch concurrent", 100.0, 2));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Fleet", "+79030000003"));
+        // Бронирование, записанное в обход блокировки между проверкой боксов и вставкой пакета.
+        doAnswer(invocation -> {
+            jdbcTemplate.update("INSERT INTO booking (customer_id, service_id, start_time, end_time, bay) VALUES (?, ?, ?, ?, 1)",
+                    customer.getId(), service.getId(), TEN, TEN.plusMinutes(30));
+            return invocation.callRealMethod();
+        }).when(batchWriter).insert(anyList());
+
+        List<BookingBatchResult> results = bookingService.createBookings(List.of(
+                request(customer, service, TEN),
+                request(customer, service, TEN),
+                request(customer, service, TEN.plusHours(1))));
+
+        assertEquals(List.of(CREATED, CONFLICT, CREATED),
+                results.stream().map(BookingBatchResult::getStatus).toList());
+        assertEquals(2, results.get(0).getBooking().getBay());
+        assertStored(results.get(0).getBooking());
+        assertStored(results.get(2).getBooking());
+    }
+
+    private void assertStored(BookingSummary booking) {
+        assertEquals(booking, bookingService.getBookingById(booking.getId()));
+    }
+
+    private Set<String> violatedProperties(BookingRequest request) {
+        return validator.validate(request).stream()
+                .map(violation -> violation.getPropertyPath().toString())
+                .collect(Collectors.toSet());
+    }
+
+    private static BookingRequest request(Customer customer, Service service, LocalDateTime startTime) {
+        return new BookingRequest(customer.getId(), service.getId(), startTime, startTime.plusMinutes(30));
+    }
+}
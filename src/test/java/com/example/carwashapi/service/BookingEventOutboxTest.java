@@ -0,0 +1,174 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.BookingEvent;
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.exception.BookingConflictException;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.model.Service;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * События бронирований: запись в booking_outbox вместе с изменением и публикация через {@link BookingEventRelay}.
+ */
+@SpringBootTest
+public class BookingEventOutboxTest extends EmbeddedPostgresSupport {
+
+    private static final LocalDateTime TEN = LocalDateTime.of(2033, 4, 1, 10, 0);
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private BookingEventRelay relay;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testLifecycleEventsArePublishedInOrder() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Outbox lifecycle", 100.0, 2));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Outbox", "+79050000001"));
+
+        Booking booking = bookingService.createBooking(request(customer, service, TEN));
+        bookingService.updateBooking(booking.getId(), request(customer, service, TEN.plusHours(1)));
+        bookingService.deleteBooking(booking.getId());
+        relay.relay();
+
+        List<BookingEvent> events = listener.eventsFor(service);
+        assertEquals(List.of(BookingEvent.Type.CREATED, BookingEvent.Type.UPDATED, BookingEvent.Type.CANCELLED),
+                events.stream().map(BookingEvent::getType).collect(Collectors.toList()));
+        assertTrue(events.stream().allMatch(event -> event.getBooking().getId().equals(booking.getId())));
+        assertEquals(TEN.plusHours(1), events.get(1).getBooking().getStartTime());
+        assertTrue(events.get(0).getId() < events.get(1).getId() && events.get(1).getId() < events.get(2).getId());
+        assertEquals(0, outboxRows(service));
+    }
+
+    @Test
+    public void testRejectedBookingWritesNoEvent() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Outbox conflict", 100.0, 1));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Outbox", "+79050000002"));
+
+        bookingService.createBooking(request(customer, service, TEN));
+        assertThrows(BookingConflictException.class, () -> bookingService.createBooking(request(customer, service, TEN)));
+        relay.relay();
+
+        assertEquals(1, listener.eventsFor(service).size());
+    }
+
+    @Test
+    public void testBatchWritesEventPerCreatedBooking() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Outbox batch", 100.0, 1));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Outbox", "+79050000003"));
+
+        bookingService.createBookings(List.of(request(customer, service, TEN), request(customer, service, TEN),
+                request(customer, service, TEN.plusHours(1))));
+        relay.relay();
+
+        List<BookingEvent> events = listener.eventsFor(service);
+        assertEquals(2, events.size());
+        assertTrue(events.stream().allMatch(event -> event.getType() == BookingEvent.Type.CREATED));
+    }
+
+    @Test
+    public void testCustomerDeletionCancelsBookings() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Outbox customer deletion", 100.0, 1));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Outbox", "+79050000005"));
+        Booking first = bookingService.createBooking(request(customer, service, TEN));
+        Booking second = bookingService.createBooking(request(customer, service, TEN.plusHours(1)));
+
+        customerService.deleteCustomer(customer.getId());
+        relay.relay();
+
+        List<BookingEvent> cancelled = listener.eventsFor(service).stream()
+                .filter(event -> event.getType() == BookingEvent.Type.CANCELLED)
+                .collect(Collectors.toList());
+        assertEquals(List.of(first.getId(), second.getId()),
+                cancelled.stream().map(event -> event.getBooking().getId()).sorted().collect(Collectors.toList()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM booking WHERE customer_id = ?",
+                Integer.class, customer.getId()));
+
+        Customer other = customerService.createCustomer(new CustomerRequest("Outbox", "+79050000006"));
+        assertNotNull(bookingService.createBooking(request(other, service, TEN)).getId());
+    }
+
+    @Test
+    public void testFailedPublishKeepsEventsForRetry() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Outbox retry", 100.0, 1));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Outbox", "+79050000004"));
+        bookingService.createBooking(request(customer, service, TEN));
+
+        listener.failing = true;
+        try {
+            assertThrows(IllegalStateException.class, () -> relay.relay());
+        } finally {
+            listener.failing = false;
+        }
+        assertEquals(1, outboxRows(service));
+
+        listener.events.clear();
+        relay.relay();
+        assertEquals(1, listener.eventsFor(service).size());
+        assertEquals(0, outboxRows(service));
+    }
+
+    private static BookingRequest request(Customer customer, Service service, LocalDateTime startTime) {
+        return new BookingRequest(customer.getId(), service.getId(), startTime, startTime.plusMinutes(30));
+    }
+
+    private int outboxRows(Service service) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM booking_outbox WHERE service_id = ?", Integer.class, service.getId());
+    }
+
+    @TestConfiguration
+    static class ListenerConfig {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    static class RecordingListener {
+        final List<BookingEvent> events = new CopyOnWriteArrayList<>();
+        volatile boolean failing;
+
+        @EventListener
+        public void onBookingEvent(BookingEvent event) {
+            if (failing) {
+                throw new IllegalStateException("Subscriber is unavailable");
+            }
+            events.add(event);
+        }
+
+        List<BookingEvent> eventsFor(Service service) {
+            return events.stream()
+                    .filter(event -> event.getBooking().getServiceId().equals(service.getId()))
+                    .collect(Collectors.toList());
+        }
+    }
+}
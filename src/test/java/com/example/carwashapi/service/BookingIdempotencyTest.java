@@ -0,0 +1,195 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.BookingSummary;
+import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.exception.IdempotencyKeyInProgressException;
+import com.example.carwashapi.exception.InvalidIdempotencyKeyException;
+import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.model.Service;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Создание бронирования с ключом идемпотентности на встроенном PostgreSQL.
+ */
+@SpringBootTest(properties = "booking.idempotency.persistent=true")
+public class BookingIdempotencyTest extends EmbeddedPostgresSupport {
+
+    private static final LocalDateTime TEN = LocalDateTime.of(2032, 2, 1, 10, 0);
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testRetryReturnsOriginalBookingWithoutRepositoryCalls() throws Exception {
+        BookingRequest request = request("Idempotent retry", "+79040000001", TEN);
+
+        BookingSummary created = bookingService.createBooking(request, "retry-1");
+        long repositoryCalls = bookingRepositoryCalls();
+        BookingSummary replayed = bookingService.createBooking(request, "retry-1");
+
+        assertEquals(created, replayed);
+        assertEquals(repositoryCalls, bookingRepositoryCalls());
+        assertEquals(1, countBookings(request));
+    }
+
+    @Test
+    public void testKeyReusedWithDifferentRequestIsRejected() throws Exception {
+        BookingRequest request = request("Idempotent mismatch", "+79040000002", TEN);
+        bookingService.createBooking(request, "mismatch-1");
+
+        BookingRequest other = new BookingRequest(request.getCustomerId(), request.getServiceId(),
+                TEN.plusHours(1), TEN.plusHours(1).plusMinutes(30));
+
+        assertThrows(InvalidIdempotencyKeyException.class, () -> bookingService.createBooking(other, "mismatch-1"));
+        assertEquals(0, countBookings(other));
+    }
+
+    @Test
+    public void testRetryIsServedFromDatabaseAfterRestart() throws Exception {
+        BookingRequest request = request("Idempotent restart", "+79040000003", TEN);
+        BookingSummary created = bookingService.createBooking(request, "restart-1");
+
+        BookingIdempotencyStore restarted = store();
+        BookingSummary replayed = restarted.execute("restart-1", request, keyWriter -> fail("booking must not be created again"));
+
+        assertEquals(created, replayed);
+    }
+
+    @Test
+    public void testParallelRetriesCreateSingleBooking() throws Exception {
+        BookingRequest request = request("Idempotent parallel", "+79040000004", TEN);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BookingSummary>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return bookingService.createBooking(request, "parallel-1");
+            }));
+        }
+        start.countDown();
+        BookingSummary first = futures.get(0).get(30, TimeUnit.SECONDS);
+        for (Future<BookingSummary> future : futures) {
+            assertEquals(first, future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, countBookings(request));
+    }
+
+    @Test
+    public void testKeyWrittenByAnotherInstanceRollsBackBooking() throws Exception {
+        BookingRequest request = request("Idempotent instances", "+79040000005", TEN);
+        BookingIdempotencyStore otherInstance = store();
+
+        // Другой экземпляр не нашёл ключ в базе и создаёт бронирование, пока первый записывает тот же ключ.
+        BookingSummary[] first = new BookingSummary[1];
+        BookingSummary replayed = otherInstance.execute("instances-1", request, keyWriter -> {
+            try {
+                first[0] = bookingService.createBooking(request, "instances-1");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return transactionTemplate.execute(status -> {
+                Long id = jdbcTemplate.queryForObject("INSERT INTO booking (service_id, customer_id, bay, start_time, end_time) " +
+                                "VALUES (?, ?, 2, ?, ?) RETURNING id", Long.class,
+                        request.getServiceId(), request.getCustomerId(), request.getStartTime(), request.getEndTime());
+                BookingSummary duplicate = new BookingSummary(id, request.getServiceId(), request.getCustomerId(),
+                        request.getStartTime(), request.getEndTime(), 2);
+                keyWriter.accept(duplicate);
+                return duplicate;
+            });
+        });
+
+        assertEquals(first[0], replayed);
+        assertEquals(1, countBookings(request));
+    }
+
+    @Test
+    public void testRetryWaitingTooLongIsRejected() throws Exception {
+        BookingRequest request = request("Idempotent timeout", "+79040000006", TEN);
+        BookingIdempotencyStore store = new BookingIdempotencyStore(jdbcTemplate, 100, Duration.ofHours(24), false,
+                Duration.ofMillis(100), new SimpleMeterRegistry());
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BookingSummary created = new BookingSummary(1L, request.getServiceId(), request.getCustomerId(),
+                request.getStartTime(), request.getEndTime(), 1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<BookingSummary> first = executor.submit(() -> store.execute("timeout-1", request, keyWriter -> {
+            creating.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return created;
+        }));
+        try {
+            assertTrue(creating.await(10, TimeUnit.SECONDS));
+            assertThrows(IdempotencyKeyInProgressException.class,
+                    () -> store.execute("timeout-1", request, keyWriter -> fail("booking must not be created again")));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertEquals(created, first.get(10, TimeUnit.SECONDS));
+        assertEquals(created, store.execute("timeout-1", request, keyWriter -> fail("booking must not be created again")));
+    }
+
+    private BookingIdempotencyStore store() {
+        return new BookingIdempotencyStore(jdbcTemplate, 100, Duration.ofHours(24), true, Duration.ofSeconds(30),
+                new SimpleMeterRegistry());
+    }
+
+    private BookingRequest request(String serviceName, String phoneNumber, LocalDateTime startTime) throws Exception {
+        Service service = serviceService.addService(new ServiceRequest(serviceName, 100.0, 3));
+        Customer customer = customerService.createCustomer(new CustomerRequest(serviceName, phoneNumber));
+        return new BookingRequest(customer.getId(), service.getId(), startTime, startTime.plusMinutes(30));
+    }
+
+    private int countBookings(BookingRequest request) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM booking WHERE customer_id = ? AND service_id = ? AND start_time = ?",
+                Integer.class, request.getCustomerId(), request.getServiceId(), request.getStartTime());
+    }
+
+    private long bookingRepositoryCalls() {
+        return meterRegistry.find("carwash.repository").tag("repository", "BookingRepository").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
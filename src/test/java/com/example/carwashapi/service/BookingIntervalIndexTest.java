@@ -0,0 +1,84 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingInterval;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingIntervalIndexTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2023, 9, 1, 9, 0);
+
+    private BookingIntervalIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookingIntervalIndex();
+        index.put(new BookingInterval(1L, 1L, 1, NINE, NINE.plusHours(1)));
+        index.put(new BookingInterval(2L, 1L, 1, NINE.plusHours(2), NINE.plusHours(3)));
+    }
+
+    @Test
+    public void testHasOverlap_Overlapping() {
+        assertTrue(hasOverlap(NINE.plusMinutes(30), NINE.plusMinutes(90), null));
+    }
+
+    @Test
+    public void testHasOverlap_AdjacentIntervalsDoNotOverlap() {
+        assertFalse(hasOverlap(NINE.plusHours(1), NINE.plusHours(2), null));
+    }
+
+    @Test
+    public void testHasOverlap_ExcludedBooking() {
+        assertFalse(hasOverlap(NINE, NINE.plusHours(1), 1L));
+    }
+
+    @Test
+    public void testHasOverlap_LongBookingStartedEarlier() {
+        index.put(new BookingInterval(3L, 1L, 1, NINE.minusHours(5), NINE.plusHours(5)));
+
+        List<BookingInterval> overlapping = index.findOverlapping(1L, NINE.plusHours(4), NINE.plusMinutes(270), null);
+
+        assertEquals(1, overlapping.size());
+        assertEquals(3L, overlapping.get(0).getId());
+    }
+
+    @Test
+    public void testPut_ReplacesExistingInterval() {
+        index.put(new BookingInterval(1L, 1L, 1, NINE.plusHours(5), NINE.plusHours(6)));
+
+        assertEquals(2, index.size());
+        assertFalse(hasOverlap(NINE, NINE.plusHours(1), null));
+        assertTrue(hasOverlap(NINE.plusHours(5), NINE.plusHours(6), null));
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove(1L);
+
+        assertEquals(1, index.size());
+        assertFalse(hasOverlap(NINE, NINE.plusHours(1), null));
+    }
+
+    @Test
+    public void testFindOccupiedBays_OtherServiceIgnored() {
+        index.put(new BookingInterval(3L, 1L, 2, NINE.plusMinutes(30), NINE.plusMinutes(90)));
+        index.put(new BookingInterval(4L, 2L, 3, NINE, NINE.plusHours(1)));
+
+        Set<Integer> occupiedBays = index.findOccupiedBays(1L, NINE, NINE.plusHours(1), null);
+
+        assertEquals(Set.of(1, 2), occupiedBays);
+        assertEquals(OptionalInt.of(3), BookingConflictDetector.firstFreeBay(occupiedBays, 3));
+        assertEquals(OptionalInt.empty(), BookingConflictDetector.firstFreeBay(occupiedBays, 2));
+    }
+
+    private boolean hasOverlap(LocalDateTime startTime, LocalDateTime endTime, Long excludedBookingId) {
+        return !index.findOverlapping(1L, startTime, endTime, excludedBookingId).isEmpty();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.BookingInterval;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingLockManagerTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2023, 9, 1, 9, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookingLockManager lockManager;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lockManager = new BookingLockManager(1024, meterRegistry);
+    }
+
+    @Test
+    public void testLock_SameSlotWaits() throws InterruptedException {
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread writer;
+        try (BookingLockManager.BookingLock lock = lockManager.lock(1L, NINE, NINE.plusHours(1))) {
+            writer = new Thread(() -> {
+                try (BookingLockManager.BookingLock other = lockManager.lock(1L, NINE.plusHours(2), NINE.plusHours(3))) {
+                    acquired.countDown();
+                }
+            });
+            writer.start();
+            assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        }
+
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        writer.join();
+        assertEquals(1.0, meterRegistry.counter("booking.lock.contended").count());
+        assertEquals(2, meterRegistry.timer("booking.lock.wait").count());
+    }
+
+    @Test
+    public void testLock_OtherDayDoesNotWait() throws InterruptedException {
+        CountDownLatch acquired = new CountDownLatch(1);
+        try (BookingLockManager.BookingLock lock = lockManager.lock(1L, NINE, NINE.plusHours(1))) {
+            new Thread(() -> {
+                try (BookingLockManager.BookingLock other = lockManager.lock(1L, NINE.plusDays(1), NINE.plusDays(1).plusHours(1))) {
+                    acquired.countDown();
+                }
+            }).start();
+
+            assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0.0, meterRegistry.counter("booking.lock.contended").count());
+    }
+
+    @Test
+    public void testLockAll_HoldsEveryInterval() throws InterruptedException {
+        List<BookingInterval> batch = List.of(
+                new BookingInterval(null, 1L, 1, NINE, NINE.plusHours(1)),
+                new BookingInterval(null, 2L, 1, NINE.plusDays(3), NINE.plusDays(3).plusHours(1)));
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread writer;
+        try (BookingLockManager.BookingLock lock = lockManager.lockAll(batch)) {
+            writer = new Thread(() -> {
+                try (BookingLockManager.BookingLock other = lockManager.lock(2L, NINE.plusDays(3), NINE.plusDays(3).plusHours(2))) {
+                    acquired.countDown();
+                }
+            });
+            writer.start();
+            assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        }
+
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        writer.join();
+    }
+}
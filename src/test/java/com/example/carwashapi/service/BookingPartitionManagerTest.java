@@ -0,0 +1,218 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.repository.BookingRepository;
+import com.example.carwashapi.repository.CapturingStatementInspector;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Месячные секции booking и timeslot: создание секций с переносом строк из секции по умолчанию,
+ * ограничения бронирований (пересечения между секциями, наибольшая длительность),
+ * отсечение секций в запросах пересечений и отсоединение старых секций.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.carwashapi.repository.CapturingStatementInspector")
+public class BookingPartitionManagerTest extends EmbeddedPostgresSupport {
+
+    @Autowired
+    private BookingPartitionManager partitionManager;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testCreatePartitionMovesRowsFromDefaultPartition() {
+        long serviceId = insertService("Partition move");
+        LocalDateTime start = LocalDateTime.of(2040, 3, 15, 10, 0);
+        insertBooking(serviceId, start, start.plusHours(1));
+        insertTimeslot(serviceId, start, start.plusHours(1));
+        assertEquals("booking_default", bookingPartition(serviceId));
+
+        List<String> created = partitionManager.createPartitions(YearMonth.of(2040, 3), YearMonth.of(2040, 3));
+
+        assertEquals(List.of("booking_p2040_03", "timeslot_p2040_03"), created);
+        assertEquals("booking_p2040_03", bookingPartition(serviceId));
+        assertEquals("timeslot_p2040_03", jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM timeslot WHERE service_id = ?", String.class, serviceId));
+        assertTrue(partitionManager.createPartitions(YearMonth.of(2040, 3), YearMonth.of(2040, 3)).isEmpty());
+    }
+
+    @Test
+    public void testNewPartitionRejectsOverlappingBookings() {
+        partitionManager.createPartitions(YearMonth.of(2040, 5), YearMonth.of(2040, 5));
+        long serviceId = insertService("Partition overlap");
+        LocalDateTime start = LocalDateTime.of(2040, 5, 10, 10, 0);
+        insertBooking(serviceId, start, start.plusHours(1));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> insertBooking(serviceId, start.plusMinutes(30), start.plusMinutes(90)));
+    }
+
+    @Test
+    public void testOverlapAcrossMonthBoundaryIsRejected() {
+        partitionManager.createPartitions(YearMonth.of(2040, 10), YearMonth.of(2040, 11));
+        long serviceId = insertService("Partition boundary overlap");
+        LocalDateTime boundary = LocalDateTime.of(2040, 11, 1, 0, 0);
+        insertBooking(serviceId, boundary.minusMinutes(30), boundary.plusMinutes(30));
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> insertBooking(serviceId, boundary, boundary.plusHours(1)));
+        assertTrue(e.getMessage().contains("booking_no_overlap"), e.getMessage());
+        insertBooking(serviceId, boundary.plusMinutes(30), boundary.plusHours(1));
+        assertEquals(List.of("booking_p2040_10", "booking_p2040_11"), jdbcTemplate.queryForList(
+                "SELECT tableoid::regclass::text FROM booking WHERE service_id = ? ORDER BY start_time", String.class, serviceId));
+    }
+
+    @Test
+    public void testBookingLongerThanMaxDurationIsRejected() {
+        partitionManager.createPartitions(YearMonth.of(2040, 12), YearMonth.of(2040, 12));
+        long serviceId = insertService("Partition max duration");
+        LocalDateTime start = LocalDateTime.of(2040, 12, 10, 10, 0);
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> insertBooking(serviceId, start, start.plus(Booking.MAX_DURATION).plusMinutes(1)));
+        assertTrue(e.getMessage().contains("booking_max_duration"), e.getMessage());
+        insertBooking(serviceId, start, start.plus(Booking.MAX_DURATION));
+    }
+
+    @Test
+    public void testBookingIdIsUniqueAcrossPartitions() {
+        long serviceId = insertService("Partition id uniqueness");
+        LocalDateTime start = LocalDateTime.of(2041, 1, 10, 10, 0);
+        insertBooking(serviceId, start, start.plusHours(1));
+        long bookingId = jdbcTemplate.queryForObject("SELECT id FROM booking WHERE service_id = ?", Long.class, serviceId);
+        // Строка переносится из секции по умолчанию и остаётся под защитой уникальности id.
+        partitionManager.createPartitions(YearMonth.of(2041, 1), YearMonth.of(2041, 2));
+        assertEquals("booking_p2041_01", bookingPartition(serviceId));
+
+        DataIntegrityViolationException e = assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("INSERT INTO booking (id, service_id, bay, start_time, end_time) VALUES (?, ?, 1, ?, ?)",
+                        bookingId, serviceId, start.plusMonths(1), start.plusMonths(1).plusHours(1)));
+        assertTrue(e.getMessage().contains("booking_id_key"), e.getMessage());
+    }
+
+    @Test
+    public void testByIdOperationsWorkAcrossPartitions() {
+        partitionManager.createPartitions(YearMonth.of(2041, 3), YearMonth.of(2041, 4));
+        long serviceId = insertService("Partition by id");
+        LocalDateTime march = LocalDateTime.of(2041, 3, 10, 10, 0);
+        LocalDateTime april = LocalDateTime.of(2041, 4, 10, 10, 0);
+        insertBooking(serviceId, march, march.plusHours(1));
+        insertBooking(serviceId, april, april.plusHours(1));
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM booking WHERE service_id = ? ORDER BY start_time",
+                Long.class, serviceId);
+
+        assertEquals(march, bookingRepository.findById(ids.get(0)).orElseThrow().getStartTime());
+        assertEquals(april, bookingRepository.findById(ids.get(1)).orElseThrow().getStartTime());
+
+        Booking moved = bookingRepository.findById(ids.get(0)).orElseThrow();
+        moved.setStartTime(april.plusHours(2));
+        moved.setEndTime(april.plusHours(3));
+        bookingRepository.save(moved);
+        assertEquals("booking_p2041_04", jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM booking WHERE id = ?", String.class, ids.get(0)));
+        assertEquals(april.plusHours(2), bookingRepository.findById(ids.get(0)).orElseThrow().getStartTime());
+
+        bookingRepository.deleteById(ids.get(0));
+        assertTrue(bookingRepository.findById(ids.get(0)).isEmpty());
+        assertEquals(List.of(ids.get(1)), jdbcTemplate.queryForList("SELECT id FROM booking WHERE service_id = ?",
+                Long.class, serviceId));
+    }
+
+    @Test
+    public void testOverlapQueryTouchesAtMostTwoPartitions() throws Exception {
+        partitionManager.createPartitions(YearMonth.of(2040, 6), YearMonth.of(2040, 9));
+        long serviceId = insertService("Partition pruning");
+        LocalDateTime startTime = LocalDateTime.of(2040, 8, 1, 0, 0);
+        LocalDateTime endTime = startTime.plusMinutes(30);
+
+        List<String> statements = CapturingStatementInspector.capture(
+                () -> bookingRepository.findOccupiedBays(serviceId, startTime, endTime));
+        assertEquals(1, statements.size());
+        String plan = jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + statements.get(0));
+            statement.setObject(1, serviceId);
+            statement.setObject(2, startTime);
+            statement.setObject(3, startTime.minus(Booking.MAX_DURATION));
+            statement.setObject(4, endTime);
+            return statement;
+        }, rs -> rs.next() ? rs.getString(1) : null);
+
+        Set<String> partitions = new TreeSet<>();
+        collectRelations(objectMapper.readTree(plan).get(0).get("Plan"), partitions);
+        assertEquals(Set.of("booking_p2040_07", "booking_p2040_08"), partitions, plan);
+    }
+
+    @Test
+    public void testDetachMovesOldPartitionsToArchive() {
+        jdbcTemplate.execute("CREATE TABLE partition_detach_test (id bigint, start_time timestamp NOT NULL) " +
+                "PARTITION BY RANGE (start_time)");
+        try {
+            jdbcTemplate.execute("CREATE TABLE partition_detach_test_default PARTITION OF partition_detach_test DEFAULT");
+            for (String month : List.of("2020-01-01", "2020-02-01", "2020-03-01")) {
+                jdbcTemplate.queryForObject("SELECT create_month_partition('partition_detach_test', ?::date)", Boolean.class, month);
+            }
+            jdbcTemplate.update("INSERT INTO partition_detach_test VALUES (1, '2020-01-10'), (2, '2020-03-10')");
+
+            List<String> detached = jdbcTemplate.queryForList(
+                    "SELECT detach_month_partitions('partition_detach_test', ?)", String.class, LocalDateTime.of(2020, 3, 1, 0, 0));
+
+            assertEquals(List.of("partition_detach_test_p2020_01", "partition_detach_test_p2020_02"), detached);
+            assertEquals(List.of(2L), jdbcTemplate.queryForList("SELECT id FROM partition_detach_test", Long.class));
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM archive.partition_detach_test_p2020_01", Integer.class));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE partition_detach_test");
+            jdbcTemplate.execute("DROP TABLE IF EXISTS archive.partition_detach_test_p2020_01, archive.partition_detach_test_p2020_02");
+        }
+    }
+
+    private long insertService(String name) {
+        return jdbcTemplate.queryForObject("INSERT INTO service (name, price, bays) VALUES (?, 100, 1) RETURNING id",
+                Long.class, name);
+    }
+
+    private void insertBooking(long serviceId, LocalDateTime start, LocalDateTime end) {
+        jdbcTemplate.update("INSERT INTO booking (service_id, bay, start_time, end_time) VALUES (?, 1, ?, ?)",
+                serviceId, start, end);
+    }
+
+    private void insertTimeslot(long serviceId, LocalDateTime start, LocalDateTime end) {
+        jdbcTemplate.update("INSERT INTO timeslot (service_id, available, start_time, end_time) VALUES (?, true, ?, ?)",
+                serviceId, start, end);
+    }
+
+    private String bookingPartition(long serviceId) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM booking WHERE service_id = ?",
+                String.class, serviceId);
+    }
+
+    private static void collectRelations(JsonNode node, Set<String> relations) {
+        if (node.has("Relation Name")) {
+            relations.add(node.get("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectRelations(child, relations);
+        }
+    }
+}
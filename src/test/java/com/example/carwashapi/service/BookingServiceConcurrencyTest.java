@@ -0,0 +1,90 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.exception.BookingConflictException;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.model.Service;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Параллельное создание бронирований на один и тот же слот.
+ */
+@SpringBootTest
+public class BookingServiceConcurrencyTest extends EmbeddedPostgresSupport {
+
+    private static final int REQUESTS = 2000;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Test
+    public void testParallelCreateBooking_SingleBay() throws Exception {
+        List<Booking> created = createInParallel("Concurrency single bay", 1, LocalDateTime.of(2030, 1, 1, 10, 0));
+
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void testParallelCreateBooking_SeveralBays() throws Exception {
+        List<Booking> created = createInParallel("Concurrency three bays", 3, LocalDateTime.of(2030, 1, 1, 10, 0));
+
+        assertEquals(3, created.size());
+        Set<Integer> bays = created.stream().map(Booking::getBay).collect(Collectors.toSet());
+        assertEquals(Set.of(1, 2, 3), bays);
+    }
+
+    private List<Booking> createInParallel(String serviceName, int bays, LocalDateTime startTime) throws Exception {
+        // Имя услуги уникально; подклассы повторяют те же сценарии в общей базе.
+        Service service = serviceService.addService(new ServiceRequest(serviceName + " " + getClass().getSimpleName(), 100.0, bays));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Concurrency", String.format("+7000%07d", service.getId())));
+        BookingRequest request = new BookingRequest(customer.getId(), service.getId(), startTime, startTime.plusMinutes(30));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Booking>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return bookingService.createBooking(request);
+                } catch (BookingConflictException e) {
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+
+        List<Booking> created = new ArrayList<>();
+        for (Future<Booking> future : futures) {
+            Booking booking = future.get(60, TimeUnit.SECONDS);
+            if (booking != null) {
+                created.add(booking);
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        return created;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.carwashapi.service;
 
 import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.ServiceSummary;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.exception.BookingConflictException;
 import com.example.carwashapi.exception.NotFoundException;
 import com.example.carwashapi.exception.ServiceNotFoundException;
@@ -12,11 +14,14 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.OptionalInt;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,9 +41,28 @@ public class BookingServiceTest {
     @Mock
     private ServiceServiceImpl serviceService;
 
+    @Mock
+    private AvailabilityCalendar availabilityCalendar;
+
+    @Mock
+    private BookingConflictDetector conflictDetector;
+
+    @Mock
+    private BookingLockManager lockManager;
+
+    @Mock
+    private BookingEventOutbox eventOutbox;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        when(conflictDetector.findFreeBay(any(), any(), any(), any())).thenReturn(OptionalInt.of(1));
+        when(lockManager.lock(any(), any(), any())).thenReturn(BookingLockManager.BookingLock.NONE);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
@@ -57,10 +81,10 @@ public class BookingServiceTest {
         when(serviceService.getAllServices()).thenReturn(expectedServices);
 
         // Act
-        List<com.example.carwashapi.model.Service> actualServices = bookingService.getAllServices();
+        List<ServiceSummary> actualServices = bookingService.getAllServices();
 
         // Assert
-        assertEquals(expectedServices, actualServices);
+        assertEquals(List.of(ServiceSummary.of(service1), ServiceSummary.of(service2)), actualServices);
     }
 
     @Test
@@ -84,27 +108,21 @@ public class BookingServiceTest {
     public void testGetAvailableTimeSlotsForService() {
         // Arrange
         com.example.carwashapi.model.Service service = new com.example.carwashapi.model.Service();
+        service.setId(1L);
         service.setName("Service 1");
 
-        Timeslot timeslot1 = new Timeslot();
-        timeslot1.setAvailable(true);
-
-        Timeslot timeslot2 = new Timeslot();
-        timeslot2.setAvailable(false);
+        LocalDateTime from = LocalDateTime.parse("2023-09-15T00:00:00");
+        LocalDateTime to = LocalDateTime.parse("2023-09-16T00:00:00");
 
-        Timeslot timeslot3 = new Timeslot();
-        timeslot3.setAvailable(true);
+        TimeslotSummary timeslot1 = new TimeslotSummary(1L, 1L, from.plusHours(10), from.plusHours(11), true);
+        TimeslotSummary timeslot2 = new TimeslotSummary(2L, 1L, from.plusHours(11), from.plusHours(12), true);
 
-        service.setTimeslots(Arrays.asList(timeslot1, timeslot2, timeslot3));
+        List<TimeslotSummary> expectedTimeSlots = Arrays.asList(timeslot1, timeslot2);
 
-        List<Timeslot> expectedTimeSlots = service.getTimeslots().stream()
-                .filter(Timeslot::isAvailable)
-                .collect(Collectors.toList());
-
-        when(serviceService.getServiceById(1L)).thenReturn(service);
+        when(availabilityCalendar.getAvailableTimeslots(service, from, to)).thenReturn(expectedTimeSlots);
 
         // Act
-        List<Timeslot> actualTimeSlots = bookingService.getAvailableTimeSlotsForService(service);
+        List<TimeslotSummary> actualTimeSlots = bookingService.getAvailableTimeSlotsForService(service, from, to);
 
         // Assert
         assertEquals(expectedTimeSlots, actualTimeSlots);
@@ -125,8 +143,6 @@ public class BookingServiceTest {
         com.example.carwashapi.model.Service service = new com.example.carwashapi.model.Service();
         when(serviceService.getServiceById(2L)).thenReturn(service);
 
-        when(bookingRepository.countOverlappingBookings(any(), any())).thenReturn(0L);
-
         Booking booking = new Booking();
         when(bookingRepository.save(any(Booking.class))).thenReturn(booking);
 
@@ -136,6 +152,7 @@ public class BookingServiceTest {
         // Assert
         assertEquals(booking, createdBooking);
         verify(bookingRepository, times(1)).save(any(Booking.class));
+        verify(conflictDetector, times(1)).bookingSaved(booking);
     }
 
     @Test(expected = BookingConflictException.class)
@@ -147,7 +164,9 @@ public class BookingServiceTest {
         bookingRequest.setStartTime(LocalDateTime.now());
         bookingRequest.setEndTime(LocalDateTime.now().plusHours(1));
 
-        when(bookingRepository.countOverlappingBookings(any(), any())).thenReturn(1L);
+        when(customerService.getCustomerById(1L)).thenReturn(new Customer());
+        when(serviceService.getServiceById(2L)).thenReturn(new com.example.carwashapi.model.Service());
+        when(conflictDetector.findFreeBay(any(), any(), any(), any())).thenReturn(OptionalInt.empty());
 
         // Act
         bookingService.createBooking(bookingRequest);
@@ -183,4 +202,22 @@ public class BookingServiceTest {
         // Act
         bookingService.createBooking(bookingRequest);
     }
+
+    @Test
+    public void testFindEarliestFreeWindows_ClampsSearchWindow() {
+        BookingServiceImpl service = new BookingServiceImpl(bookingRepository, customerService, serviceService,
+                availabilityCalendar, conflictDetector, lockManager, null, null, null, eventOutbox, null,
+                transactionTemplate, Duration.ofDays(14));
+        com.example.carwashapi.model.Service wash = new com.example.carwashapi.model.Service();
+        wash.setId(1L);
+        wash.setName("Wash");
+        when(serviceService.getAllServices()).thenReturn(List.of(wash));
+        when(availabilityCalendar.getAvailableTimeslots(any(), any(), any())).thenReturn(List.of());
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        service.findEarliestFreeWindows(10, null, null, from, from.plusYears(5));
+
+        verify(availabilityCalendar, times(14)).getAvailableTimeslots(eq(wash), any(), any());
+        verify(availabilityCalendar, never()).getAvailableTimeslots(any(), eq(from.plusDays(14)), any());
+    }
 }
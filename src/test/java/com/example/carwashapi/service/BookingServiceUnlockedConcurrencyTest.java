@@ -0,0 +1,24 @@
+package com.example.carwashapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Те же сценарии, что и в {@link BookingServiceConcurrencyTest}, но без блокировки записи:
+ * параллельные записи в один слот доходят до базы, и корректность обеспечивают только ограничение
+ * booking_no_overlap (23P01) и повторный выбор бокса в BookingServiceImpl.
+ */
+public class BookingServiceUnlockedConcurrencyTest extends BookingServiceConcurrencyTest {
+
+    @MockBean
+    private BookingLockManager lockManager;
+
+    @BeforeEach
+    public void disableLock() {
+        when(lockManager.lock(any(), any(), any())).thenReturn(BookingLockManager.BookingLock.NONE);
+        when(lockManager.lockAll(any())).thenReturn(BookingLockManager.BookingLock.NONE);
+    }
+}
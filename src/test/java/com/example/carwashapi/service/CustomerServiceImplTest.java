@@ -1,17 +1,28 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.dto.CustomerNextBooking;
 import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.CustomerSummary;
 import com.example.carwashapi.exception.CustomerNotFoundException;
 import com.example.carwashapi.exception.NotFoundException;
+import com.example.carwashapi.exception.PhoneNumberConflictException;
 import com.example.carwashapi.model.Booking;
 import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.repository.BookingRepository;
 import com.example.carwashapi.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -19,6 +30,8 @@ import java.util.Optional;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class CustomerServiceImplTest {
@@ -29,9 +42,23 @@ public class CustomerServiceImplTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingRemover bookingRemover;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private CustomerPhoneCache phoneCache = new CustomerPhoneCache(100, Duration.ofHours(1), new SimpleMeterRegistry());
+
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 
     @Test
@@ -62,40 +89,45 @@ public class CustomerServiceImplTest {
     }
 
     @Test
-    public void testGetRemainingTimeUntilNextBooking_WithBookings() {
+    public void testGetRemainingTimeUntilNextBooking_WithBookings() throws CustomerNotFoundException {
         // Arrange
-        Customer customer = new Customer();
-        Booking booking1 = new Booking();
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneHourLater = now.plusHours(1);
-        booking1.setStartTime(oneHourLater);
-        Booking booking2 = new Booking();
-        LocalDateTime twoHoursLater = now.plusHours(2);
-        booking2.setStartTime(twoHoursLater);
-        List<Booking> bookings = new ArrayList<>();
-        bookings.add(booking1);
-        bookings.add(booking2);
-        customer.setBookings(bookings);
+        String phoneNumber = "1234567890";
+        when(customerRepository.findNextBookingByPhoneNumber(eq(phoneNumber), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> Optional.of(new CustomerNextBooking(1L,
+                        invocation.<LocalDateTime>getArgument(1).plusHours(1))));
 
         // Act
-        long remainingMinutes = customerService.getRemainingTimeUntilNextBooking(customer);
+        long remainingMinutes = customerService.getRemainingTimeUntilNextBooking(phoneNumber);
 
         // Assert
         assertEquals(60, remainingMinutes);
     }
 
     @Test
-    public void testGetRemainingTimeUntilNextBooking_NoBookings() {
+    public void testGetRemainingTimeUntilNextBooking_NoBookings() throws CustomerNotFoundException {
         // Arrange
-        Customer customer = new Customer();
+        String phoneNumber = "1234567890";
+        when(customerRepository.findNextBookingByPhoneNumber(eq(phoneNumber), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(new CustomerNextBooking(1L, null)));
 
         // Act
-        long remainingMinutes = customerService.getRemainingTimeUntilNextBooking(customer);
+        long remainingMinutes = customerService.getRemainingTimeUntilNextBooking(phoneNumber);
 
         // Assert
         assertEquals(-1, remainingMinutes);
     }
 
+    @Test(expected = CustomerNotFoundException.class)
+    public void testGetRemainingTimeUntilNextBooking_CustomerNotFound() throws CustomerNotFoundException {
+        // Arrange
+        String phoneNumber = "1234567890";
+        when(customerRepository.findNextBookingByPhoneNumber(eq(phoneNumber), any(LocalDateTime.class)))
+                .thenReturn(Optional.empty());
+
+        // Act
+        customerService.getRemainingTimeUntilNextBooking(phoneNumber);
+    }
+
     @Test
     public void testGetCustomerByPhoneNumber_Success() throws CustomerNotFoundException {
         // Arrange
@@ -105,28 +137,45 @@ public class CustomerServiceImplTest {
         expectedCustomer.setName("John Doe");
         expectedCustomer.setPhoneNumber(phoneNumber);
 
-        when(customerRepository.findByPhoneNumber(phoneNumber)).thenReturn(Optional.of(expectedCustomer));
+        when(customerRepository.findSummaryByPhoneNumber(phoneNumber)).thenReturn(Optional.of(CustomerSummary.of(expectedCustomer)));
 
         // Act
-        Customer actualCustomer = customerService.getCustomerByPhoneNumber(phoneNumber);
+        CustomerSummary actualCustomer = customerService.getCustomerByPhoneNumber(phoneNumber);
 
         // Assert
         assertNotNull(actualCustomer);
-        assertEquals(expectedCustomer, actualCustomer);
+        assertEquals(CustomerSummary.of(expectedCustomer), actualCustomer);
+    }
+
+    @Test
+    public void testGetCustomerByPhoneNumber_CachedByNormalizedNumber() throws CustomerNotFoundException {
+        // Arrange
+        Customer expectedCustomer = new Customer("John Doe", "+79012345678");
+        expectedCustomer.setId(1L);
+        when(customerRepository.findSummaryByPhoneNumber("+79012345678")).thenReturn(Optional.of(CustomerSummary.of(expectedCustomer)));
+
+        // Act
+        CustomerSummary first = customerService.getCustomerByPhoneNumber("+7 (901) 234-56-78");
+        CustomerSummary second = customerService.getCustomerByPhoneNumber("+79012345678");
+
+        // Assert
+        assertEquals(CustomerSummary.of(expectedCustomer), first);
+        assertSame(first, second);
+        verify(customerRepository, times(1)).findSummaryByPhoneNumber(anyString());
     }
 
     @Test(expected = CustomerNotFoundException.class)
     public void testGetCustomerByPhoneNumber_CustomerNotFound() throws CustomerNotFoundException {
         // Arrange
         String phoneNumber = "1234567890";
-        when(customerRepository.findByPhoneNumber(phoneNumber)).thenReturn(Optional.empty());
+        when(customerRepository.findSummaryByPhoneNumber(phoneNumber)).thenReturn(Optional.empty());
 
         // Act
         customerService.getCustomerByPhoneNumber(phoneNumber);
     }
 
     @Test
-    public void testCreateCustomer_Success() {
+    public void testCreateCustomer_Success() throws PhoneNumberConflictException {
         // Arrange
         CustomerRequest customerRequest = new CustomerRequest();
         customerRequest.setName("John Doe");
@@ -147,6 +196,24 @@ public class CustomerServiceImplTest {
         assertEquals(expectedCustomer, actualCustomer);
     }
 
+    @Test
+    public void testCreateCustomer_PhoneNumberTaken() {
+        // Arrange
+        CustomerRequest customerRequest = new CustomerRequest("John Doe", "+7 (901) 234-56-78");
+        SQLException uniqueViolation = new SQLException(
+                "ERROR: duplicate key value violates unique constraint \"customer_phone_number_key\"", "23505");
+        when(customerRepository.save(any(Customer.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement", uniqueViolation));
+
+        // Act
+        PhoneNumberConflictException e = assertThrows(PhoneNumberConflictException.class,
+                () -> customerService.createCustomer(customerRequest));
+
+        // Assert
+        assertTrue(e.getMessage().contains("+79012345678"));
+        verify(phoneCache, never()).put(any());
+    }
+
     @Test
     public void testGetAllCustomers() {
         // Arrange
@@ -162,17 +229,19 @@ public class CustomerServiceImplTest {
         expectedCustomers.add(customer1);
         expectedCustomers.add(customer2);
 
-        when(customerRepository.findAll()).thenReturn(expectedCustomers);
+        List<CustomerSummary> expectedSummaries = expectedCustomers.stream().map(CustomerSummary::of).toList();
+        when(customerRepository.findAllSummaries()).thenReturn(expectedSummaries);
 
         // Act
-        List<Customer> actualCustomers = customerService.getAllCustomers();
+        List<CustomerSummary> actualCustomers = customerService.getAllCustomers();
 
         // Assert
-        assertEquals(expectedCustomers, actualCustomers);
+        assertEquals(expectedSummaries, actualCustomers);
+        verify(customerRepository, never()).findAll();
     }
 
     @Test
-    public void testUpdateCustomer_Success() throws CustomerNotFoundException {
+    public void testUpdateCustomer_Success() throws CustomerNotFoundException, PhoneNumberConflictException {
         // Arrange
         Long customerId = 1L;
         CustomerRequest customerRequest = new CustomerRequest();
@@ -198,7 +267,7 @@ public class CustomerServiceImplTest {
     }
 
     @Test(expected = CustomerNotFoundException.class)
-    public void testUpdateCustomer_CustomerNotFound() throws CustomerNotFoundException {
+    public void testUpdateCustomer_CustomerNotFound() throws CustomerNotFoundException, PhoneNumberConflictException {
         // Arrange
         Long customerId = 1L;
         CustomerRequest customerRequest = new CustomerRequest();
@@ -212,14 +281,48 @@ public class CustomerServiceImplTest {
     }
 
     @Test
-    public void testDeleteCustomer_Success() {
+    public void testUpdateCustomer_RefreshesPhoneCache() throws CustomerNotFoundException, PhoneNumberConflictException {
+        // Arrange
+        Long customerId = 1L;
+        Customer existingCustomer = new Customer("John Doe", "1234567890");
+        existingCustomer.setId(customerId);
+        when(customerRepository.findSummaryByPhoneNumber("1234567890")).thenReturn(Optional.of(CustomerSummary.of(existingCustomer)));
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(existingCustomer));
+        when(customerRepository.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        customerService.getCustomerByPhoneNumber("1234567890");
+
+        // Act
+        customerService.updateCustomer(customerId, new CustomerRequest("John Doe", "987-654-32-10"));
+
+        // Assert
+        assertEquals("9876543210", customerService.getCustomerByPhoneNumber("9876543210").getPhoneNumber());
+        verify(customerRepository, never()).findSummaryByPhoneNumber("9876543210");
+        when(customerRepository.findSummaryByPhoneNumber("1234567890")).thenReturn(Optional.empty());
+        assertThrows(CustomerNotFoundException.class, () -> customerService.getCustomerByPhoneNumber("1234567890"));
+    }
+
+    @Test
+    public void testDeleteCustomer_Success() throws CustomerNotFoundException {
         // Arrange
         Long customerId = 1L;
+        Customer existingCustomer = new Customer("John Doe", "1234567890");
+        existingCustomer.setId(customerId);
+        Booking booking = new Booking();
+        booking.setId(10L);
+        booking.setCustomer(existingCustomer);
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(existingCustomer));
+        when(bookingRepository.findByCustomerId(customerId)).thenReturn(List.of(booking));
+        when(customerRepository.findSummaryByPhoneNumber("1234567890")).thenReturn(Optional.of(CustomerSummary.of(existingCustomer)));
+        customerService.getCustomerByPhoneNumber("1234567890");
 
         // Act
         customerService.deleteCustomer(customerId);
 
         // Assert
-        verify(customerRepository, times(1)).deleteById(customerId);
+        verify(bookingRemover, times(1)).delete(List.of(booking));
+        verify(customerRepository, times(1)).delete(existingCustomer);
+        verify(bookingRemover, times(1)).deleted(List.of(booking));
+        customerService.getCustomerByPhoneNumber("1234567890");
+        verify(customerRepository, times(2)).findSummaryByPhoneNumber("1234567890");
     }
 }
@@ -0,0 +1,106 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.dto.FreeWindow;
+import com.example.carwashapi.dto.TimeslotSummary;
+import com.example.carwashapi.model.Service;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FreeWindowSearchTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private final Map<Long, List<TimeslotSummary>> slots = new HashMap<>();
+    private final List<String> reads = new ArrayList<>();
+    private long nextTimeslotId = 1;
+
+    private Service wash;
+    private Service polish;
+
+    @BeforeEach
+    public void setUp() {
+        wash = service(1L, "Wash", 10.0);
+        polish = service(2L, "Polish", 50.0);
+    }
+
+    @Test
+    public void testMergesServicesInStartTimeOrder() {
+        slot(wash, DAY.plusHours(9), 30);
+        slot(wash, DAY.plusDays(1).plusHours(9), 30);
+        slot(polish, DAY.plusHours(10), 60);
+        slot(polish, DAY.plusHours(9), 60);
+
+        List<FreeWindow> windows = search(List.of(wash, polish), 10, slot -> true);
+
+        assertEquals(List.of(DAY.plusHours(9), DAY.plusHours(9), DAY.plusHours(10), DAY.plusDays(1).plusHours(9)),
+                windows.stream().map(FreeWindow::getStartTime).collect(Collectors.toList()));
+        assertEquals(List.of(1L, 2L, 2L, 1L), windows.stream().map(FreeWindow::getServiceId).collect(Collectors.toList()));
+        assertEquals("Polish", windows.get(1).getServiceName());
+        assertEquals(50.0, windows.get(1).getPrice());
+    }
+
+    @Test
+    public void testStopsReadingOnceLimitIsReached() {
+        slot(wash, DAY.plusHours(9), 30);
+        slot(wash, DAY.plusHours(10), 30);
+        slot(polish, DAY.plusDays(5).plusHours(9), 60);
+
+        List<FreeWindow> windows = search(List.of(wash, polish), 2, slot -> true);
+
+        assertEquals(2, windows.size());
+        assertTrue(windows.stream().allMatch(window -> window.getServiceId().equals(1L)));
+        assertEquals(List.of("Wash " + DAY.toLocalDate(), "Polish " + DAY.toLocalDate()), reads);
+    }
+
+    @Test
+    public void testSkipsEmptyDaysAndFilteredSlots() {
+        slot(wash, DAY.plusHours(9), 90);
+        slot(wash, DAY.plusDays(3).plusHours(9), 30);
+
+        List<FreeWindow> windows = search(List.of(wash), 10,
+                slot -> !slot.getEndTime().isAfter(slot.getStartTime().plusMinutes(30)));
+
+        assertEquals(1, windows.size());
+        assertEquals(DAY.plusDays(3).plusHours(9), windows.get(0).getStartTime());
+    }
+
+    @Test
+    public void testEmptyIntervalReturnsNothing() {
+        slot(wash, DAY.plusHours(9), 30);
+
+        assertEquals(List.of(), FreeWindowSearch.earliest(List.of(wash), DAY, DAY, 10, slot -> true, this::read));
+        assertEquals(List.of(), reads);
+    }
+
+    private List<FreeWindow> search(List<Service> services, int limit, Predicate<TimeslotSummary> filter) {
+        return FreeWindowSearch.earliest(services, DAY, DAY.plusDays(7), limit, filter, this::read);
+    }
+
+    private List<TimeslotSummary> read(Service service, LocalDateTime from, LocalDateTime to) {
+        reads.add(service.getName() + " " + from.toLocalDate());
+        return slots.getOrDefault(service.getId(), List.of()).stream()
+                .filter(slot -> !slot.getStartTime().isBefore(from) && slot.getStartTime().isBefore(to))
+                .sorted(Comparator.comparing(TimeslotSummary::getStartTime))
+                .collect(Collectors.toList());
+    }
+
+    private void slot(Service service, LocalDateTime startTime, int minutes) {
+        slots.computeIfAbsent(service.getId(), id -> new ArrayList<>())
+                .add(new TimeslotSummary(nextTimeslotId++, service.getId(), startTime, startTime.plusMinutes(minutes), true));
+    }
+
+    private static Service service(Long id, String name, double price) {
+        Service service = new Service();
+        service.setId(id);
+        service.setName(name);
+        service.setPrice(price);
+        return service;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.CursorPage;
+import com.example.carwashapi.dto.CustomerRequest;
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.dto.CustomerSummary;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.model.Booking;
+import com.example.carwashapi.model.Customer;
+import com.example.carwashapi.model.Service;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset-пагинация и потоковая выгрузка NDJSON на встроенном PostgreSQL.
+ */
+@SpringBootTest
+public class NdjsonExportTest extends EmbeddedPostgresSupport {
+
+    @Autowired
+    private CustomerServiceImpl customerService;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testPagesAndExportReturnSameCustomers() throws Exception {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            created.add(customerService.createCustomer(new CustomerRequest("Export " + i, "+7902000000" + i)).getId());
+        }
+
+        List<Long> paged = new ArrayList<>();
+        Long cursor = null;
+        do {
+            CursorPage<CustomerSummary> page = customerService.getCustomersPage(cursor, 3);
+            page.getItems().forEach(customer -> paged.add(customer.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        customerService.exportCustomers(out);
+        List<Long> exported = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            JsonNode customer = objectMapper.readTree(line);
+            exported.add(customer.get("id").asLong());
+            assertTrue(customer.has("phoneNumber"));
+        }
+
+        assertTrue(paged.containsAll(created));
+        assertEquals(paged, exported);
+    }
+
+    @Test
+    public void testBookingExportMatchesPageRepresentation() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Export booking", 100.0, 1));
+        Customer customer = customerService.createCustomer(new CustomerRequest("Export booking", "+79020001000"));
+        LocalDateTime start = LocalDateTime.of(2034, 2, 1, 10, 0);
+        Booking booking = bookingService.createBooking(
+                new BookingRequest(customer.getId(), service.getId(), start, start.plusMinutes(30)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookingService.exportBookings(out);
+        String exported = null;
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (objectMapper.readTree(line).get("id").asLong() == booking.getId()) {
+                exported = line;
+            }
+        }
+
+        assertEquals(objectMapper.writeValueAsString(bookingService.getBookingById(booking.getId())), exported);
+        JsonNode node = objectMapper.readTree(exported);
+        assertEquals(service.getId(), node.get("serviceId").asLong());
+        assertEquals(customer.getId(), node.get("customerId").asLong());
+    }
+}
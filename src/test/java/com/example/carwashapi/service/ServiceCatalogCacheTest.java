@@ -0,0 +1,51 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.config.CacheConfig;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.model.Service;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Кэш каталога услуг: повторное чтение из кэша, очистка при изменении, публикация метрик.
+ */
+@SpringBootTest
+public class ServiceCatalogCacheTest extends EmbeddedPostgresSupport {
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testReadsAreCachedAndWritesEvict() throws Exception {
+        Service created = serviceService.addService(new ServiceRequest("Кэш", 500.0, null));
+
+        Service first = serviceService.getServiceById(created.getId());
+        assertSame(first, serviceService.getServiceById(created.getId()));
+        assertTrue(serviceService.getAllServices().stream().anyMatch(s -> s.getId().equals(created.getId())));
+
+        serviceService.updateService(created.getId(), new ServiceRequest("Кэш", 700.0, 2));
+        Service updated = serviceService.getServiceById(created.getId());
+        assertNotSame(first, updated);
+        assertEquals(700.0, updated.getPrice());
+        assertEquals(2, updated.getBays());
+        assertTrue(serviceService.getAllServices().stream().anyMatch(s -> s.getPrice() == 700.0));
+
+        serviceService.deleteService(created.getId());
+        assertTrue(serviceService.getAllServices().stream().noneMatch(s -> s.getId().equals(created.getId())));
+    }
+
+    @Test
+    public void testCacheMetricsArePublished() {
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", CacheConfig.SERVICES).tag("result", "hit").functionCounter());
+        assertNotNull(meterRegistry.find("cache.gets").tag("cache", CacheConfig.SERVICES).tag("result", "miss").functionCounter());
+        assertNotNull(meterRegistry.find("cache.evictions").tag("cache", CacheConfig.SERVICES).functionCounter());
+    }
+}
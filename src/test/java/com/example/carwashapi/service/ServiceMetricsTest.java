@@ -0,0 +1,95 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.BookingRequest;
+import com.example.carwashapi.exception.NotFoundException;
+import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.example.carwashapi.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Метрики сервисного слоя: таймеры методов и репозиториев, счётчики ошибок, экспорт в формате Prometheus.
+ */
+@SpringBootTest
+@AutoConfigureMetrics
+public class ServiceMetricsTest extends EmbeddedPostgresSupport {
+    private static final long MISSING_ID = 999_999_999L;
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PrometheusMeterRegistry prometheusMeterRegistry;
+
+    @Test
+    public void testServiceAndRepositoryCallsAreTimed() {
+        serviceService.getAllServices();
+
+        Timer service = meterRegistry.find("carwash.service")
+                .tags("class", "ServiceServiceImpl", "method", "getAllServices", "exception", "none").timer();
+        assertNotNull(service);
+        assertTrue(service.count() >= 1);
+        assertNotNull(meterRegistry.find("carwash.repository")
+                .tags("repository", "ServiceRepository", "method", "findAll").timer());
+    }
+
+    @Test
+    public void testDefaultRepositoryMethodIsTimedOnce() {
+        LocalDateTime start = LocalDateTime.of(2031, 1, 1, 0, 0);
+        bookingRepository.findIntervals(MISSING_ID, start, start.plusDays(1));
+        Timer timer = meterRegistry.find("carwash.repository")
+                .tags("repository", "BookingRepository", "method", "findIntervals", "exception", "none").timer();
+        assertNotNull(timer);
+        long before = timer.count();
+
+        bookingRepository.findIntervals(MISSING_ID, start, start.plusDays(1));
+
+        assertEquals(before + 1, timer.count());
+    }
+
+    @Test
+    public void testErrorsAreCountedOncePerOuterCall() {
+        assertThrows(ServiceNotFoundException.class, () -> serviceService.getServiceById(MISSING_ID));
+        assertEquals(1.0, meterRegistry.counter("carwash.errors",
+                "exception", "ServiceNotFoundException", "class", "ServiceServiceImpl", "method", "getServiceById").count());
+
+        BookingRequest request = new BookingRequest(MISSING_ID, MISSING_ID,
+                LocalDateTime.of(2031, 1, 1, 10, 0), LocalDateTime.of(2031, 1, 1, 10, 30));
+        assertThrows(NotFoundException.class, () -> bookingService.createBooking(request));
+        assertEquals(1.0, meterRegistry.counter("carwash.errors",
+                "exception", "NotFoundException", "class", "BookingServiceImpl", "method", "createBooking").count());
+        assertNull(meterRegistry.find("carwash.errors").tag("class", "CustomerServiceImpl").counter());
+    }
+
+    @Test
+    public void testPrometheusScrapeContainsLatencyAndPoolMetrics() {
+        serviceService.getAllServices();
+
+        String scrape = prometheusMeterRegistry.scrape();
+        assertTrue(scrape.contains("carwash_service_seconds_bucket"));
+        assertTrue(scrape.contains("carwash_service_seconds{"));
+        assertTrue(scrape.contains("quantile=\"0.999\""));
+        assertTrue(scrape.contains("carwash_repository_seconds_bucket"));
+        assertTrue(scrape.contains("hikaricp_connections_pending"));
+        assertTrue(scrape.contains("hikaricp_connections_max"));
+    }
+}
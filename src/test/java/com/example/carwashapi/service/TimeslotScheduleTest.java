@@ -0,0 +1,133 @@
+package com.example.carwashapi.service;
+
+import com.example.carwashapi.EmbeddedPostgresSupport;
+import com.example.carwashapi.dto.ServiceRequest;
+import com.example.carwashapi.dto.TimeslotRequest;
+import com.example.carwashapi.dto.TimeslotScheduleRequest;
+import com.example.carwashapi.dto.TimeslotScheduleResult;
+import com.example.carwashapi.dto.TimeslotSummary;
+import com.example.carwashapi.exception.TimeslotConflictException;
+import com.example.carwashapi.model.Service;
+import com.example.carwashapi.model.Timeslot;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Генерация слотов по шаблону расписания на встроенном PostgreSQL.
+ */
+@SpringBootTest
+public class TimeslotScheduleTest extends EmbeddedPostgresSupport {
+
+    private static final LocalDate MONDAY = LocalDate.of(2032, 3, 1);
+
+    @Autowired
+    private TimeslotServiceImpl timeslotService;
+
+    @Autowired
+    private ServiceServiceImpl serviceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testGenerateSkipsExistingSlots() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Schedule", 100.0, 1));
+        Timeslot existing = timeslotService.addTimeslot(new TimeslotRequest(service.getId(),
+                MONDAY.atTime(9, 0), MONDAY.atTime(9, 30), false));
+        TimeslotScheduleRequest schedule = new TimeslotScheduleRequest(service.getId(), MONDAY, MONDAY.plusWeeks(13).minusDays(1),
+                LocalTime.of(8, 0), LocalTime.of(20, 0), 30,
+                EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY));
+        int expected = 13 * 5 * 24;
+
+        TimeslotScheduleResult first = timeslotService.generateTimeslots(schedule);
+
+        assertEquals(expected - 1, first.getCreated());
+        assertEquals(1, first.getSkipped());
+        assertEquals(expected, countSlots(service));
+        // Идентификаторы выделяются подряд из блоков timeslot_seq: не больше одного неполного блока на порцию.
+        long idRange = jdbcTemplate.queryForObject("SELECT max(id) - min(id) FROM timeslot WHERE service_id = ? AND available",
+                Long.class, service.getId());
+        assertTrue(idRange < expected + 2L * PooledIdAllocator.BLOCK_SIZE, "id range " + idRange);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM timeslot WHERE service_id = ? " +
+                "AND extract(isodow FROM start_time) > 5", Integer.class, service.getId()));
+        assertFalse(timeslotService.getTimeslotById(existing.getId()).isAvailable());
+
+        TimeslotScheduleResult second = timeslotService.generateTimeslots(schedule);
+
+        assertEquals(0, second.getCreated());
+        assertEquals(expected, second.getSkipped());
+        assertEquals(expected, countSlots(service));
+    }
+
+    @Test
+    public void testGeneratedSlotsAreAvailable() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Schedule availability", 100.0, 1));
+        timeslotService.generateTimeslots(new TimeslotScheduleRequest(service.getId(), MONDAY, MONDAY,
+                LocalTime.of(10, 0), LocalTime.of(11, 15), 20, EnumSet.allOf(DayOfWeek.class)));
+
+        List<TimeslotSummary> slots = timeslotService.getAvailableTimeslots(service.getId(), MONDAY.atStartOfDay(), MONDAY.plusDays(1).atStartOfDay());
+
+        assertEquals(List.of(MONDAY.atTime(10, 0), MONDAY.atTime(10, 20), MONDAY.atTime(10, 40)),
+                slots.stream().map(TimeslotSummary::getStartTime).toList());
+        assertEquals(MONDAY.atTime(11, 0), slots.get(2).getEndTime());
+    }
+
+    @Test
+    public void testConcurrentGenerationsCreateEachSlotOnce() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Schedule concurrent", 100.0, 1));
+        TimeslotScheduleRequest schedule = new TimeslotScheduleRequest(service.getId(), MONDAY, MONDAY.plusWeeks(4).minusDays(1),
+                LocalTime.of(8, 0), LocalTime.of(20, 0), 30, EnumSet.allOf(DayOfWeek.class));
+        int expected = 4 * 7 * 24;
+        int generations = 4;
+
+        ExecutorService executor = Executors.newFixedThreadPool(generations);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TimeslotScheduleResult>> futures = new ArrayList<>();
+        for (int i = 0; i < generations; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return timeslotService.generateTimeslots(schedule);
+            }));
+        }
+        start.countDown();
+        int created = 0;
+        for (Future<TimeslotScheduleResult> future : futures) {
+            TimeslotScheduleResult result = future.get();
+            assertEquals(expected, result.getCreated() + result.getSkipped());
+            created += result.getCreated();
+        }
+        executor.shutdown();
+
+        assertEquals(expected, created);
+        assertEquals(expected, countSlots(service));
+    }
+
+    @Test
+    public void testAddTimeslotAtExistingStartTimeIsRejected() throws Exception {
+        Service service = serviceService.addService(new ServiceRequest("Schedule duplicate", 100.0, 1));
+        TimeslotRequest request = new TimeslotRequest(service.getId(), MONDAY.atTime(9, 0), MONDAY.atTime(9, 30), true);
+        timeslotService.addTimeslot(request);
+
+        assertThrows(TimeslotConflictException.class, () -> timeslotService.addTimeslot(request));
+        assertEquals(1, countSlots(service));
+    }
+
+    private int countSlots(Service service) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM timeslot WHERE service_id = ?", Integer.class, service.getId());
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.carwashapi.service;
 
+import com.example.carwashapi.dto.CursorPage;
 import com.example.carwashapi.dto.TimeslotRequest;
+import com.example.carwashapi.dto.TimeslotSummary;
 import com.example.carwashapi.exception.ServiceNotFoundException;
+import com.example.carwashapi.exception.TimeslotConflictException;
 import com.example.carwashapi.exception.TimeslotNotFoundException;
 import com.example.carwashapi.model.Service;
 import com.example.carwashapi.model.Timeslot;
@@ -11,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -19,6 +23,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class TimeslotServiceImplTest {
@@ -29,6 +34,9 @@ public class TimeslotServiceImplTest {
     @Mock
     private ServiceServiceImpl serviceService;
 
+    @Mock
+    private AvailabilityCalendar availabilityCalendar;
+
     @InjectMocks
     private TimeslotServiceImpl timeslotService;
 
@@ -40,27 +48,64 @@ public class TimeslotServiceImplTest {
     @Test
     public void testGetAllTimeslots() {
         // Arrange
-        List<Timeslot> timeslots = new ArrayList<>();
-        when(timeslotRepository.findAll()).thenReturn(timeslots);
+        List<TimeslotSummary> timeslots = new ArrayList<>();
+        when(timeslotRepository.findAllSummaries()).thenReturn(timeslots);
 
         // Act
-        List<Timeslot> result = timeslotService.getAllTimeslots();
+        List<TimeslotSummary> result = timeslotService.getAllTimeslots();
 
         // Assert
         assertNotNull(result);
         assertEquals(timeslots, result);
+        verify(timeslotRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetAvailableTimeslots() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.parse("2023-09-15T00:00:00");
+        LocalDateTime to = LocalDateTime.parse("2023-09-16T00:00:00");
+        List<TimeslotSummary> timeslots = new ArrayList<>();
+        timeslots.add(new TimeslotSummary(1L, 1L, from.plusHours(10), from.plusHours(11), true));
+        when(timeslotRepository.findAvailableByServiceId(1L, from, to)).thenReturn(timeslots);
+
+        // Act
+        List<TimeslotSummary> result = timeslotService.getAvailableTimeslots(1L, from, to);
+
+        // Assert
+        assertEquals(timeslots, result);
+        verify(timeslotRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetTimeslotsPage() {
+        // Arrange
+        LocalDateTime startTime = LocalDateTime.parse("2023-09-15T10:00:00");
+        TimeslotSummary timeslot1 = new TimeslotSummary(11L, 1L, startTime, startTime.plusHours(1), true);
+        TimeslotSummary timeslot2 = new TimeslotSummary(12L, 1L, startTime.plusHours(1), startTime.plusHours(2), true);
+        when(timeslotRepository.findSummaryPageAfter(eq(10L), any(Pageable.class))).thenReturn(List.of(timeslot1, timeslot2));
+
+        // Act
+        CursorPage<TimeslotSummary> fullPage = timeslotService.getTimeslotsPage(10L, 2);
+        CursorPage<TimeslotSummary> lastPage = timeslotService.getTimeslotsPage(10L, 3);
+
+        // Assert
+        assertEquals(List.of(timeslot1, timeslot2), fullPage.getItems());
+        assertEquals(12L, fullPage.getNextCursor());
+        assertNull(lastPage.getNextCursor());
+        verify(timeslotRepository, never()).findAll();
     }
 
     @Test
     public void testGetTimeslotById() throws TimeslotNotFoundException {
         // Arrange
         Long timeslotId = 1L;
-        Timeslot timeslot = new Timeslot();
-        timeslot.setId(timeslotId);
-        when(timeslotRepository.findById(timeslotId)).thenReturn(Optional.of(timeslot));
+        TimeslotSummary timeslot = new TimeslotSummary(timeslotId, 1L, LocalDateTime.parse("2023-09-15T10:00:00"),
+                LocalDateTime.parse("2023-09-15T11:00:00"), true);
+        when(timeslotRepository.findSummaryById(timeslotId)).thenReturn(Optional.of(timeslot));
 
         // Act
-        Timeslot result = timeslotService.getTimeslotById(timeslotId);
+        TimeslotSummary result = timeslotService.getTimeslotById(timeslotId);
 
         // Assert
         assertNotNull(result);
@@ -71,14 +116,14 @@ public class TimeslotServiceImplTest {
     public void testGetTimeslotById_ThrowsTimeslotNotFoundException() {
         // Arrange
         Long timeslotId = 1L;
-        when(timeslotRepository.findById(timeslotId)).thenReturn(Optional.empty());
+        when(timeslotRepository.findSummaryById(timeslotId)).thenReturn(Optional.empty());
 
         // Act and Assert
         assertThrows(TimeslotNotFoundException.class, () -> timeslotService.getTimeslotById(timeslotId));
     }
 
     @Test
-    public void testAddTimeslot() throws ServiceNotFoundException {
+    public void testAddTimeslot() throws ServiceNotFoundException, TimeslotConflictException {
         // Arrange
         TimeslotRequest timeslotRequest = new TimeslotRequest();
         timeslotRequest.setServiceId(1L);
@@ -109,27 +154,30 @@ public class TimeslotServiceImplTest {
     public void testDeleteTimeslot() {
         // Arrange
         Long timeslotId = 1L;
-        when(timeslotRepository.existsById(timeslotId)).thenReturn(true);
+        Timeslot timeslot = new Timeslot();
+        timeslot.setId(timeslotId);
+        when(timeslotRepository.findById(timeslotId)).thenReturn(Optional.of(timeslot));
 
         // Act
         assertDoesNotThrow(() -> timeslotService.deleteTimeslot(timeslotId));
 
         // Assert
-        verify(timeslotRepository, times(1)).deleteById(timeslotId);
+        verify(timeslotRepository, times(1)).delete(timeslot);
+        verify(availabilityCalendar, times(1)).timeslotChanged(timeslot, null);
     }
 
     @Test
     public void testDeleteTimeslot_ThrowsTimeslotNotFoundException() {
         // Arrange
         Long timeslotId = 1L;
-        when(timeslotRepository.existsById(timeslotId)).thenReturn(false);
+        when(timeslotRepository.findById(timeslotId)).thenReturn(Optional.empty());
 
         // Act and Assert
         assertThrows(TimeslotNotFoundException.class, () -> timeslotService.deleteTimeslot(timeslotId));
     }
 
     @Test
-    public void testUpdateTimeslot() throws ServiceNotFoundException, TimeslotNotFoundException {
+    public void testUpdateTimeslot() throws ServiceNotFoundException, TimeslotNotFoundException, TimeslotConflictException {
         // Arrange
         Long timeslotId = 1L;
         TimeslotRequest updatedTimeslotRequest = new TimeslotRequest();